@@ -20,6 +20,7 @@ package davmail;
 
 import davmail.exception.DavMailException;
 import davmail.exchange.ExchangeSession;
+import davmail.exchange.ExchangeSessionFactory;
 import davmail.ui.tray.DavGatewayTray;
 import org.apache.log4j.Logger;
 
@@ -176,8 +177,10 @@ public abstract class AbstractConnection extends Thread implements Closeable {
     public void sendClient(String prefix, String message) throws IOException {
         if (prefix != null) {
             os.write(prefix.getBytes(StandardCharsets.UTF_8));
-            DavGatewayTray.debug(new BundleMessage("LOG_SEND_CLIENT_PREFIX_MESSAGE", prefix, message));
-        } else {
+            if (DavGatewayTray.isDebugEnabled()) {
+                DavGatewayTray.debug(new BundleMessage("LOG_SEND_CLIENT_PREFIX_MESSAGE", prefix, message));
+            }
+        } else if (DavGatewayTray.isDebugEnabled()) {
             DavGatewayTray.debug(new BundleMessage("LOG_SEND_CLIENT_MESSAGE", message));
         }
         os.write(message.getBytes(StandardCharsets.UTF_8));
@@ -238,7 +241,7 @@ public abstract class AbstractConnection extends Thread implements Closeable {
                 DavGatewayTray.debug(new BundleMessage("LOG_READ_CLIENT_AUTHORIZATION"));
             } else if (line.startsWith("AUTH PLAIN")) {
                 DavGatewayTray.debug(new BundleMessage("LOG_READ_CLIENT_AUTH_PLAIN"));
-            } else {
+            } else if (DavGatewayTray.isDebugEnabled()) {
                 DavGatewayTray.debug(new BundleMessage("LOG_READ_CLIENT_LINE", line));
             }
         }
@@ -246,11 +249,29 @@ public abstract class AbstractConnection extends Thread implements Closeable {
         return line;
     }
 
+    /**
+     * Set current Exchange session, register this connection as holder to prevent pool eviction.
+     *
+     * @param newSession Exchange session or null
+     */
+    protected void setSession(ExchangeSession newSession) {
+        if (newSession != session) {
+            if (session != null) {
+                ExchangeSessionFactory.releaseSession(session);
+            }
+            if (newSession != null) {
+                ExchangeSessionFactory.holdSession(newSession);
+            }
+            session = newSession;
+        }
+    }
+
     /**
      * Close client connection, streams and Exchange session .
      */
     public void close() {
         logConnection("DISCONNECT", "");
+        setSession(null);
         if (in != null) {
             try {
                 in.close();
@@ -49,6 +49,7 @@ public abstract class AbstractServer extends Thread {
     protected boolean nosslFlag; // will cause same behavior as before with unchanged config files
     private final int port;
     private ServerSocket serverSocket;
+    private volatile ConnectionExecutor connectionExecutor;
 
     /**
      * Get server protocol name (SMTP, POP, IMAP, ...).
@@ -194,6 +195,7 @@ public abstract class AbstractServer extends Thread {
     public void run() {
         AbstractConnection connection = null;
         Socket clientSocket = null;
+        connectionExecutor = new ConnectionExecutor(getProtocolName());
         try {
             while (!serverSocket.isClosed()) {
                 clientSocket = serverSocket.accept();
@@ -207,7 +209,7 @@ public abstract class AbstractServer extends Thread {
                         clientSocket.getInetAddress().equals(InetAddress.getByAddress(new byte[]{(byte) 0xfe, (byte) 0x80, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1})
                         )) {
                     connection = createConnectionHandler(clientSocket);
-                    connection.start();
+                    connectionExecutor.execute(connection);
 
                 } else {
                     DavGatewayTray.warn(new BundleMessage("LOG_EXTERNAL_CONNECTION_REFUSED"));
@@ -230,10 +232,31 @@ public abstract class AbstractServer extends Thread {
             if (connection != null) {
                 connection.close();
             }
+            connectionExecutor.shutdown();
         }
 
     }
 
+    /**
+     * Get running client connection count.
+     *
+     * @return active connection count
+     */
+    public int getActiveConnectionCount() {
+        ConnectionExecutor currentConnectionExecutor = connectionExecutor;
+        return currentConnectionExecutor == null ? 0 : currentConnectionExecutor.getActiveCount();
+    }
+
+    /**
+     * Get client connections waiting for an available thread.
+     *
+     * @return queued connection count
+     */
+    public int getQueuedConnectionCount() {
+        ConnectionExecutor currentConnectionExecutor = connectionExecutor;
+        return currentConnectionExecutor == null ? 0 : currentConnectionExecutor.getQueuedCount();
+    }
+
     /**
      * Create a connection handler for the current listener.
      *
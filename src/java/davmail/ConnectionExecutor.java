@@ -0,0 +1,230 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail;
+
+import davmail.ui.tray.DavGatewayTray;
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Run listener client connections.
+ * Execution mode is set per listener with davmail.[protocol]Executor:
+ * virtual (virtual thread per connection, Java 21 or later), pool (bounded thread pool)
+ * or thread (legacy dedicated thread per connection).
+ * Default is virtual when available, pool otherwise.
+ */
+public class ConnectionExecutor {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionExecutor.class);
+
+    /**
+     * Default maximum concurrent connections in pool mode.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 1000;
+    /**
+     * Default pending connection queue size in pool mode.
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 100;
+
+    /**
+     * Connection execution mode.
+     */
+    public enum Mode {
+        thread, virtual, pool
+    }
+
+    private final String protocolName;
+    private final Mode mode;
+    private final ExecutorService executorService;
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+
+    /**
+     * Create connection executor from listener settings.
+     *
+     * @param protocolName listener protocol name
+     */
+    public ConnectionExecutor(String protocolName) {
+        this.protocolName = protocolName;
+        String prefix = "davmail." + protocolName.toLowerCase();
+        Mode requestedMode = null;
+        String modeValue = Settings.getProperty(prefix + "Executor");
+        if (modeValue != null && modeValue.length() > 0) {
+            try {
+                requestedMode = Mode.valueOf(modeValue.toLowerCase());
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Invalid " + prefix + "Executor value " + modeValue + ", using default");
+            }
+        }
+
+        ExecutorService virtualExecutorService = null;
+        if (requestedMode == null || requestedMode == Mode.virtual) {
+            virtualExecutorService = newVirtualThreadExecutor();
+            if (virtualExecutorService == null && requestedMode == Mode.virtual) {
+                LOGGER.warn("Virtual threads not available on Java " + System.getProperty("java.version") + ", using thread pool");
+            }
+        }
+
+        if (virtualExecutorService != null) {
+            mode = Mode.virtual;
+            executorService = virtualExecutorService;
+        } else if (requestedMode == Mode.thread) {
+            mode = Mode.thread;
+            executorService = null;
+        } else {
+            mode = Mode.pool;
+            executorService = newThreadPool(protocolName,
+                    Settings.getIntProperty(prefix + "MaxConnections", DEFAULT_MAX_CONNECTIONS),
+                    Settings.getIntProperty(prefix + "ConnectionQueueSize", DEFAULT_QUEUE_SIZE));
+        }
+        LOGGER.debug(protocolName + " connection executor mode: " + mode);
+    }
+
+    /**
+     * Create a virtual thread per task executor through reflection to keep Java 8 compatibility.
+     *
+     * @return executor or null if virtual threads are not available
+     */
+    protected static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java < 21 or preview feature not enabled
+            return null;
+        }
+    }
+
+    /**
+     * Create bounded thread pool, idle threads expire after one minute.
+     *
+     * @param protocolName   protocol name
+     * @param maxConnections maximum concurrent connections
+     * @param queueSize      maximum pending connections, further connections are rejected
+     * @return thread pool
+     */
+    protected static ExecutorService newThreadPool(final String protocolName, int maxConnections, int queueSize) {
+        BlockingQueue<Runnable> queue;
+        if (queueSize > 0) {
+            queue = new ArrayBlockingQueue<>(queueSize);
+        } else {
+            queue = new SynchronousQueue<>();
+        }
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(maxConnections, maxConnections,
+                60, TimeUnit.SECONDS, queue, new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, protocolName + "Pool-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        return threadPoolExecutor;
+    }
+
+    /**
+     * Run connection, reject connection when pool and queue are full.
+     *
+     * @param connection client connection
+     */
+    public void execute(final AbstractConnection connection) {
+        if (executorService == null) {
+            connection.start();
+            return;
+        }
+        queuedCount.incrementAndGet();
+        try {
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    runConnection(connection);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queuedCount.decrementAndGet();
+            DavGatewayTray.warn(new BundleMessage("LOG_CONNECTION_REJECTED", protocolName, activeCount.get(), queuedCount.get()));
+            connection.close();
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(protocolName + " connections active: " + activeCount.get() + " queued: " + queuedCount.get());
+        }
+    }
+
+    protected void runConnection(AbstractConnection connection) {
+        queuedCount.decrementAndGet();
+        activeCount.incrementAndGet();
+        // keep connection name in logs
+        Thread currentThread = Thread.currentThread();
+        String threadName = currentThread.getName();
+        currentThread.setName(connection.getName());
+        try {
+            connection.run();
+        } finally {
+            currentThread.setName(threadName);
+            activeCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Get execution mode.
+     *
+     * @return mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Get running connection count, not tracked in thread mode.
+     *
+     * @return active connection count
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * Get connections waiting for a pool thread.
+     *
+     * @return queued connection count
+     */
+    public int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    /**
+     * Stop accepting new connections, running connections are not interrupted.
+     */
+    public void shutdown() {
+        if (executorService != null) {
+            executorService.shutdown();
+        }
+    }
+}
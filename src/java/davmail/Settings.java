@@ -37,7 +37,9 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
@@ -86,6 +88,53 @@ public final class Settings {
         }
 
     };
+
+    /**
+     * Immutable copy of settings with pre-parsed values, republished on each change.
+     * Readers never lock, writers update SETTINGS under the class lock then publish a new snapshot.
+     */
+    private static volatile Map<String, Value> snapshot = Collections.emptyMap();
+
+    /**
+     * Pre-parsed setting value.
+     */
+    private static final class Value {
+        final String stringValue;
+        final boolean isInt;
+        final int intValue;
+        final boolean booleanValue;
+
+        Value(String stringValue) {
+            this.stringValue = stringValue;
+            boolean parsed = false;
+            int parsedValue = 0;
+            try {
+                parsedValue = Integer.parseInt(stringValue);
+                parsed = true;
+            } catch (NumberFormatException e) {
+                // not an int value
+            }
+            this.isInt = parsed;
+            this.intValue = parsedValue;
+            this.booleanValue = Boolean.parseBoolean(stringValue);
+        }
+    }
+
+    /**
+     * Publish a new settings snapshot, must be called after any SETTINGS change.
+     */
+    private static synchronized void publish() {
+        HashMap<String, Value> values = new HashMap<>();
+        for (Map.Entry<Object, Object> entry : SETTINGS.entrySet()) {
+            String value = (String) entry.getValue();
+            // empty values are handled as missing
+            if (value != null && value.length() > 0) {
+                values.put((String) entry.getKey(), new Value(value));
+            }
+        }
+        snapshot = Collections.unmodifiableMap(values);
+    }
+
     private static String configFilePath;
     private static boolean isFirstStart;
 
@@ -115,6 +164,7 @@ public final class Settings {
      */
     public static synchronized void load(InputStream inputStream) throws IOException {
         SETTINGS.load(inputStream);
+        publish();
         updateLoggingConfig();
     }
 
@@ -157,7 +207,7 @@ public final class Settings {
      * Set all settings to default values.
      * Ports above 1024 for unix/linux
      */
-    public static void setDefaultSettings() {
+    public static synchronized void setDefaultSettings() {
         SETTINGS.put("davmail.mode", "EWS");
         SETTINGS.put("davmail.url", O365_URL);
         SETTINGS.put("davmail.popPort", "1110");
@@ -217,6 +267,7 @@ public final class Settings {
         SETTINGS.put("log4j.logger.httpclient.wire", Level.WARN.toString());
         SETTINGS.put("log4j.logger.org.apache.commons.httpclient", Level.WARN.toString());
         SETTINGS.put("davmail.logFilePath", "");
+        publish();
     }
 
     /**
@@ -367,6 +418,7 @@ public final class Settings {
                 DavGatewayTray.error(new BundleMessage("LOG_UNABLE_TO_STORE_SETTINGS"), e);
             }
         }
+        publish();
         updateLoggingConfig();
     }
 
@@ -439,13 +491,10 @@ public final class Settings {
      * @param property property name
      * @return property value
      */
-    public static synchronized String getProperty(String property) {
-        String value = SETTINGS.getProperty(property);
-        // return null on empty value
-        if (value != null && value.length() == 0) {
-            value = null;
-        }
-        return value;
+    public static String getProperty(String property) {
+        // empty values are not in snapshot
+        Value value = snapshot.get(property);
+        return value == null ? null : value.stringValue;
     }
 
     /**
@@ -455,7 +504,7 @@ public final class Settings {
      * @param defaultValue default property value
      * @return property value
      */
-    public static synchronized String getProperty(String property, String defaultValue) {
+    public static String getProperty(String property, String defaultValue) {
         String value = getProperty(property);
         if (value == null) {
             value = defaultValue;
@@ -470,7 +519,7 @@ public final class Settings {
      * @param property property name
      * @return property value
      */
-    public static synchronized char[] getCharArrayProperty(String property) {
+    public static char[] getCharArrayProperty(String property) {
         String propertyValue = Settings.getProperty(property);
         char[] value = null;
         if (propertyValue != null) {
@@ -491,6 +540,7 @@ public final class Settings {
         } else {
             SETTINGS.setProperty(property, "");
         }
+        publish();
     }
 
     /**
@@ -499,7 +549,7 @@ public final class Settings {
      * @param property property name
      * @return property value
      */
-    public static synchronized int getIntProperty(String property) {
+    public static int getIntProperty(String property) {
         return getIntProperty(property, 0);
     }
 
@@ -510,15 +560,16 @@ public final class Settings {
      * @param defaultValue default property value
      * @return property value
      */
-    public static synchronized int getIntProperty(String property, int defaultValue) {
+    public static int getIntProperty(String property, int defaultValue) {
         int value = defaultValue;
-        try {
-            String propertyValue = SETTINGS.getProperty(property);
-            if (propertyValue != null && propertyValue.length() > 0) {
-                value = Integer.parseInt(propertyValue);
+        Value propertyValue = snapshot.get(property);
+        if (propertyValue != null) {
+            if (propertyValue.isInt) {
+                value = propertyValue.intValue;
+            } else {
+                DavGatewayTray.error(new BundleMessage("LOG_INVALID_SETTING_VALUE", property),
+                        new NumberFormatException("For input string: \"" + propertyValue.stringValue + '"'));
             }
-        } catch (NumberFormatException e) {
-            DavGatewayTray.error(new BundleMessage("LOG_INVALID_SETTING_VALUE", property), e);
         }
         return value;
     }
@@ -529,9 +580,9 @@ public final class Settings {
      * @param property property name
      * @return property value
      */
-    public static synchronized boolean getBooleanProperty(String property) {
-        String propertyValue = SETTINGS.getProperty(property);
-        return Boolean.parseBoolean(propertyValue);
+    public static boolean getBooleanProperty(String property) {
+        Value propertyValue = snapshot.get(property);
+        return propertyValue != null && propertyValue.booleanValue;
     }
 
     /**
@@ -541,13 +592,12 @@ public final class Settings {
      * @param defaultValue default property value
      * @return property value
      */
-    public static synchronized boolean getBooleanProperty(String property, boolean defaultValue) {
-        boolean value = defaultValue;
-        String propertyValue = SETTINGS.getProperty(property);
-        if (propertyValue != null && propertyValue.length() > 0) {
-            value = Boolean.parseBoolean(propertyValue);
+    public static boolean getBooleanProperty(String property, boolean defaultValue) {
+        Value propertyValue = snapshot.get(property);
+        if (propertyValue != null) {
+            return propertyValue.booleanValue;
         }
-        return value;
+        return defaultValue;
     }
 
     public static synchronized String loadRefreshToken(String username) {
@@ -696,6 +746,7 @@ public final class Settings {
         if (level != null) {
             String prefix = getLoggingPrefix(category);
             SETTINGS.setProperty(prefix + category, level.toString());
+            publish();
             if ("rootLogger".equals(category)) {
                 Logger.getRootLogger().setLevel(level);
             } else {
@@ -175,7 +175,7 @@ public class CaldavConnection extends AbstractConnection {
                     decodeCredentials(headers.get("authorization"));
                     // need to check session on each request, credentials may have changed or session expired
                     try {
-                        session = ExchangeSessionFactory.getInstance(userName, password);
+                        setSession(ExchangeSessionFactory.getInstance(userName, password));
                         logConnection("LOGON", userName);
                         handleRequest(command, path, headers, content);
                     } catch (DavMailAuthenticationException e) {
@@ -419,7 +419,10 @@ public class CaldavConnection extends AbstractConnection {
         if (contacts != null) {
             int count = 0;
             for (ExchangeSession.Contact contact : contacts) {
-                DavGatewayTray.debug(new BundleMessage("LOG_LISTING_ITEM", ++count, contacts.size()));
+                count++;
+                if (DavGatewayTray.isDebugEnabled()) {
+                    DavGatewayTray.debug(new BundleMessage("LOG_LISTING_ITEM", count, contacts.size()));
+                }
                 DavGatewayTray.switchIcon();
                 appendItemResponse(response, request, contact);
             }
@@ -431,7 +434,10 @@ public class CaldavConnection extends AbstractConnection {
             int size = events.size();
             int count = 0;
             for (ExchangeSession.Event event : events) {
-                DavGatewayTray.debug(new BundleMessage("LOG_LISTING_ITEM", ++count, size));
+                count++;
+                if (DavGatewayTray.isDebugEnabled()) {
+                    DavGatewayTray.debug(new BundleMessage("LOG_LISTING_ITEM", count, size));
+                }
                 DavGatewayTray.switchIcon();
                 appendItemResponse(response, request, event);
             }
@@ -770,6 +776,72 @@ public class CaldavConnection extends AbstractConnection {
         }
     }
 
+    /**
+     * Check if multiget item name is valid, ignore cases for Sunbird.
+     *
+     * @param eventName item name from href
+     * @return true if item name should be retrieved
+     */
+    protected boolean isItemName(String eventName) {
+        return eventName != null && eventName.length() > 0
+                && !"inbox".equals(eventName) && !"calendar".equals(eventName);
+    }
+
+    /**
+     * Get a single item, with Lightning encoded name workaround.
+     *
+     * @param request    Caldav request
+     * @param folderPath folder path
+     * @param eventName  item name
+     * @return item
+     * @throws IOException on error
+     */
+    protected ExchangeSession.Item getItem(CaldavRequest request, String folderPath, String eventName) throws IOException {
+        ExchangeSession.Item item;
+        try {
+            item = session.getItem(folderPath, eventName);
+        } catch (HttpNotFoundException e) {
+            // workaround for Lightning bug
+            if (request.isBrokenLightning() && eventName.indexOf('%') >= 0) {
+                item = session.getItem(folderPath, URIUtil.decode(StringUtil.encodePlusSign(eventName)));
+            } else {
+                throw e;
+            }
+
+        }
+        return item;
+    }
+
+    /**
+     * Retrieve a chunk of multiget items in batch, missing items are retrieved one by one later.
+     *
+     * @param folderPath folder path
+     * @param hrefs      requested hrefs
+     * @return items by name
+     * @throws SocketException on client connection error
+     */
+    protected Map<String, ExchangeSession.Item> getItems(String folderPath, List<String> hrefs) throws SocketException {
+        List<String> itemNames = new ArrayList<>();
+        for (String href : hrefs) {
+            String eventName = getEventFileNameFromPath(href);
+            if (isItemName(eventName)) {
+                itemNames.add(eventName);
+            }
+        }
+        Map<String, ExchangeSession.Item> items = new HashMap<>();
+        if (!itemNames.isEmpty()) {
+            try {
+                items = session.getItems(folderPath, itemNames);
+            } catch (SocketException e) {
+                // rethrow SocketException (client closed connection)
+                throw e;
+            } catch (Exception e) {
+                wireLogger.debug(e.getMessage(), e);
+            }
+        }
+        return items;
+    }
+
     /**
      * Report items listed in request.
      *
@@ -786,41 +858,43 @@ public class CaldavConnection extends AbstractConnection {
         if (request.isMultiGet()) {
             int count = 0;
             int total = request.getHrefs().size();
-            for (String href : request.getHrefs()) {
-                DavGatewayTray.debug(new BundleMessage("LOG_REPORT_ITEM", ++count, total));
-                DavGatewayTray.switchIcon();
-                String eventName = getEventFileNameFromPath(href);
-                try {
-                    // ignore cases for Sunbird
-                    if (eventName != null && eventName.length() > 0
-                            && !"inbox".equals(eventName) && !"calendar".equals(eventName)) {
-                        ExchangeSession.Item item;
-                        try {
-                            item = session.getItem(folderPath, eventName);
-                        } catch (HttpNotFoundException e) {
-                            // workaround for Lightning bug
-                            if (request.isBrokenLightning() && eventName.indexOf('%') >= 0) {
-                                item = session.getItem(folderPath, URIUtil.decode(StringUtil.encodePlusSign(eventName)));
-                            } else {
-                                throw e;
+            int chunkSize = Math.max(1, Settings.getIntProperty("davmail.caldavMultigetChunkSize", 100));
+            List<String> hrefs = new ArrayList<>(request.getHrefs());
+            for (int chunkStart = 0; chunkStart < total; chunkStart += chunkSize) {
+                List<String> chunk = hrefs.subList(chunkStart, Math.min(chunkStart + chunkSize, total));
+                Map<String, ExchangeSession.Item> items = getItems(folderPath, chunk);
+                for (String href : chunk) {
+                    count++;
+                    if (DavGatewayTray.isDebugEnabled()) {
+                        DavGatewayTray.debug(new BundleMessage("LOG_REPORT_ITEM", count, total));
+                    }
+                    DavGatewayTray.switchIcon();
+                    String eventName = getEventFileNameFromPath(href);
+                    try {
+                        // ignore cases for Sunbird
+                        if (isItemName(eventName)) {
+                            ExchangeSession.Item item = items.get(eventName);
+                            if (item == null) {
+                                item = getItem(request, folderPath, eventName);
                             }
-
-                        }
-                        if (!eventName.equals(item.getName())) {
-                            DavGatewayTray.warn(new BundleMessage("LOG_MESSAGE", "wrong item name requested " + eventName + " received " + item.getName()));
-                            // force item name to requested value
-                            item.setItemName(eventName);
+                            if (!eventName.equals(item.getName())) {
+                                DavGatewayTray.warn(new BundleMessage("LOG_MESSAGE", "wrong item name requested " + eventName + " received " + item.getName()));
+                                // force item name to requested value
+                                item.setItemName(eventName);
+                            }
+                            appendItemResponse(response, request, item);
                         }
-                        appendItemResponse(response, request, item);
+                    } catch (SocketException e) {
+                        // rethrow SocketException (client closed connection)
+                        throw e;
+                    } catch (Exception e) {
+                        wireLogger.debug(e.getMessage(), e);
+                        DavGatewayTray.warn(new BundleMessage("LOG_ITEM_NOT_AVAILABLE", eventName, href));
+                        notFound.add(href);
                     }
-                } catch (SocketException e) {
-                    // rethrow SocketException (client closed connection)
-                    throw e;
-                } catch (Exception e) {
-                    wireLogger.debug(e.getMessage(), e);
-                    DavGatewayTray.warn(new BundleMessage("LOG_ITEM_NOT_AVAILABLE", eventName, href));
-                    notFound.add(href);
                 }
+                // send completed chunk to client
+                response.flush();
             }
         } else if (request.isPath(1, "users") && request.isPath(3, "inbox")) {
             events = session.getEventMessages(request.getFolderPath());
@@ -1758,6 +1832,10 @@ public class CaldavConnection extends AbstractConnection {
             writer.write(data);
         }
 
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
         public void close() throws IOException {
             writer.close();
         }
@@ -24,7 +24,10 @@ import davmail.exception.DavMailException;
 import davmail.exception.HttpNotFoundException;
 import davmail.http.URIUtil;
 import davmail.ui.NotificationDialog;
+import davmail.util.SpoolOutputStream;
+import davmail.util.StringLongMap;
 import davmail.util.StringUtil;
+import org.apache.http.client.HttpResponseException;
 import org.apache.log4j.Logger;
 
 import javax.mail.MessagingException;
@@ -33,6 +36,7 @@ import javax.mail.internet.InternetHeaders;
 import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeMultipart;
 import javax.mail.internet.MimePart;
+import javax.mail.internet.SharedInputStream;
 import javax.mail.util.SharedByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -47,6 +51,11 @@ import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Exchange session through Outlook Web Access (DAV)
@@ -107,6 +116,22 @@ public abstract class ExchangeSession {
 
     protected String serverVersion;
 
+    /**
+     * Message content bytes held in memory by all sessions, see davmail.messageCacheSize.
+     */
+    private static final AtomicLong MESSAGE_CACHE_MEMORY_SIZE = new AtomicLong();
+
+    /**
+     * Recently fetched message contents, shared by all connections of this session.
+     * Memory budget is gateway wide, each session keeps at least its last message.
+     */
+    protected final MimeContentCache mimeContentCache = new MimeContentCache(
+            Settings.getIntProperty("davmail.messageCacheSize", 16384) * 1024L,
+            Settings.getIntProperty("davmail.messageCacheDiskSize", 0) * 1024L,
+            MESSAGE_CACHE_MEMORY_SIZE);
+
+    protected ExecutorService prefetchExecutor;
+
     protected static final String YYYY_MM_DD_HH_MM_SS = "yyyy/MM/dd HH:mm:ss";
     private static final String YYYYMMDD_T_HHMMSS_Z = "yyyyMMdd'T'HHmmss'Z'";
     protected static final String YYYY_MM_DD_T_HHMMSS_Z = "yyyy-MM-dd'T'HH:mm:ss'Z'";
@@ -184,17 +209,95 @@ public abstract class ExchangeSession {
     }
 
 
+    /**
+     * Default delay in seconds during which a session with a recent successful request is considered alive.
+     */
+    protected static final int DEFAULT_SESSION_FRESHNESS_DELAY = 60;
+
+    /**
+     * Last successful request timestamp, used to avoid a liveness check on each getInstance call.
+     */
+    protected volatile long lastSuccessTimestamp;
+
+    /**
+     * Set when a real request failed with an authentication error.
+     */
+    protected volatile boolean expired;
+
+    /**
+     * Number of client connections currently holding this session, guarded by ExchangeSessionFactory lock.
+     */
+    int holderCount;
+
+    /**
+     * Session removed from pool, close when last holder releases it, guarded by ExchangeSessionFactory lock.
+     */
+    boolean closeRequested;
+
+    /**
+     * Session closed by pool, guarded by ExchangeSessionFactory lock.
+     */
+    boolean closed;
+
+    /**
+     * IMAP status counters computed on last message load, by folder path.
+     */
+    protected final Map<String, FolderStatus> folderStatusMap = new ConcurrentHashMap<>();
+
+    /**
+     * Folder counters not available as folder properties.
+     */
+    protected static class FolderStatus {
+        final String ctag;
+        final int count;
+        final long uidNext;
+        final int recent;
+
+        FolderStatus(String ctag, int count, long uidNext, int recent) {
+            this.ctag = ctag;
+            this.count = count;
+            this.uidNext = uidNext;
+            this.recent = recent;
+        }
+    }
+
+    /**
+     * Record a successful request to Exchange.
+     */
+    protected void markAlive() {
+        lastSuccessTimestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Flag session as expired after an authentication failure.
+     */
+    protected void markExpired() {
+        if (!expired) {
+            LOGGER.debug("Authentication failure, mark session " + this + " expired");
+        }
+        expired = true;
+    }
+
     /**
      * Test if the session expired.
+     * Skip the check request if the session was used successfully within davmail.sessionFreshnessDelay seconds.
      *
      * @return true this session expired
      * @throws NoRouteToHostException on error
      * @throws UnknownHostException   on error
      */
     public boolean isExpired() throws NoRouteToHostException, UnknownHostException {
+        if (expired) {
+            return true;
+        }
+        long freshnessDelay = Settings.getIntProperty("davmail.sessionFreshnessDelay", DEFAULT_SESSION_FRESHNESS_DELAY) * 1000L;
+        if (freshnessDelay > 0 && System.currentTimeMillis() - lastSuccessTimestamp < freshnessDelay) {
+            return false;
+        }
         boolean isExpired = false;
         try {
             getFolder("");
+            markAlive();
         } catch (UnknownHostException | NoRouteToHostException exc) {
             throw exc;
         } catch (IOException e) {
@@ -227,6 +330,40 @@ public abstract class ExchangeSession {
      */
     public abstract void updateMessage(Message message, Map<String, String> properties) throws IOException;
 
+    /**
+     * Update the same properties on several messages.
+     * Default implementation updates messages one by one.
+     *
+     * @param messages   Exchange messages
+     * @param properties Webdav properties map
+     * @return messages actually updated, others failed
+     * @throws IOException on error
+     */
+    public List<Message> updateMessages(List<Message> messages, Map<String, String> properties) throws IOException {
+        for (Message message : messages) {
+            updateMessage(message, new HashMap<>(properties));
+        }
+        return messages;
+    }
+
+    /**
+     * Maximum item count sent to Exchange in a single bulk request.
+     *
+     * @return batch size
+     */
+    public int getBatchSize() {
+        return Math.max(1, Settings.getIntProperty("davmail.itemBatchSize", 100));
+    }
+
+    /**
+     * Invalidate cached message content after an update, move or delete.
+     *
+     * @param message Exchange message
+     */
+    protected void evictMimeContent(Message message) {
+        mimeContentCache.remove(message.getMimeContentKey());
+    }
+
 
     /**
      * Delete Exchange message.
@@ -236,6 +373,21 @@ public abstract class ExchangeSession {
      */
     public abstract void deleteMessage(Message message) throws IOException;
 
+    /**
+     * Delete several Exchange messages.
+     * Default implementation deletes messages one by one.
+     *
+     * @param messages Exchange messages
+     * @return messages actually deleted, others failed
+     * @throws IOException on error
+     */
+    public List<Message> deleteMessages(List<Message> messages) throws IOException {
+        for (Message message : messages) {
+            deleteMessage(message);
+        }
+        return messages;
+    }
+
     /**
      * Get raw MIME message content
      *
@@ -245,6 +397,48 @@ public abstract class ExchangeSession {
      */
     protected abstract byte[] getContent(Message message) throws IOException;
 
+    /**
+     * Create a read-ahead message loader for a client connection,
+     * content is loaded on a session thread pool shared by all connections.
+     *
+     * @return message prefetcher
+     */
+    public synchronized MessagePrefetcher createMessagePrefetcher() {
+        int depth = Settings.getIntProperty("davmail.prefetchDepth", 4);
+        if (prefetchExecutor == null && depth > 0) {
+            final String threadName = Thread.currentThread().getName() + "-Prefetch-";
+            final AtomicInteger threadCount = new AtomicInteger();
+            prefetchExecutor = Executors.newFixedThreadPool(depth, runnable -> {
+                Thread thread = new Thread(runnable, threadName + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return new MessagePrefetcher(prefetchExecutor, depth, Settings.getIntProperty("davmail.prefetchMemory", 8192) * 1024L);
+    }
+
+    /**
+     * Stop prefetch threads on session close.
+     */
+    protected synchronized void shutdownPrefetchExecutor() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+            prefetchExecutor = null;
+        }
+    }
+
+    /**
+     * Get raw MIME message content as a spool, large content is kept in a temporary file.
+     * Default implementation returns null, caller then uses getContent.
+     *
+     * @param message Exchange message
+     * @return message body spool or null if not supported
+     * @throws IOException on error
+     */
+    protected SpoolOutputStream getContentSpool(Message message) throws IOException {
+        return null;
+    }
+
     protected static final Set<String> POP_MESSAGE_ATTRIBUTES = new HashSet<>();
 
     static {
@@ -746,8 +940,8 @@ public abstract class ExchangeSession {
         MessageList messages = searchMessages(folderPath, UID_MESSAGE_ATTRIBUTES,
                 lt("lastmodified", formatSearchDate(cal.getTime())));
 
-        for (Message message : messages) {
-            message.delete();
+        if (!messages.isEmpty()) {
+            deleteMessages(messages);
         }
     }
 
@@ -852,6 +1046,106 @@ public abstract class ExchangeSession {
 
     protected abstract Folder internalGetFolder(String folderName) throws IOException;
 
+    /**
+     * Get several folders, default implementation sends one request per folder.
+     * Missing or forbidden folders are not included in result.
+     *
+     * @param folderPaths folder paths
+     * @return folder list
+     * @throws IOException on error
+     */
+    public List<Folder> getFolders(List<String> folderPaths) throws IOException {
+        List<Folder> folders = new ArrayList<>();
+        for (String folderPath : folderPaths) {
+            try {
+                folders.add(getFolder(folderPath));
+            } catch (HttpResponseException e) {
+                LOGGER.debug("Unable to get folder " + folderPath + ": " + e.getMessage());
+            }
+        }
+        return folders;
+    }
+
+    /**
+     * Get folder with IMAP status counters without loading the folder message list.
+     * Recent count is reused from the last message load while folder content is unchanged,
+     * else computed from unread messages only.
+     * Returned folder has a 0 uidNext if the counter is not available, caller needs to load messages.
+     *
+     * @param folderPath folder path
+     * @return folder with count, unreadCount, recent and uidNext
+     * @throws IOException on error
+     */
+    public Folder getFolderStatus(String folderPath) throws IOException {
+        Folder folder = getFolder(folderPath);
+        loadFolderStatus(folder);
+        return folder;
+    }
+
+    /**
+     * Compute recent count and uidNext on a folder retrieved with folder properties.
+     *
+     * @param folder folder
+     * @throws IOException on error
+     */
+    public void loadFolderStatus(Folder folder) throws IOException {
+        String folderPath = folder.folderPath;
+        FolderStatus folderStatus = folderStatusMap.get(folderPath);
+        // uids are never reused
+        if (folderStatus != null && folderStatus.uidNext > folder.uidNext) {
+            folder.uidNext = folderStatus.uidNext;
+        }
+        if (folder.count > 0 && folder.uidNext <= 0) {
+            LOGGER.debug("uidNext not available on folder " + folderPath);
+        } else if (folderStatus != null && folderStatus.ctag != null && folderStatus.ctag.equals(folder.ctag)
+                && folderStatus.count == folder.count) {
+            folder.recent = folderStatus.recent;
+        } else if (folder.unreadCount == 0) {
+            folder.recent = 0;
+        } else {
+            int recent = 0;
+            for (Message message : searchMessages(folderPath, isFalse("read"))) {
+                if (message.recent) {
+                    recent++;
+                }
+            }
+            folder.recent = recent;
+            folderStatusMap.put(folderPath, new FolderStatus(folder.ctag, folder.count, folder.uidNext, recent));
+        }
+    }
+
+    /**
+     * Load or update folder messages incrementally.
+     * Default implementation does not support synchronization, override in sub classes.
+     *
+     * @param folder folder
+     * @return false if incremental synchronization is not available, caller needs to reload all messages
+     * @throws IOException on error
+     */
+    protected boolean syncMessages(Folder folder) throws IOException {
+        return false;
+    }
+
+    /**
+     * Register folder for change notifications, used by IMAP IDLE.
+     * Default implementation does not support notifications, caller needs to poll with refreshFolder.
+     *
+     * @param folder folder
+     * @return true if folder changed flag will be set on folder changes
+     */
+    public boolean watchFolder(Folder folder) {
+        return false;
+    }
+
+    /**
+     * Stop change notifications on folder.
+     *
+     * @param folder folder
+     */
+    public void unwatchFolder(Folder folder) {
+        folder.watched = false;
+    }
+
     /**
      * Check folder ctag and reload messages as needed.
      *
@@ -869,7 +1163,7 @@ public abstract class ExchangeSession {
                 LOGGER.debug("Contenttag or count changed on " + currentFolder.folderPath +
                         " ctag: " + currentFolder.ctag + " => " + newFolder.ctag +
                         " count: " + currentFolder.count + " => " + newFolder.count
-                        + ", reloading messages");
+                        + ", refreshing messages");
             }
             currentFolder.hasChildren = newFolder.hasChildren;
             currentFolder.noInferiors = newFolder.noInferiors;
@@ -1139,14 +1433,31 @@ public abstract class ExchangeSession {
          */
         public int recent;
 
+        /**
+         * Folder is registered for change notifications.
+         */
+        public volatile boolean watched;
+        /**
+         * Change notification received since last refresh.
+         */
+        public volatile boolean changed;
+        /**
+         * Wake up requested on IDLE connection waiting on this folder, guarded by this.
+         */
+        private boolean wakeUp;
+
         /**
          * Folder message list, empty before loadMessages call.
          */
         public ExchangeSession.MessageList messages;
+        /**
+         * Uid lookup index on messages, reset on load.
+         */
+        protected MessageIndex uidIndex;
         /**
          * Permanent uid (PR_SEARCH_KEY) to IMAP UID map.
          */
-        private final HashMap<String, Long> permanentUrlToImapUidMap = new HashMap<>();
+        private final StringLongMap permanentUrlToImapUidMap = new StringLongMap();
 
         /**
          * Get IMAP folder flags.
@@ -1176,13 +1487,16 @@ public abstract class ExchangeSession {
         }
 
         /**
-         * Load folder messages.
+         * Load folder messages, apply only changes since last load when session supports synchronization.
          *
          * @throws IOException on error
          */
         public void loadMessages() throws IOException {
-            messages = ExchangeSession.this.searchMessages(folderPath, null);
+            if (!ExchangeSession.this.syncMessages(this)) {
+                messages = ExchangeSession.this.searchMessages(folderPath, null);
+            }
             fixUids(messages);
+            uidIndex = null;
             recent = 0;
             for (Message message : messages) {
                 if (message.recent) {
@@ -1196,6 +1510,7 @@ public abstract class ExchangeSession {
             if (computedUidNext > uidNext) {
                 uidNext = computedUidNext;
             }
+            folderStatusMap.put(folderPath, new FolderStatus(ctag, messages.size(), uidNext, recent));
         }
 
         /**
@@ -1219,17 +1534,17 @@ public abstract class ExchangeSession {
         protected void fixUids(MessageList messages) {
             boolean sortNeeded = false;
             for (Message message : messages) {
-                if (permanentUrlToImapUidMap.containsKey(message.getPermanentId())) {
-                    long previousUid = permanentUrlToImapUidMap.get(message.getPermanentId());
-                    if (message.getImapUid() != previousUid) {
-                        LOGGER.debug("Restoring IMAP uid " + message.getImapUid() + " -> " + previousUid + " for message " + message.getPermanentId());
-                        message.setImapUid(previousUid);
-                        sortNeeded = true;
-                    }
-                } else {
-                    // add message to uid map
-                    permanentUrlToImapUidMap.put(message.getPermanentId(), message.getImapUid());
+                if (message.getPermanentId() == null) {
+                    continue;
+                }
+                long previousUid = permanentUrlToImapUidMap.get(message.getPermanentId(), -1);
+                if (previousUid >= 0 && message.getImapUid() != previousUid) {
+                    LOGGER.debug("Restoring IMAP uid " + message.getImapUid() + " -> " + previousUid + " for message " + message.getPermanentId());
+                    message.setImapUid(previousUid);
+                    sortNeeded = true;
                 }
+                // add message to uid map, share permanent id with current message instead of a stale copy
+                permanentUrlToImapUidMap.put(message.getPermanentId(), message.getImapUid());
             }
             if (sortNeeded) {
                 Collections.sort(messages);
@@ -1269,16 +1584,25 @@ public abstract class ExchangeSession {
         }
 
         /**
-         * Get current folder messages imap uids and flags
+         * Get a snapshot of current folder messages imap uids and flags
          *
-         * @return imap uid list
+         * @return message index
          */
-        public TreeMap<Long, String> getImapFlagMap() {
-            TreeMap<Long, String> imapFlagMap = new TreeMap<>();
-            for (ExchangeSession.Message message : messages) {
-                imapFlagMap.put(message.getImapUid(), message.getImapFlags());
+        public MessageIndex getMessageIndex() {
+            return new MessageIndex(messages);
+        }
+
+        /**
+         * Get current folder messages index for uid lookups, built once per message load.
+         * Flags in this index may be outdated, use getMessageIndex to compare flags.
+         *
+         * @return message index
+         */
+        public MessageIndex getUidIndex() {
+            if (uidIndex == null) {
+                uidIndex = new MessageIndex(messages);
             }
-            return imapFlagMap;
+            return uidIndex;
         }
 
         /**
@@ -1309,12 +1633,50 @@ public abstract class ExchangeSession {
         }
 
         /**
-         * drop cached message
+         * Flag folder as changed and wake up IDLE connection waiting on this folder.
+         */
+        public synchronized void notifyChange() {
+            changed = true;
+            notifyAll();
+        }
+
+        /**
+         * Wake up IDLE connection waiting on this folder, e.g. on client input.
+         */
+        public synchronized void wakeUp() {
+            wakeUp = true;
+            notifyAll();
+        }
+
+        /**
+         * Wait for a change notification, a wake up or timeout.
+         *
+         * @param timeout maximum wait time in milliseconds
+         * @return true if folder changed, changed flag is reset
+         * @throws InterruptedException on interrupt
+         */
+        public synchronized boolean waitForChange(long timeout) throws InterruptedException {
+            if (!changed && !wakeUp) {
+                wait(timeout);
+            }
+            wakeUp = false;
+            boolean result = changed;
+            changed = false;
+            return result;
+        }
+
+        /**
+         * drop cached message contents for this folder
          */
         public void clearCache() {
-            messages.cachedMimeContent = null;
-            messages.cachedMimeMessage = null;
-            messages.cachedMessageImapUid = 0;
+            if (messages != null) {
+                for (Message message : messages) {
+                    evictMimeContent(message);
+                }
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(mimeContentCache);
+            }
         }
     }
 
@@ -1397,6 +1759,16 @@ public abstract class ExchangeSession {
          */
         protected byte[] mimeContent;
 
+        /**
+         * Unparsed message content spooled to a temporary file, for messages too large for memory.
+         */
+        protected SpoolOutputStream mimeContentSpool;
+
+        /**
+         * Shared input stream over spooled content, referenced by mimeMessage.
+         */
+        protected SharedInputStream mimeContentSpoolStream;
+
         /**
          * Message content parsed in a MIME message.
          */
@@ -1410,6 +1782,15 @@ public abstract class ExchangeSession {
          */
         public abstract String getPermanentId();
 
+        /**
+         * Key of message content in session cache, permanent id by default.
+         *
+         * @return cache key
+         */
+        protected String getMimeContentKey() {
+            return getPermanentId();
+        }
+
         /**
          * IMAP uid , unique in folder (x0e230003)
          *
@@ -1485,16 +1866,28 @@ public abstract class ExchangeSession {
         public void loadMimeMessage() throws IOException, MessagingException {
             if (mimeMessage == null) {
                 // try to get message content from cache
-                if (this.imapUid == messageList.cachedMessageImapUid
-                        // make sure we never return null even with broken 0 uid message
-                        && messageList.cachedMimeContent != null
-                        && messageList.cachedMimeMessage != null) {
-                    mimeContent = messageList.cachedMimeContent;
-                    mimeMessage = messageList.cachedMimeMessage;
+                if (mimeContent == null && mimeContentSpool == null) {
+                    mimeContent = mimeContentCache.get(getMimeContentKey());
+                    if (mimeContent == null) {
+                        mimeContentSpool = mimeContentCache.getSpool(getMimeContentKey());
+                    }
+                }
+                if (mimeContentSpool != null) {
+                    loadSpooledMimeMessage();
+                    LOGGER.debug("Got spooled message content for " + imapUid + " from cache");
+                } else if (mimeContent != null) {
+                    mimeMessage = new MimeMessage(null, new SharedByteArrayInputStream(mimeContent));
                     LOGGER.debug("Got message content for " + imapUid + " from cache");
                 } else {
-                    // load and parse message
-                    mimeContent = getContent(this);
+                    // load and parse message, large content is kept in a spool file
+                    SpoolOutputStream contentSpool = getContentSpool(this);
+                    if (contentSpool != null && contentSpool.isSpooled()) {
+                        mimeContentSpool = contentSpool;
+                        loadSpooledMimeMessage();
+                        LOGGER.debug("Downloaded full message content for IMAP UID " + imapUid + " (" + mimeContentSpool.size() + " bytes spooled)");
+                        return;
+                    }
+                    mimeContent = contentSpool != null ? contentSpool.toByteArray() : getContent(this);
                     mimeMessage = new MimeMessage(null, new SharedByteArrayInputStream(mimeContent));
                     // workaround for Exchange 2003 ActiveSync bug
                     if (mimeMessage.getHeader("MAIL FROM") != null) {
@@ -1511,6 +1904,11 @@ public abstract class ExchangeSession {
             }
         }
 
+        protected void loadSpooledMimeMessage() throws IOException, MessagingException {
+            mimeContentSpoolStream = (SharedInputStream) mimeContentSpool.getSharedInputStream();
+            mimeMessage = new MimeMessage(null, (InputStream) mimeContentSpoolStream);
+        }
+
         /**
          * Get message content as a Mime message.
          *
@@ -1568,6 +1966,9 @@ public abstract class ExchangeSession {
          */
         public int getMimeMessageSize() throws IOException, MessagingException {
             loadMimeMessage();
+            if (mimeContentSpool != null) {
+                return (int) mimeContentSpool.size();
+            }
             return mimeContent.length;
         }
 
@@ -1580,33 +1981,53 @@ public abstract class ExchangeSession {
          */
         public InputStream getRawInputStream() throws IOException, MessagingException {
             loadMimeMessage();
+            if (mimeContentSpoolStream != null) {
+                return mimeContentSpoolStream.newStream(0, -1);
+            }
             return new SharedByteArrayInputStream(mimeContent);
         }
 
 
         /**
          * Drop mime message to avoid keeping message content in memory,
-         * keep a single message in MessageList cache to handle chunked fetch.
+         * keep content in session cache to handle chunked and repeated fetch.
          */
         public void dropMimeMessage() {
-            // update single message cache
-            if (mimeMessage != null) {
-                messageList.cachedMessageImapUid = imapUid;
-                messageList.cachedMimeContent = mimeContent;
-                messageList.cachedMimeMessage = mimeMessage;
+            // update session message cache
+            if (mimeContent != null) {
+                mimeContentCache.put(getMimeContentKey(), mimeContent);
+            }
+            if (mimeContentSpool != null) {
+                mimeContentCache.putSpool(getMimeContentKey(), mimeContentSpool);
+            }
+            if (mimeContentSpoolStream != null) {
+                try {
+                    ((InputStream) mimeContentSpoolStream).close();
+                } catch (IOException e) {
+                    LOGGER.debug("Unable to close spooled message content: " + e.getMessage());
+                }
+            }
+            if (mimeContentSpool != null) {
+                // spool file deleted only if no longer cached or used by another connection
+                mimeContentSpool.release();
             }
             // drop curent message body to save memory
             mimeMessage = null;
             mimeContent = null;
+            mimeContentSpool = null;
+            mimeContentSpoolStream = null;
         }
 
         public boolean isLoaded() {
             // check and retrieve cached content
-            if (imapUid == messageList.cachedMessageImapUid) {
-                mimeContent = messageList.cachedMimeContent;
-                mimeMessage = messageList.cachedMimeMessage;
+            if (mimeContent == null && mimeContentSpool == null) {
+                mimeContent = mimeContentCache.get(getMimeContentKey());
+                if (mimeContent == null) {
+                    // spooled content is retained on load only
+                    return mimeContentCache.containsSpool(getMimeContentKey());
+                }
             }
-            return mimeMessage != null;
+            return mimeContent != null || mimeContentSpool != null;
         }
 
         /**
@@ -1721,22 +2142,9 @@ public abstract class ExchangeSession {
     }
 
     /**
-     * Message list, includes a single messsage cache
+     * Message list
      */
     public static class MessageList extends ArrayList<Message> {
-        /**
-         * Cached message content parsed in a MIME message.
-         */
-        protected transient MimeMessage cachedMimeMessage;
-        /**
-         * Cached message uid.
-         */
-        protected transient long cachedMessageImapUid;
-        /**
-         * Cached unparsed message
-         */
-        protected transient byte[] cachedMimeContent;
-
     }
 
     /**
@@ -2547,6 +2955,27 @@ public abstract class ExchangeSession {
      */
     public abstract Item getItem(String folderPath, String itemName) throws IOException;
 
+    /**
+     * Get items by name in folder, used by CalDav and CardDav multiget.
+     * Default implementation calls getItem for each name, items not found are omitted.
+     *
+     * @param folderPath Exchange folder path
+     * @param itemNames  item names
+     * @return items by requested name
+     * @throws IOException on error
+     */
+    public Map<String, Item> getItems(String folderPath, List<String> itemNames) throws IOException {
+        Map<String, Item> items = new HashMap<>();
+        for (String itemName : itemNames) {
+            try {
+                items.put(itemName, getItem(folderPath, itemName));
+            } catch (HttpNotFoundException e) {
+                LOGGER.debug(e.getMessage());
+            }
+        }
+        return items;
+    }
+
     /**
      * Contact picture
      */
@@ -27,6 +27,7 @@ import davmail.exchange.auth.ExchangeAuthenticator;
 import davmail.exchange.auth.ExchangeFormAuthenticator;
 import davmail.exchange.dav.DavExchangeSession;
 import davmail.exchange.ews.EwsExchangeSession;
+import davmail.exchange.ews.EwsRequestGovernor;
 import davmail.http.DavGatewayHttpClientFacade;
 import davmail.http.HttpClientAdapter;
 import davmail.http.request.GetRequest;
@@ -35,22 +36,58 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 
 import java.awt.*;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Create ExchangeSession instances.
  */
 public final class ExchangeSessionFactory {
     private static final Object LOCK = new Object();
-    private static final Map<PoolKey, ExchangeSession> POOL_MAP = new HashMap<>();
+    private static final Map<PoolKey, PoolEntry> POOL_MAP = new HashMap<>();
+    private static final Map<PoolKey, FutureTask<ExchangeSession>> PENDING_MAP = new HashMap<>();
+    private static final long EVICTOR_DELAY = 60;
+    private static ScheduledExecutorService evictorExecutor;
     private static boolean configChecked;
     private static boolean errorSent;
 
+    private static long createdCount;
+    private static long hitCount;
+    private static long waitCount;
+    private static long evictedCount;
+
+    static class PoolEntry {
+        final ExchangeSession session;
+        long lastAccessTime;
+
+        PoolEntry(ExchangeSession session) {
+            this.session = session;
+            this.lastAccessTime = System.currentTimeMillis();
+        }
+
+        /**
+         * Last pool access, release or successful request.
+         *
+         * @return last use timestamp
+         */
+        long getLastUseTime() {
+            return Math.max(lastAccessTime, session.lastSuccessTimestamp);
+        }
+    }
+
     static class PoolKey {
         final String url;
         final String userName;
@@ -131,102 +168,29 @@ public final class ExchangeSessionFactory {
             PoolKey poolKey = new PoolKey(baseUrl, userName, password);
 
             synchronized (LOCK) {
-                session = POOL_MAP.get(poolKey);
+                PoolEntry poolEntry = POOL_MAP.get(poolKey);
+                if (poolEntry != null) {
+                    poolEntry.lastAccessTime = System.currentTimeMillis();
+                    session = poolEntry.session;
+                }
             }
             if (session != null) {
                 ExchangeSession.LOGGER.debug("Got session " + session + " from cache");
             }
 
             if (session != null && session.isExpired()) {
-                synchronized (LOCK) {
-                    session.close();
-                    ExchangeSession.LOGGER.debug("Session " + session + " for user " + session.userName + " expired");
-                    session = null;
-                    // expired session, remove from cache
-                    POOL_MAP.remove(poolKey);
-                }
+                ExchangeSession.LOGGER.debug("Session " + session + " for user " + session.userName + " expired");
+                // expired session, remove from cache
+                removeSession(poolKey, session);
+                session = null;
             }
 
             if (session == null) {
-                // convert old setting
-                if (mode == null) {
-                    if ("false".equals(Settings.getProperty("davmail.enableEws"))) {
-                        mode = Settings.WEBDAV;
-                    } else {
-                        mode = Settings.EWS;
-                    }
-                }
-                // check for overridden authenticator
-                String authenticatorClass = Settings.getProperty("davmail.authenticator");
-                if (authenticatorClass == null) {
-                    switch (mode) {
-                        case Settings.O365_MODERN:
-                            authenticatorClass = "davmail.exchange.auth.O365Authenticator";
-                            break;
-                        case Settings.O365_INTERACTIVE:
-                            authenticatorClass = "davmail.exchange.auth.O365InteractiveAuthenticator";
-                            if (GraphicsEnvironment.isHeadless()) {
-                                throw new DavMailException("EXCEPTION_DAVMAIL_CONFIGURATION", "O365Interactive not supported in headless mode");
-                            }
-                            break;
-                        case Settings.O365_MANUAL:
-                            authenticatorClass = "davmail.exchange.auth.O365ManualAuthenticator";
-                            break;
-                    }
-                }
-
-                if (authenticatorClass != null) {
-                    ExchangeAuthenticator authenticator = (ExchangeAuthenticator) Class.forName(authenticatorClass).newInstance();
-                    authenticator.setUsername(poolKey.userName);
-                    authenticator.setPassword(poolKey.password);
-                    authenticator.authenticate();
-                    // TODO: check httpclient close in authenticator
-                    HttpClientAdapter httpClientAdapter = new HttpClientAdapter(authenticator.getExchangeUri(), true);
-                    session = new EwsExchangeSession(httpClientAdapter, authenticator.getToken(), poolKey.userName);
-
-                } else if (Settings.EWS.equals(mode) || Settings.O365.equals(mode)
-                        // direct EWS even if mode is different
-                        || poolKey.url.toLowerCase().endsWith("/ews/exchange.asmx")) {
-                    if (poolKey.url.toLowerCase().endsWith("/ews/exchange.asmx")) {
-                        ExchangeSession.LOGGER.debug("Direct EWS authentication");
-                        HttpClientAdapter httpClientAdapter = new HttpClientAdapter(poolKey.url, poolKey.userName, poolKey.password, true);
-                        session = new EwsExchangeSession(httpClientAdapter, poolKey.userName);
-                    } else {
-                        ExchangeSession.LOGGER.debug("OWA authentication in EWS mode");
-                        ExchangeFormAuthenticator exchangeFormAuthenticator = new ExchangeFormAuthenticator();
-                        exchangeFormAuthenticator.setUrl(poolKey.url);
-                        exchangeFormAuthenticator.setUsername(poolKey.userName);
-                        exchangeFormAuthenticator.setPassword(poolKey.password);
-                        exchangeFormAuthenticator.authenticate();
-                        session = new EwsExchangeSession(exchangeFormAuthenticator.getHttpClientAdapter(),
-                                exchangeFormAuthenticator.getExchangeUri(), exchangeFormAuthenticator.getUsername());
-                    }
-                } else {
-                    ExchangeFormAuthenticator exchangeFormAuthenticator = new ExchangeFormAuthenticator();
-                    exchangeFormAuthenticator.setUrl(poolKey.url);
-                    exchangeFormAuthenticator.setUsername(poolKey.userName);
-                    exchangeFormAuthenticator.setPassword(poolKey.password);
-                    exchangeFormAuthenticator.authenticate();
-                    try {
-                        session = new DavExchangeSession(exchangeFormAuthenticator.getHttpClientAdapter(),
-                                exchangeFormAuthenticator.getExchangeUri(),
-                                exchangeFormAuthenticator.getUsername());
-                    } catch (WebdavNotAvailableException e) {
-                        if (Settings.AUTO.equals(mode)) {
-                            ExchangeSession.LOGGER.debug(e.getMessage() + ", retry with EWS");
-                            HttpClientAdapter httpClientAdapter = new HttpClientAdapter(poolKey.url, poolKey.userName, poolKey.password, true);
-                            session = new EwsExchangeSession(httpClientAdapter, exchangeFormAuthenticator.getUsername());
-                        } else {
-                            throw e;
-                        }
-                    }
+                session = getOrCreateSession(poolKey, mode);
+            } else {
+                synchronized (LOCK) {
+                    hitCount++;
                 }
-                checkWhiteList(session.getEmail());
-                ExchangeSession.LOGGER.debug("Created new session " + session + " for user " + poolKey.userName);
-            }
-            // successful login, put session in cache
-            synchronized (LOCK) {
-                POOL_MAP.put(poolKey, session);
             }
             // session opened, future failure will mean network down
             configChecked = true;
@@ -240,6 +204,158 @@ public final class ExchangeSessionFactory {
         return session;
     }
 
+    /**
+     * Single-flight session creation: concurrent callers with the same pool key
+     * wait for the login already in progress instead of authenticating again.
+     *
+     * @param poolKey session pool key
+     * @param mode    Exchange mode
+     * @return authenticated session
+     * @throws Exception on error
+     */
+    private static ExchangeSession getOrCreateSession(PoolKey poolKey, String mode) throws Exception {
+        FutureTask<ExchangeSession> task;
+        boolean owner = false;
+        synchronized (LOCK) {
+            PoolEntry poolEntry = POOL_MAP.get(poolKey);
+            if (poolEntry != null) {
+                // created by another thread in the meantime
+                hitCount++;
+                return poolEntry.session;
+            }
+            task = PENDING_MAP.get(poolKey);
+            if (task == null) {
+                task = new FutureTask<>(() -> {
+                    ExchangeSession newSession = createSession(poolKey, mode);
+                    // successful login, put session in cache
+                    synchronized (LOCK) {
+                        POOL_MAP.put(poolKey, new PoolEntry(newSession));
+                        createdCount++;
+                    }
+                    startEvictor();
+                    // enforce max pool size
+                    evictSessions();
+                    return newSession;
+                });
+                PENDING_MAP.put(poolKey, task);
+                owner = true;
+            } else {
+                waitCount++;
+            }
+        }
+        if (owner) {
+            try {
+                task.run();
+            } finally {
+                synchronized (LOCK) {
+                    PENDING_MAP.remove(poolKey);
+                }
+            }
+        } else {
+            ExchangeSession.LOGGER.debug("Waiting for session creation in progress for user " + poolKey.userName);
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for session creation");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IOException(cause);
+            }
+        }
+    }
+
+    private static ExchangeSession createSession(PoolKey poolKey, String mode) throws Exception {
+        ExchangeSession session;
+        // convert old setting
+        if (mode == null) {
+            if ("false".equals(Settings.getProperty("davmail.enableEws"))) {
+                mode = Settings.WEBDAV;
+            } else {
+                mode = Settings.EWS;
+            }
+        }
+        // check for overridden authenticator
+        String authenticatorClass = Settings.getProperty("davmail.authenticator");
+        if (authenticatorClass == null) {
+            switch (mode) {
+                case Settings.O365_MODERN:
+                    authenticatorClass = "davmail.exchange.auth.O365Authenticator";
+                    break;
+                case Settings.O365_INTERACTIVE:
+                    authenticatorClass = "davmail.exchange.auth.O365InteractiveAuthenticator";
+                    if (GraphicsEnvironment.isHeadless()) {
+                        throw new DavMailException("EXCEPTION_DAVMAIL_CONFIGURATION", "O365Interactive not supported in headless mode");
+                    }
+                    break;
+                case Settings.O365_MANUAL:
+                    authenticatorClass = "davmail.exchange.auth.O365ManualAuthenticator";
+                    break;
+            }
+        }
+
+        if (authenticatorClass != null) {
+            ExchangeAuthenticator authenticator = (ExchangeAuthenticator) Class.forName(authenticatorClass).newInstance();
+            authenticator.setUsername(poolKey.userName);
+            authenticator.setPassword(poolKey.password);
+            authenticator.authenticate();
+            // TODO: check httpclient close in authenticator
+            HttpClientAdapter httpClientAdapter = new HttpClientAdapter(authenticator.getExchangeUri(), true);
+            session = new EwsExchangeSession(httpClientAdapter, authenticator.getToken(), poolKey.userName);
+
+        } else if (Settings.EWS.equals(mode) || Settings.O365.equals(mode)
+                // direct EWS even if mode is different
+                || poolKey.url.toLowerCase().endsWith("/ews/exchange.asmx")) {
+            if (poolKey.url.toLowerCase().endsWith("/ews/exchange.asmx")) {
+                ExchangeSession.LOGGER.debug("Direct EWS authentication");
+                HttpClientAdapter httpClientAdapter = new HttpClientAdapter(poolKey.url, poolKey.userName, poolKey.password, true);
+                session = new EwsExchangeSession(httpClientAdapter, poolKey.userName);
+            } else {
+                ExchangeSession.LOGGER.debug("OWA authentication in EWS mode");
+                ExchangeFormAuthenticator exchangeFormAuthenticator = new ExchangeFormAuthenticator();
+                exchangeFormAuthenticator.setUrl(poolKey.url);
+                exchangeFormAuthenticator.setUsername(poolKey.userName);
+                exchangeFormAuthenticator.setPassword(poolKey.password);
+                exchangeFormAuthenticator.authenticate();
+                session = new EwsExchangeSession(exchangeFormAuthenticator.getHttpClientAdapter(),
+                        exchangeFormAuthenticator.getExchangeUri(), exchangeFormAuthenticator.getUsername());
+            }
+        } else {
+            ExchangeFormAuthenticator exchangeFormAuthenticator = new ExchangeFormAuthenticator();
+            exchangeFormAuthenticator.setUrl(poolKey.url);
+            exchangeFormAuthenticator.setUsername(poolKey.userName);
+            exchangeFormAuthenticator.setPassword(poolKey.password);
+            exchangeFormAuthenticator.authenticate();
+            try {
+                session = new DavExchangeSession(exchangeFormAuthenticator.getHttpClientAdapter(),
+                        exchangeFormAuthenticator.getExchangeUri(),
+                        exchangeFormAuthenticator.getUsername());
+            } catch (WebdavNotAvailableException e) {
+                if (Settings.AUTO.equals(mode)) {
+                    ExchangeSession.LOGGER.debug(e.getMessage() + ", retry with EWS");
+                    HttpClientAdapter httpClientAdapter = new HttpClientAdapter(poolKey.url, poolKey.userName, poolKey.password, true);
+                    session = new EwsExchangeSession(httpClientAdapter, exchangeFormAuthenticator.getUsername());
+                } else {
+                    throw e;
+                }
+            }
+        }
+        try {
+            checkWhiteList(session.getEmail());
+        } catch (DavMailAuthenticationException e) {
+            session.close();
+            throw e;
+        }
+        ExchangeSession.LOGGER.debug("Created new session " + session + " for user " + poolKey.userName);
+        return session;
+    }
+
     /**
      * Check if whitelist is empty or email is allowed.
      * userWhiteList is a comma separated list of values.
@@ -282,9 +398,7 @@ public final class ExchangeSessionFactory {
                 String baseUrl = Settings.getProperty("davmail.url");
                 PoolKey poolKey = new PoolKey(baseUrl, userName, password);
                 // expired session, remove from cache
-                synchronized (LOCK) {
-                    POOL_MAP.remove(poolKey);
-                }
+                removeSession(poolKey, currentSession);
                 session = getInstance(userName, password);
             }
         } catch (DavMailAuthenticationException exc) {
@@ -359,14 +473,193 @@ public final class ExchangeSessionFactory {
      */
     public static String getUserPassword(String userName) {
         String fullUserName = convertUserName(userName);
-        for (PoolKey poolKey : POOL_MAP.keySet()) {
-            if (poolKey.userName.equals(fullUserName)) {
-                return poolKey.password;
+        synchronized (LOCK) {
+            for (PoolKey poolKey : POOL_MAP.keySet()) {
+                if (poolKey.userName.equals(fullUserName)) {
+                    return poolKey.password;
+                }
             }
         }
         return null;
     }
 
+    /**
+     * Register a client connection holding session, held sessions are never evicted.
+     *
+     * @param session Exchange session
+     */
+    public static void holdSession(ExchangeSession session) {
+        synchronized (LOCK) {
+            session.holderCount++;
+        }
+    }
+
+    /**
+     * Release a session previously registered with holdSession.
+     *
+     * @param session Exchange session
+     */
+    public static void releaseSession(ExchangeSession session) {
+        boolean close = false;
+        synchronized (LOCK) {
+            if (session.holderCount > 0) {
+                session.holderCount--;
+            }
+            if (session.holderCount == 0) {
+                // idle timeout starts on last release
+                for (PoolEntry poolEntry : POOL_MAP.values()) {
+                    if (poolEntry.session == session) {
+                        poolEntry.lastAccessTime = System.currentTimeMillis();
+                    }
+                }
+                close = markClosed(session);
+            }
+        }
+        if (close) {
+            ExchangeSession.LOGGER.debug("Closing released session " + session + " for user " + session.userName);
+            session.close();
+        }
+    }
+
+    /**
+     * Remove session from pool if still pooled under this key, a new session
+     * created meanwhile by another connection is kept.
+     *
+     * @param poolKey session pool key
+     * @param session expired session
+     */
+    private static void removeSession(PoolKey poolKey, ExchangeSession session) {
+        synchronized (LOCK) {
+            PoolEntry poolEntry = POOL_MAP.get(poolKey);
+            if (poolEntry != null && poolEntry.session == session) {
+                POOL_MAP.remove(poolKey, poolEntry);
+            }
+        }
+        closeSession(session);
+    }
+
+    /**
+     * Close a session removed from pool, close is deferred until last holder releases it.
+     *
+     * @param session Exchange session
+     */
+    private static void closeSession(ExchangeSession session) {
+        boolean close;
+        synchronized (LOCK) {
+            session.closeRequested = true;
+            close = markClosed(session);
+        }
+        if (close) {
+            session.close();
+        }
+    }
+
+    /**
+     * Mark session closed if close was requested and no connection holds it, called under lock.
+     *
+     * @param session Exchange session
+     * @return true if caller needs to close session
+     */
+    private static boolean markClosed(ExchangeSession session) {
+        if (session.closeRequested && session.holderCount == 0 && !session.closed) {
+            session.closed = true;
+            return true;
+        }
+        return false;
+    }
+
+    private static void startEvictor() {
+        synchronized (LOCK) {
+            if (evictorExecutor == null) {
+                evictorExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "Session evictor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                evictorExecutor.scheduleWithFixedDelay(() -> {
+                    try {
+                        evictSessions();
+                        // drop request governors of inactive users
+                        EwsRequestGovernor.evictIdleInstances(Settings.getIntProperty("davmail.sessionPoolIdleTimeout", 1800) * 1000L);
+                        if (ExchangeSession.LOGGER.isDebugEnabled()) {
+                            ExchangeSession.LOGGER.debug(EwsRequestGovernor.getStatistics());
+                        }
+                    } catch (Exception e) {
+                        ExchangeSession.LOGGER.error("Session eviction failed", e);
+                    }
+                }, EVICTOR_DELAY, EVICTOR_DELAY, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * Close sessions idle for more than davmail.sessionPoolIdleTimeout seconds
+     * and least recently used sessions above davmail.sessionPoolMaxSize.
+     * Sessions held by a client connection are kept, pool may exceed max size.
+     */
+    static void evictSessions() {
+        long idleTimeout = Settings.getIntProperty("davmail.sessionPoolIdleTimeout", 1800) * 1000L;
+        int maxSize = Settings.getIntProperty("davmail.sessionPoolMaxSize", 100);
+        long now = System.currentTimeMillis();
+        List<ExchangeSession> evictedSessions = new ArrayList<>();
+        synchronized (LOCK) {
+            if (idleTimeout > 0) {
+                Iterator<PoolEntry> iterator = POOL_MAP.values().iterator();
+                while (iterator.hasNext()) {
+                    PoolEntry poolEntry = iterator.next();
+                    if (poolEntry.session.holderCount == 0 && now - poolEntry.getLastUseTime() > idleTimeout) {
+                        iterator.remove();
+                        evictedSessions.add(poolEntry.session);
+                    }
+                }
+            }
+            while (maxSize > 0 && POOL_MAP.size() > maxSize) {
+                Map.Entry<PoolKey, PoolEntry> oldestEntry = null;
+                for (Map.Entry<PoolKey, PoolEntry> entry : POOL_MAP.entrySet()) {
+                    if (entry.getValue().session.holderCount == 0
+                            && (oldestEntry == null || entry.getValue().getLastUseTime() < oldestEntry.getValue().getLastUseTime())) {
+                        oldestEntry = entry;
+                    }
+                }
+                if (oldestEntry == null) {
+                    // all sessions in use
+                    break;
+                }
+                POOL_MAP.remove(oldestEntry.getKey(), oldestEntry.getValue());
+                evictedSessions.add(oldestEntry.getValue().session);
+            }
+            evictedCount += evictedSessions.size();
+        }
+        for (ExchangeSession session : evictedSessions) {
+            ExchangeSession.LOGGER.debug("Evicted session " + session + " for user " + session.userName);
+            closeSession(session);
+        }
+        if (!evictedSessions.isEmpty() && ExchangeSession.LOGGER.isDebugEnabled()) {
+            ExchangeSession.LOGGER.debug(getStatistics());
+        }
+    }
+
+    /**
+     * @return session pool statistics
+     */
+    public static String getStatistics() {
+        synchronized (LOCK) {
+            return "Session pool size=" + POOL_MAP.size() + " pending=" + PENDING_MAP.size()
+                    + " created=" + createdCount + " hits=" + hitCount + " waits=" + waitCount
+                    + " evicted=" + evictedCount + " held=" + countHeldSessions();
+        }
+    }
+
+    private static int countHeldSessions() {
+        int count = 0;
+        for (PoolEntry poolEntry : POOL_MAP.values()) {
+            if (poolEntry.session.holderCount > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Check if at least one network interface is up and active (i.e. has an address)
      *
@@ -399,6 +692,12 @@ public final class ExchangeSessionFactory {
     public static void reset() {
         configChecked = false;
         errorSent = false;
-        POOL_MAP.clear();
+        synchronized (LOCK) {
+            POOL_MAP.clear();
+            if (evictorExecutor != null) {
+                evictorExecutor.shutdownNow();
+                evictorExecutor = null;
+            }
+        }
     }
 }
@@ -0,0 +1,164 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compact snapshot of a folder message list: sorted IMAP uids and packed flags.
+ * Used for uid lookups and to detect changes between two folder refreshes
+ * without boxing every uid.
+ */
+public class MessageIndex {
+    static final int SEEN = 1;
+    static final int DELETED = 1 << 1;
+    static final int RECENT = 1 << 2;
+    static final int FLAGGED = 1 << 3;
+    static final int JUNK = 1 << 4;
+    static final int DRAFT = 1 << 5;
+    static final int ANSWERED = 1 << 6;
+    static final int FORWARDED = 1 << 7;
+
+    private final List<ExchangeSession.Message> messages;
+    private final long[] uids;
+    private final byte[] flags;
+    private final String[] keywords;
+
+    /**
+     * Build index from a message list sorted by IMAP uid.
+     *
+     * @param messages message list
+     */
+    public MessageIndex(List<ExchangeSession.Message> messages) {
+        this.messages = messages;
+        int size = messages.size();
+        uids = new long[size];
+        flags = new byte[size];
+        keywords = new String[size];
+        for (int i = 0; i < size; i++) {
+            ExchangeSession.Message message = messages.get(i);
+            uids[i] = message.getImapUid();
+            flags[i] = packFlags(message);
+            keywords[i] = message.keywords;
+        }
+    }
+
+    static byte packFlags(ExchangeSession.Message message) {
+        int packedFlags = 0;
+        if (message.read) {
+            packedFlags |= SEEN;
+        }
+        if (message.deleted) {
+            packedFlags |= DELETED;
+        }
+        if (message.recent) {
+            packedFlags |= RECENT;
+        }
+        if (message.flagged) {
+            packedFlags |= FLAGGED;
+        }
+        if (message.junk) {
+            packedFlags |= JUNK;
+        }
+        if (message.draft) {
+            packedFlags |= DRAFT;
+        }
+        if (message.answered) {
+            packedFlags |= ANSWERED;
+        }
+        if (message.forwarded) {
+            packedFlags |= FORWARDED;
+        }
+        return (byte) packedFlags;
+    }
+
+    /**
+     * @return indexed message count
+     */
+    public int size() {
+        return uids.length;
+    }
+
+    /**
+     * Get IMAP uid at index.
+     *
+     * @param index message index
+     * @return IMAP uid
+     */
+    public long getUid(int index) {
+        return uids[index];
+    }
+
+    /**
+     * Get message at index.
+     *
+     * @param index message index
+     * @return message
+     */
+    public ExchangeSession.Message getMessage(int index) {
+        return messages.get(index);
+    }
+
+    /**
+     * Find message index by uid.
+     *
+     * @param uid IMAP uid
+     * @return message index or -1 if not found
+     */
+    public int indexOf(long uid) {
+        int index = Arrays.binarySearch(uids, uid);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Check if uid is present in index.
+     *
+     * @param uid IMAP uid
+     * @return true if found
+     */
+    public boolean contains(long uid) {
+        return Arrays.binarySearch(uids, uid) >= 0;
+    }
+
+    /**
+     * Index of the first message with an uid greater than or equal to uid.
+     *
+     * @param uid IMAP uid
+     * @return message index, size() if all uids are lower
+     */
+    public int lowerBound(long uid) {
+        int index = Arrays.binarySearch(uids, uid);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Compare flags of a message in this index with a message in another index.
+     *
+     * @param index      message index
+     * @param other      other message index
+     * @param otherIndex message index in other index
+     * @return true if flags and keywords are equal
+     */
+    public boolean hasSameFlags(int index, MessageIndex other, int otherIndex) {
+        return flags[index] == other.flags[otherIndex] && Objects.equals(keywords[index], other.keywords[otherIndex]);
+    }
+
+}
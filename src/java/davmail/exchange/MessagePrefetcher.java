@@ -0,0 +1,219 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Bounded read-ahead of message content for sequential fetch on a single connection.
+ * Connection thread schedules upcoming messages, session threads load their content
+ * and connection thread waits for each message before sending it, response order is unchanged.
+ * Scheduled messages are counted against a memory budget until consumed.
+ */
+public class MessagePrefetcher {
+    private static final Logger LOGGER = Logger.getLogger(MessagePrefetcher.class);
+
+    /**
+     * Larger messages are loaded by connection thread with client keep-alive, see MessageLoadThread.
+     */
+    static final int MAX_PREFETCH_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<Boolean> PREFETCH_THREAD = new ThreadLocal<>();
+
+    private final ExecutorService executorService;
+    private final int depth;
+    private final long memoryBudget;
+    private final Map<ExchangeSession.Message, Future<?>> pending = new IdentityHashMap<>();
+    // messages loaded by a session thread and not yet consumed, guarded by this
+    private final Set<ExchangeSession.Message> loaded = Collections.newSetFromMap(new IdentityHashMap<>());
+    // messages currently loading on a session thread, guarded by this
+    private final Set<ExchangeSession.Message> running = Collections.newSetFromMap(new IdentityHashMap<>());
+    // incremented on cancel, loads scheduled before are skipped, guarded by this
+    private int generation;
+    private long reservedSize;
+    private int prefetchCount;
+    private int hitCount;
+
+    /**
+     * Create message prefetcher.
+     *
+     * @param executorService session prefetch thread pool
+     * @param depth           maximum messages loaded ahead, 0 to disable
+     * @param memoryBudget    maximum size in bytes of messages loaded ahead
+     */
+    public MessagePrefetcher(ExecutorService executorService, int depth, long memoryBudget) {
+        this.executorService = executorService;
+        this.depth = depth;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Check if current thread loads message content ahead of client requests.
+     *
+     * @return true on prefetch threads
+     */
+    public static boolean isPrefetchThread() {
+        return Boolean.TRUE.equals(PREFETCH_THREAD.get());
+    }
+
+    /**
+     * Schedule content load of upcoming messages, in order, within depth and memory budget.
+     *
+     * @param messages upcoming messages, next message first
+     */
+    public void prefetch(List<ExchangeSession.Message> messages) {
+        if (executorService == null || depth <= 0) {
+            return;
+        }
+        for (ExchangeSession.Message message : messages) {
+            if (pending.size() >= depth) {
+                break;
+            }
+            if (pending.containsKey(message) || message.size >= MAX_PREFETCH_SIZE || message.isLoaded()) {
+                continue;
+            }
+            if (reservedSize + message.size > memoryBudget && !pending.isEmpty()) {
+                break;
+            }
+            try {
+                final int taskGeneration;
+                synchronized (this) {
+                    taskGeneration = generation;
+                }
+                pending.put(message, executorService.submit(() -> {
+                    if (!start(message, taskGeneration)) {
+                        return null;
+                    }
+                    PREFETCH_THREAD.set(Boolean.TRUE);
+                    try {
+                        message.loadMimeMessage();
+                    } finally {
+                        PREFETCH_THREAD.remove();
+                        loaded(message);
+                    }
+                    return null;
+                }));
+                reservedSize += message.size;
+                prefetchCount++;
+            } catch (RejectedExecutionException e) {
+                // session closed
+                break;
+            }
+        }
+    }
+
+    /**
+     * Wait for message prefetch completion before connection thread uses message.
+     * Prefetch errors are ignored, connection thread loads message again and reports them.
+     *
+     * @param message message about to be sent to client
+     * @throws InterruptedException on interrupt
+     */
+    public void await(ExchangeSession.Message message) throws InterruptedException {
+        Future<?> future = pending.remove(message);
+        if (future != null) {
+            reservedSize -= message.size;
+            try {
+                future.get();
+                synchronized (this) {
+                    loaded.remove(message);
+                }
+                hitCount++;
+            } catch (ExecutionException e) {
+                LOGGER.debug("Prefetch failed for message " + message.getImapUid() + ": " + e.getCause());
+            } catch (CancellationException e) {
+                LOGGER.debug("Prefetch cancelled for message " + message.getImapUid());
+            }
+        }
+    }
+
+    /**
+     * Register message load start on a session thread, skip loads scheduled before last cancel.
+     *
+     * @param message        message to load
+     * @param taskGeneration generation at schedule time
+     * @return false if load was cancelled
+     */
+    private synchronized boolean start(ExchangeSession.Message message, int taskGeneration) {
+        if (taskGeneration != generation) {
+            return false;
+        }
+        running.add(message);
+        return true;
+    }
+
+    /**
+     * Register message loaded on a session thread, content is kept until consumed or cancelled.
+     *
+     * @param message loaded message
+     */
+    private synchronized void loaded(ExchangeSession.Message message) {
+        running.remove(message);
+        loaded.add(message);
+        notifyAll();
+    }
+
+    /**
+     * Cancel scheduled loads, e.g. when client disconnects or on random access.
+     * Wait for running loads and drop unused content on connection thread,
+     * prefetcher can be used again for later sequential reads.
+     */
+    public void cancel() {
+        List<ExchangeSession.Message> unusedMessages;
+        boolean interrupted = false;
+        synchronized (this) {
+            generation++;
+            for (Future<?> future : pending.values()) {
+                future.cancel(false);
+            }
+            while (!running.isEmpty()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            unusedMessages = new ArrayList<>(loaded);
+            loaded.clear();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        for (ExchangeSession.Message message : unusedMessages) {
+            message.dropMimeMessage();
+        }
+        pending.clear();
+        reservedSize = 0;
+        if (prefetchCount > 0 && LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Prefetched " + hitCount + " of " + prefetchCount + " scheduled messages");
+        }
+    }
+}
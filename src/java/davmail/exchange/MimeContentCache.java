@@ -0,0 +1,339 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange;
+
+import davmail.util.SpoolOutputStream;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of raw message MIME content with a memory byte budget.
+ * The memory budget can be shared by several caches, e.g. all sessions of the gateway:
+ * each cache then evicts its own entries while the shared total is over budget.
+ * Entries evicted from memory can overflow to temporary files under a separate disk budget.
+ * The most recently used entry stays in memory over budget only when it is the only
+ * content held by all caches sharing the budget, so that chunked fetch of a single large
+ * message never downloads it twice while other caches never push the total over budget.
+ * Messages too large for memory are kept as spool files, only the most recent ones.
+ * Spool files are reference counted, a file still read by another connection is only
+ * deleted when this connection releases it.
+ */
+public class MimeContentCache {
+    protected static final Logger LOGGER = Logger.getLogger(MimeContentCache.class);
+
+    /**
+     * Spooled messages kept for chunked fetch, a few to handle concurrent connections.
+     */
+    static final int MAX_SPOOL_ENTRIES = 4;
+
+    private final long maxMemorySize;
+    private final long maxDiskSize;
+    private final AtomicLong totalMemorySize;
+
+    private final LinkedHashMap<String, byte[]> memoryEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, File> diskEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, SpoolOutputStream> spoolEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long memorySize;
+    private long diskSize;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Create MIME content cache.
+     *
+     * @param maxMemorySize memory budget in bytes
+     * @param maxDiskSize   disk overflow budget in bytes, 0 to disable disk overflow
+     */
+    public MimeContentCache(long maxMemorySize, long maxDiskSize) {
+        this(maxMemorySize, maxDiskSize, new AtomicLong());
+    }
+
+    /**
+     * Create MIME content cache with a memory budget shared with other caches.
+     *
+     * @param maxMemorySize   shared memory budget in bytes
+     * @param maxDiskSize     disk overflow budget in bytes, 0 to disable disk overflow
+     * @param totalMemorySize content bytes held in memory by all caches sharing the budget
+     */
+    public MimeContentCache(long maxMemorySize, long maxDiskSize, AtomicLong totalMemorySize) {
+        this.maxMemorySize = maxMemorySize;
+        this.maxDiskSize = maxDiskSize;
+        this.totalMemorySize = totalMemorySize;
+    }
+
+    /**
+     * Get cached content, entries found on disk are moved back to memory.
+     *
+     * @param key cache key
+     * @return content or null
+     */
+    public synchronized byte[] get(String key) {
+        byte[] content = memoryEntries.get(key);
+        if (content == null) {
+            File file = diskEntries.remove(key);
+            if (file != null) {
+                diskSize -= file.length();
+                content = readFile(file);
+                if (content != null) {
+                    putInMemory(key, content);
+                }
+            }
+        }
+        if (content == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return content;
+    }
+
+    /**
+     * Store content.
+     *
+     * @param key     cache key
+     * @param content raw MIME content
+     */
+    public synchronized void put(String key, byte[] content) {
+        if (key == null || content == null) {
+            return;
+        }
+        removeFromDisk(key);
+        putInMemory(key, content);
+    }
+
+    /**
+     * Get cached spooled content, caller must release it when done.
+     *
+     * @param key cache key
+     * @return spooled content or null
+     */
+    public synchronized SpoolOutputStream getSpool(String key) {
+        SpoolOutputStream content = spoolEntries.get(key);
+        if (content != null) {
+            hitCount++;
+            content.retain();
+        }
+        return content;
+    }
+
+    /**
+     * Check if spooled content is cached, without retaining it.
+     *
+     * @param key cache key
+     * @return true if spooled content is available
+     */
+    public synchronized boolean containsSpool(String key) {
+        return spoolEntries.containsKey(key);
+    }
+
+    /**
+     * Store content spooled to a temporary file, outside memory and disk budgets.
+     * The cache retains its own reference, caller still has to release content.
+     * Older spool files are released over MAX_SPOOL_ENTRIES.
+     *
+     * @param key     cache key
+     * @param content spooled MIME content
+     */
+    public synchronized void putSpool(String key, SpoolOutputStream content) {
+        if (key == null || content == null) {
+            return;
+        }
+        SpoolOutputStream previousContent = spoolEntries.put(key, content);
+        if (previousContent != content) {
+            content.retain();
+            if (previousContent != null) {
+                previousContent.release();
+            }
+        }
+        Iterator<SpoolOutputStream> iterator = spoolEntries.values().iterator();
+        while (spoolEntries.size() > MAX_SPOOL_ENTRIES) {
+            SpoolOutputStream eldest = iterator.next();
+            iterator.remove();
+            eldest.release();
+        }
+    }
+
+    /**
+     * Invalidate cached content.
+     *
+     * @param key cache key
+     */
+    public synchronized void remove(String key) {
+        byte[] content = memoryEntries.remove(key);
+        if (content != null) {
+            addMemorySize(-content.length);
+        }
+        removeFromDisk(key);
+        SpoolOutputStream spooledContent = spoolEntries.remove(key);
+        if (spooledContent != null) {
+            spooledContent.release();
+        }
+    }
+
+    /**
+     * Drop all entries and delete overflow files.
+     */
+    public synchronized void clear() {
+        memoryEntries.clear();
+        addMemorySize(-memorySize);
+        for (File file : diskEntries.values()) {
+            deleteFile(file);
+        }
+        diskEntries.clear();
+        diskSize = 0;
+        for (SpoolOutputStream spooledContent : spoolEntries.values()) {
+            spooledContent.release();
+        }
+        spoolEntries.clear();
+    }
+
+    private void putInMemory(String key, byte[] content) {
+        byte[] previousContent = memoryEntries.put(key, content);
+        if (previousContent != null) {
+            addMemorySize(-previousContent.length);
+        }
+        addMemorySize(content.length);
+        // keep the most recent entry only if no other cache holds memory
+        Iterator<Map.Entry<String, byte[]>> iterator = memoryEntries.entrySet().iterator();
+        while (totalMemorySize.get() > maxMemorySize
+                && (memoryEntries.size() > 1 || (!memoryEntries.isEmpty() && totalMemorySize.get() > memorySize))) {
+            Map.Entry<String, byte[]> eldest = iterator.next();
+            iterator.remove();
+            addMemorySize(-eldest.getValue().length);
+            evictionCount++;
+            overflowToDisk(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private void addMemorySize(long delta) {
+        memorySize += delta;
+        totalMemorySize.addAndGet(delta);
+    }
+
+    private void overflowToDisk(String key, byte[] content) {
+        if (maxDiskSize <= 0 || content.length > maxDiskSize) {
+            return;
+        }
+        Iterator<Map.Entry<String, File>> iterator = diskEntries.entrySet().iterator();
+        while (diskSize + content.length > maxDiskSize && iterator.hasNext()) {
+            File eldestFile = iterator.next().getValue();
+            iterator.remove();
+            diskSize -= eldestFile.length();
+            deleteFile(eldestFile);
+        }
+        try {
+            File file = Files.createTempFile("davmail", ".eml").toFile();
+            try (OutputStream outputStream = new FileOutputStream(file)) {
+                outputStream.write(content);
+            }
+            diskEntries.put(key, file);
+            diskSize += file.length();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to write message content overflow file: " + e.getMessage());
+        }
+    }
+
+    private void removeFromDisk(String key) {
+        File file = diskEntries.remove(key);
+        if (file != null) {
+            diskSize -= file.length();
+            deleteFile(file);
+        }
+    }
+
+    private byte[] readFile(File file) {
+        byte[] content = null;
+        try (InputStream inputStream = new FileInputStream(file)) {
+            content = new byte[(int) file.length()];
+            int offset = 0;
+            int count;
+            while (offset < content.length && (count = inputStream.read(content, offset, content.length - offset)) > 0) {
+                offset += count;
+            }
+            if (offset < content.length) {
+                content = null;
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read message content overflow file: " + e.getMessage());
+        }
+        deleteFile(file);
+        return content;
+    }
+
+    private void deleteFile(File file) {
+        if (!file.delete()) {
+            LOGGER.debug("Unable to delete " + file);
+        }
+    }
+
+    /**
+     * @return cache hit count
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return cache miss count
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return count of entries evicted from memory
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return content bytes held in memory
+     */
+    public synchronized long getMemorySize() {
+        return memorySize;
+    }
+
+    /**
+     * @return content bytes held in overflow files
+     */
+    public synchronized long getDiskSize() {
+        return diskSize;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "MimeContentCache memory=" + memorySize + " total=" + totalMemorySize.get() + '/' + maxMemorySize
+                + " disk=" + diskSize + '/' + maxDiskSize + " spooled=" + spoolEntries.size()
+                + " hits=" + hitCount + " misses=" + missCount + " evictions=" + evictionCount;
+    }
+}
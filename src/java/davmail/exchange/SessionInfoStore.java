@@ -0,0 +1,254 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange;
+
+import davmail.Settings;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Persistent session bootstrap information per user and server:
+ * email, alias, server version, well known folder ids and timezone.
+ * Lets new sessions skip bootstrap requests, stored in a properties file
+ * (davmail.sessionInfoFilePath, default .davmail-sessions.properties in user home).
+ */
+public final class SessionInfoStore {
+    private static final Logger LOGGER = Logger.getLogger(SessionInfoStore.class);
+
+    private static final String FOLDER_PREFIX = "folder.";
+
+    private SessionInfoStore() {
+    }
+
+    /**
+     * Session bootstrap information.
+     */
+    public static class SessionInfo {
+        public String email;
+        public String alias;
+        public String serverVersion;
+        public String timezoneId;
+        /**
+         * VTIMEZONE block.
+         */
+        public String vTimezone;
+        /**
+         * Well known folder path by folder id.
+         */
+        public final Map<String, String> folderIds = new HashMap<>();
+        public long timestamp;
+
+        /**
+         * Check if information should be revalidated.
+         *
+         * @param refreshDelay refresh delay in milliseconds
+         * @return true if older than refreshDelay
+         */
+        public boolean isStale(long refreshDelay) {
+            return System.currentTimeMillis() - timestamp > refreshDelay;
+        }
+
+        /**
+         * Compare identity and folder information, ignore timestamp and timezone.
+         *
+         * @param other other session information
+         * @return true if email, alias, server version and well known folder ids are the same
+         */
+        public boolean matches(SessionInfo other) {
+            return other != null
+                    && Objects.equals(email, other.email)
+                    && Objects.equals(alias, other.alias)
+                    && Objects.equals(serverVersion, other.serverVersion)
+                    && folderIds.equals(other.folderIds);
+        }
+    }
+
+    /**
+     * @return true unless disabled with davmail.sessionInfoCache=false
+     */
+    public static boolean isEnabled() {
+        return Settings.getBooleanProperty("davmail.sessionInfoCache", true);
+    }
+
+    static String getFilePath() {
+        String filePath = Settings.getProperty("davmail.sessionInfoFilePath");
+        if (filePath == null) {
+            filePath = System.getProperty("user.home") + "/.davmail-sessions.properties";
+        }
+        return filePath;
+    }
+
+    /**
+     * Load session information.
+     *
+     * @param key user and server key
+     * @return session information or null if not found
+     */
+    public static synchronized SessionInfo load(String key) {
+        Properties properties = read();
+        String prefix = key + '|';
+        String email = properties.getProperty(prefix + "email");
+        if (email == null) {
+            return null;
+        }
+        SessionInfo sessionInfo = new SessionInfo();
+        sessionInfo.email = email;
+        sessionInfo.alias = properties.getProperty(prefix + "alias");
+        sessionInfo.serverVersion = properties.getProperty(prefix + "serverVersion");
+        sessionInfo.timezoneId = properties.getProperty(prefix + "timezoneId");
+        sessionInfo.vTimezone = properties.getProperty(prefix + "vTimezone");
+        try {
+            sessionInfo.timestamp = Long.parseLong(properties.getProperty(prefix + "timestamp", "0"));
+        } catch (NumberFormatException e) {
+            sessionInfo.timestamp = 0;
+        }
+        String folderPrefix = prefix + FOLDER_PREFIX;
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(folderPrefix)) {
+                sessionInfo.folderIds.put(properties.getProperty(name), name.substring(folderPrefix.length()));
+            }
+        }
+        return sessionInfo;
+    }
+
+    /**
+     * Store session information, replaces previous entry.
+     *
+     * @param key         user and server key
+     * @param sessionInfo session information
+     */
+    public static synchronized void store(String key, SessionInfo sessionInfo) {
+        Properties properties = read();
+        removeEntry(properties, key);
+        String prefix = key + '|';
+        setProperty(properties, prefix + "email", sessionInfo.email);
+        setProperty(properties, prefix + "alias", sessionInfo.alias);
+        setProperty(properties, prefix + "serverVersion", sessionInfo.serverVersion);
+        setProperty(properties, prefix + "timezoneId", sessionInfo.timezoneId);
+        setProperty(properties, prefix + "vTimezone", sessionInfo.vTimezone);
+        setProperty(properties, prefix + "timestamp", String.valueOf(sessionInfo.timestamp));
+        for (Map.Entry<String, String> entry : sessionInfo.folderIds.entrySet()) {
+            setProperty(properties, prefix + FOLDER_PREFIX + entry.getValue(), entry.getKey());
+        }
+        write(properties);
+    }
+
+    /**
+     * Update timezone of stored session information, other values are left unchanged.
+     *
+     * @param key        user and server key
+     * @param timezoneId timezone id
+     * @param vTimezone  VTIMEZONE block
+     */
+    public static synchronized void storeTimezone(String key, String timezoneId, String vTimezone) {
+        Properties properties = read();
+        String prefix = key + '|';
+        if (properties.getProperty(prefix + "email") != null) {
+            setProperty(properties, prefix + "timezoneId", timezoneId);
+            setProperty(properties, prefix + "vTimezone", vTimezone);
+            write(properties);
+        }
+    }
+
+    /**
+     * Remove session information, e.g. after server side changes.
+     *
+     * @param key user and server key
+     */
+    public static synchronized void remove(String key) {
+        Properties properties = read();
+        if (removeEntry(properties, key)) {
+            write(properties);
+        }
+    }
+
+    private static boolean removeEntry(Properties properties, String key) {
+        String prefix = key + '|';
+        boolean removed = false;
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(prefix)) {
+                properties.remove(name);
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    private static void setProperty(Properties properties, String name, String value) {
+        if (value != null) {
+            properties.setProperty(name, value);
+        }
+    }
+
+    private static Properties read() {
+        Properties properties = new Properties();
+        File file = new File(getFilePath());
+        if (file.exists()) {
+            try (FileInputStream fis = new FileInputStream(file)) {
+                properties.load(fis);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to read session info from " + file + ": " + e.getMessage());
+            }
+        }
+        return properties;
+    }
+
+    private static void write(Properties properties) {
+        File file = new File(getFilePath()).getAbsoluteFile();
+        File parentFile = file.getParentFile();
+        //noinspection ResultOfMethodCallIgnored
+        parentFile.mkdirs();
+        Path tempFile = null;
+        try {
+            // temporary file is created readable by current user only, then replaces stored file
+            tempFile = Files.createTempFile(parentFile.toPath(), file.getName(), ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                properties.store(outputStream, "DavMail session info");
+            }
+            try {
+                Files.move(tempFile, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to write session info to " + file + ": " + e.getMessage());
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    LOGGER.debug("Unable to delete " + tempFile + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package davmail.exchange;
 
 import org.apache.log4j.Logger;
+import org.codehaus.stax2.XMLInputFactory2;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
@@ -41,15 +42,35 @@ public final class XMLStreamUtil {
     }
 
     /**
-     * Build a new XMLInputFactory.
+     * Shared factory holder, built on first use.
+     * Factory is configured once and only used to create readers, which is thread safe.
+     */
+    private static final class XmlInputFactoryHolder {
+        private static final XMLInputFactory INSTANCE = buildXmlInputFactory();
+    }
+
+    /**
+     * Get shared XMLInputFactory, do not change properties on returned instance.
      *
      * @return XML input factory
      */
     public static XMLInputFactory getXmlInputFactory() {
+        return XmlInputFactoryHolder.INSTANCE;
+    }
+
+    /**
+     * Build a new XMLInputFactory.
+     *
+     * @return XML input factory
+     */
+    static XMLInputFactory buildXmlInputFactory() {
         XMLInputFactory inputFactory = XMLInputFactory.newInstance();
         inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
         inputFactory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, Boolean.TRUE);
         inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        // Woodstox: intern element names and namespaces, EWS responses repeat the same small set of tags
+        setPropertyIfSupported(inputFactory, XMLInputFactory2.P_INTERN_NAMES, Boolean.TRUE);
+        setPropertyIfSupported(inputFactory, XMLInputFactory2.P_INTERN_NS_URIS, Boolean.TRUE);
         // Woodstox 5.2.0
         //if (inputFactory.isPropertySupported("com.ctc.wstx.allowXml11EscapedCharsInXml10")) {
         //    inputFactory.setProperty("com.ctc.wstx.allowXml11EscapedCharsInXml10", Boolean.TRUE);
@@ -57,6 +78,12 @@ public final class XMLStreamUtil {
         return inputFactory;
     }
 
+    private static void setPropertyIfSupported(XMLInputFactory inputFactory, String name, Object value) {
+        if (inputFactory.isPropertySupported(name)) {
+            inputFactory.setProperty(name, value);
+        }
+    }
+
     /**
      * Convert the XML stream to a map of entries.
      * An entry is also a key/value map
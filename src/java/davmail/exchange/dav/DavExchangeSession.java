@@ -35,6 +35,7 @@ import davmail.exchange.XMLStreamUtil;
 import davmail.http.HttpClientAdapter;
 import davmail.http.URIUtil;
 import davmail.http.request.ExchangePropPatchRequest;
+import davmail.http.request.HttpBatchProppatch;
 import davmail.ui.tray.DavGatewayTray;
 import davmail.util.IOUtil;
 import davmail.util.StringUtil;
@@ -431,6 +432,9 @@ public class DavExchangeSession extends ExchangeSession {
             if (operator == Operator.Or) {
                 for (Condition innerCondition : conditions) {
                     contacts.putAll(galFind(innerCondition, returningAttributes, sizeLimit));
+                    if (sizeLimit > 0 && contacts.size() >= sizeLimit) {
+                        break;
+                    }
                 }
             } else if (operator == Operator.And && !conditions.isEmpty()) {
                 Map<String, ExchangeSession.Contact> innerContacts = galFind(conditions.get(0), returningAttributes, sizeLimit);
@@ -2248,7 +2252,9 @@ public class DavExchangeSession extends ExchangeSession {
             condition.appendTo(searchRequest);
         }
         searchRequest.append(" ORDER BY ").append(Field.getRequestPropertyString("imapUid")).append(" DESC");
-        DavGatewayTray.debug(new BundleMessage("LOG_SEARCH_QUERY", searchRequest));
+        if (DavGatewayTray.isDebugEnabled()) {
+            DavGatewayTray.debug(new BundleMessage("LOG_SEARCH_QUERY", searchRequest));
+        }
         MultiStatusResponse[] responses = httpClientAdapter.executeSearchRequest(
                 encodeAndFixUrl(folderUrl), searchRequest.toString(), maxCount);
         DavGatewayTray.debug(new BundleMessage("LOG_SEARCH_RESULT", responses.length));
@@ -2765,6 +2771,118 @@ public class DavExchangeSession extends ExchangeSession {
                 throw new DavMailException("EXCEPTION_UNABLE_TO_UPDATE_MESSAGE");
             }
         }
+        evictMimeContent(message);
+    }
+
+    /**
+     * Send a single BPROPPATCH request per folder for each chunk of messages,
+     * fall back to individual updates for messages Exchange did not update.
+     */
+    @Override
+    public List<ExchangeSession.Message> updateMessages(List<ExchangeSession.Message> messages, Map<String, String> properties) throws IOException {
+        List<ExchangeSession.Message> updatedMessages = new ArrayList<>();
+        // group messages by parent folder url
+        Map<String, List<ExchangeSession.Message>> messagesByFolder = new LinkedHashMap<>();
+        for (ExchangeSession.Message message : messages) {
+            String folderUrl = message.messageUrl.substring(0, message.messageUrl.lastIndexOf('/'));
+            messagesByFolder.computeIfAbsent(folderUrl, k -> new ArrayList<>()).add(message);
+        }
+        int batchSize = getBatchSize();
+        for (Map.Entry<String, List<ExchangeSession.Message>> entry : messagesByFolder.entrySet()) {
+            List<ExchangeSession.Message> folderMessages = entry.getValue();
+            for (int i = 0; i < folderMessages.size(); i += batchSize) {
+                List<ExchangeSession.Message> chunk = folderMessages.subList(i, Math.min(i + batchSize, folderMessages.size()));
+                List<ExchangeSession.Message> failedMessages = batchUpdateMessages(entry.getKey(), chunk, properties);
+                for (ExchangeSession.Message message : chunk) {
+                    if (!failedMessages.contains(message)) {
+                        updatedMessages.add(message);
+                    }
+                }
+                for (ExchangeSession.Message message : failedMessages) {
+                    try {
+                        updateMessage(message, new HashMap<>(properties));
+                        updatedMessages.add(message);
+                    } catch (DavMailException e) {
+                        LOGGER.warn("Unable to update message " + message.permanentUrl + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return updatedMessages;
+    }
+
+    /**
+     * Update messages with a single BPROPPATCH request and check per message status.
+     *
+     * @param folderUrl  parent folder url
+     * @param messages   message list
+     * @param properties properties to update
+     * @return messages not updated
+     * @throws IOException on error
+     */
+    protected List<ExchangeSession.Message> batchUpdateMessages(String folderUrl, List<ExchangeSession.Message> messages, Map<String, String> properties) throws IOException {
+        List<String> hrefs = new ArrayList<>();
+        for (ExchangeSession.Message message : messages) {
+            hrefs.add(encodeAndFixUrl(message.permanentUrl));
+        }
+        List<ExchangeSession.Message> failedMessages = new ArrayList<>(messages);
+        HttpBatchProppatch batchProppatch = new HttpBatchProppatch(encodeAndFixUrl(folderUrl), hrefs, buildProperties(properties));
+        try (CloseableHttpResponse response = httpClientAdapter.execute(batchProppatch)) {
+            if (!batchProppatch.succeeded(response)) {
+                LOGGER.debug("BPROPPATCH failed with status " + response.getStatusLine().getStatusCode() + ", update messages one by one");
+                return failedMessages;
+            }
+            MultiStatus multiStatus = batchProppatch.getResponseBodyAsMultiStatus(response);
+            for (MultiStatusResponse multiStatusResponse : multiStatus.getResponses()) {
+                if (isSuccess(multiStatusResponse)) {
+                    String path = getPath(URIUtil.decode(multiStatusResponse.getHref()));
+                    failedMessages.removeIf(message -> path.equals(getPath(message.permanentUrl))
+                            || path.equals(getPath(message.messageUrl)));
+                }
+            }
+        } catch (DavException e) {
+            LOGGER.debug("Unable to parse BPROPPATCH response, update messages one by one: " + e.getMessage());
+            return failedMessages;
+        }
+        for (ExchangeSession.Message message : messages) {
+            if (!failedMessages.contains(message)) {
+                evictMimeContent(message);
+            }
+        }
+        if (!failedMessages.isEmpty()) {
+            LOGGER.debug("BPROPPATCH failed for " + failedMessages.size() + " messages, update them one by one");
+        }
+        return failedMessages;
+    }
+
+    protected boolean isSuccess(MultiStatusResponse multiStatusResponse) {
+        org.apache.jackrabbit.webdav.Status[] statusList = multiStatusResponse.getStatus();
+        if (statusList.length == 0) {
+            return false;
+        }
+        for (org.apache.jackrabbit.webdav.Status status : statusList) {
+            if (status.getStatusCode() < 200 || status.getStatusCode() >= 300) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remove scheme and host from a decoded url.
+     *
+     * @param url decoded url
+     * @return url path
+     */
+    protected String getPath(String url) {
+        if (url != null && url.startsWith("http")) {
+            int hostIndex = url.indexOf("//");
+            int pathIndex = url.indexOf('/', hostIndex + 2);
+            if (hostIndex > 0 && pathIndex > 0) {
+                return url.substring(pathIndex);
+            }
+        }
+        return url;
     }
 
     /**
@@ -2780,6 +2898,7 @@ public class DavExchangeSession extends ExchangeSession {
                 throw HttpClientAdapter.buildHttpResponseException(httpDelete, response);
             }
         }
+        evictMimeContent(message);
     }
 
     /**
@@ -2992,7 +3111,9 @@ public class DavExchangeSession extends ExchangeSession {
                     int count = super.read(buffer, offset, length);
                     totalCount += count;
                     if (totalCount - lastLogCount > 1024 * 128) {
-                        DavGatewayTray.debug(new BundleMessage("LOG_DOWNLOAD_PROGRESS", String.valueOf(totalCount / 1024), httpGet.getURI()));
+                        if (DavGatewayTray.isDebugEnabled()) {
+                            DavGatewayTray.debug(new BundleMessage("LOG_DOWNLOAD_PROGRESS", String.valueOf(totalCount / 1024), httpGet.getURI()));
+                        }
                         DavGatewayTray.switchIcon();
                         lastLogCount = totalCount;
                     }
@@ -3027,6 +3148,7 @@ public class DavExchangeSession extends ExchangeSession {
             LOGGER.debug("404 not found at permanenturl: " + message.permanentUrl + ", retry with messageurl");
             moveMessage(message.messageUrl, targetFolder);
         }
+        evictMimeContent(message);
     }
 
     protected void moveMessage(String sourceUrl, String targetFolder) throws IOException {
@@ -3094,6 +3216,7 @@ public class DavExchangeSession extends ExchangeSession {
         }
 
         LOGGER.debug("Deleted to :" + destination);
+        evictMimeContent(message);
     }
 
     protected String getItemProperty(String permanentUrl, String propertyName) throws IOException, DavException {
@@ -3168,6 +3291,10 @@ public class DavExchangeSession extends ExchangeSession {
 
     @Override
     public void close() {
+        // holders must login again
+        expired = true;
+        shutdownPrefetchExecutor();
+        mimeContentCache.clear();
         httpClientAdapter.close();
     }
 
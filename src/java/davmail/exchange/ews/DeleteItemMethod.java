@@ -18,10 +18,17 @@
  */
 package davmail.exchange.ews;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Delete Item method.
  */
 public class DeleteItemMethod extends EWSMethod {
+    protected final List<String> responseCodes = new ArrayList<>();
+
     /**
      * Delete item method.
      *
@@ -37,4 +44,69 @@ public class DeleteItemMethod extends EWSMethod {
         this.itemId = itemId;
     }
 
+    /**
+     * Delete several items in a single request.
+     *
+     * @param itemIds                  item id list
+     * @param deleteType               delete mode
+     * @param sendMeetingCancellations send meeting cancellation notifications
+     */
+    public DeleteItemMethod(List<ItemId> itemIds, DeleteType deleteType, SendMeetingCancellations sendMeetingCancellations) {
+        super("Item", "DeleteItem");
+        addMethodOption(deleteType);
+        addMethodOption(sendMeetingCancellations);
+        addMethodOption(AffectedTaskOccurrences.AllOccurrences);
+        this.itemIds = itemIds;
+    }
+
+    @Override
+    protected String handleTag(XMLStreamReader reader, String localName) throws XMLStreamException {
+        String result = super.handleTag(reader, localName);
+        if (result != null && "ResponseCode".equals(localName)) {
+            responseCodes.add(result);
+        }
+        return result;
+    }
+
+    @Override
+    public void checkSuccess() throws EWSException {
+        // on multiple item delete, per item errors are reported by isDeleted
+        if (isThrottled() || itemIds == null || responseCodes.size() != itemIds.size()) {
+            super.checkSuccess();
+        }
+    }
+
+    @Override
+    protected void clearErrors() {
+        super.clearErrors();
+        responseCodes.clear();
+    }
+
+    /**
+     * Check delete status of an item, missing items are considered deleted.
+     *
+     * @param index item index in request
+     * @return true if item no longer exists
+     */
+    public boolean isDeleted(int index) {
+        if (index >= responseCodes.size()) {
+            return false;
+        }
+        String responseCode = responseCodes.get(index);
+        return "NoError".equals(responseCode) || "ErrorItemNotFound".equals(responseCode);
+    }
+
+    /**
+     * Get response code of an item.
+     *
+     * @param index item index in request
+     * @return response code
+     */
+    public String getResponseCode(int index) {
+        if (index >= responseCodes.size()) {
+            return null;
+        }
+        return responseCodes.get(index);
+    }
+
 }
@@ -23,8 +23,11 @@ import davmail.Settings;
 import davmail.exchange.XMLStreamUtil;
 import davmail.http.HttpClientAdapter;
 import davmail.ui.tray.DavGatewayTray;
+import davmail.util.IOUtil;
+import davmail.util.SpoolOutputStream;
 import davmail.util.StringUtil;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64OutputStream;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.ResponseHandler;
@@ -42,6 +45,7 @@ import javax.xml.stream.XMLStreamReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -67,7 +71,9 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
     protected FolderQueryTraversal traversal;
     protected BaseShape baseShape;
     protected boolean includeMimeContent;
+    protected int mimeContentSpoolThreshold = -1;
     protected FolderId folderId;
+    protected List<FolderId> folderIds;
     protected FolderId savedItemFolderId;
     protected FolderId toFolderId;
     protected FolderId parentFolderId;
@@ -99,6 +105,7 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
     protected String errorDetail;
     protected String errorDescription;
     protected String errorValue;
+    protected int priority = EwsRequestGovernor.PRIORITY_NORMAL;
     protected Item item;
 
     protected SearchExpression searchExpression;
@@ -137,6 +144,7 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
 
         AbstractHttpEntity httpEntity = new AbstractHttpEntity() {
             byte[] content;
+            long spooledContentLength = -1;
 
             @Override
             public boolean isRepeatable() {
@@ -145,6 +153,26 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
 
             @Override
             public long getContentLength() {
+                if (hasSpooledContent()) {
+                    if (isChunked()) {
+                        return -1;
+                    }
+                    // count envelope without MIME content and add computed base64 length,
+                    // spool file is read only once when request is sent
+                    if (spooledContentLength < 0) {
+                        item.skipMimeContentSpool = true;
+                        try {
+                            UploadOutputStream countingOutputStream = new UploadOutputStream(null, 0);
+                            writeSoapEnvelope(countingOutputStream);
+                            spooledContentLength = countingOutputStream.count + (item.mimeContentSpool.size() + 2) / 3 * 4;
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        } finally {
+                            item.skipMimeContentSpool = false;
+                        }
+                    }
+                    return spooledContentLength;
+                }
                 if (content == null) {
                     content = generateSoapEnvelope();
                 }
@@ -161,6 +189,13 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
 
             @Override
             public void writeTo(OutputStream outputStream) throws IOException {
+                if (hasSpooledContent()) {
+                    long expectedLength = spooledContentLength > 0 ? spooledContentLength : item.mimeContentSpool.size() * 4 / 3;
+                    UploadOutputStream uploadOutputStream = new UploadOutputStream(outputStream, expectedLength);
+                    writeSoapEnvelope(uploadOutputStream);
+                    uploadOutputStream.flush();
+                    return;
+                }
                 boolean firstPass = content == null;
                 if (content == null) {
                     content = generateSoapEnvelope();
@@ -176,7 +211,9 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
                         }
                         outputStream.write(content, i, length);
                         if (!firstPass) {
-                            DavGatewayTray.debug(new BundleMessage("LOG_UPLOAD_PROGRESS", String.valueOf((i + length) / 1024), (i + length) * 100 / content.length));
+                            if (DavGatewayTray.isDebugEnabled()) {
+                                DavGatewayTray.debug(new BundleMessage("LOG_UPLOAD_PROGRESS", String.valueOf((i + length) / 1024), (i + length) * 100 / content.length));
+                            }
                             DavGatewayTray.switchIcon();
                         }
                         i += CHUNK_LENGTH;
@@ -280,6 +317,12 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
             if (updates == null) {
                 writer.write("</m:FolderIds>");
             }
+        } else if (folderIds != null) {
+            writer.write("<m:FolderIds>");
+            for (FolderId localFolderId : folderIds) {
+                localFolderId.write(writer);
+            }
+            writer.write("</m:FolderIds>");
         }
     }
 
@@ -387,55 +430,124 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
         }
     }
 
-    protected byte[] generateSoapEnvelope() {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try {
-            OutputStreamWriter writer = new OutputStreamWriter(baos, StandardCharsets.UTF_8);
-            writer.write("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\" " +
-                    "xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\" " +
-                    "xmlns:m=\"http://schemas.microsoft.com/exchange/services/2006/messages\">" +
-                    "");
-            writer.write("<soap:Header>");
-            if (serverVersion != null) {
-                writer.write("<t:RequestServerVersion Version=\"");
-                writer.write(serverVersion);
-                writer.write("\"/>");
-            }
-            if (timezoneContext != null) {
-                writer.write("<t:TimeZoneContext><t:TimeZoneDefinition Id=\"");
-                writer.write(timezoneContext);
-                writer.write("\"/></t:TimeZoneContext>");
-            }
-            writer.write("</soap:Header>");
+    /**
+     * Output stream wrapper counting bytes and reporting upload progress,
+     * discards content when target stream is null.
+     */
+    static class UploadOutputStream extends FilterOutputStream {
+        final long expectedLength;
+        long count;
+        long nextProgress = CHUNK_LENGTH;
 
-            writer.write("<soap:Body>");
-            writer.write("<m:");
-            writer.write(methodName);
-            if (traversal != null) {
-                traversal.write(writer);
-            }
-            if (deleteType != null) {
-                deleteType.write(writer);
+        UploadOutputStream(OutputStream outputStream, long expectedLength) {
+            super(outputStream);
+            this.expectedLength = expectedLength;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (out != null) {
+                out.write(b);
             }
-            if (methodOptions != null) {
-                for (AttributeOption attributeOption : methodOptions) {
-                    attributeOption.write(writer);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (out != null) {
+                out.write(bytes, offset, length);
+                if (count + length >= nextProgress && expectedLength > 0) {
+                    if (DavGatewayTray.isDebugEnabled()) {
+                        DavGatewayTray.debug(new BundleMessage("LOG_UPLOAD_PROGRESS", String.valueOf((count + length) / 1024), Math.min(100, (count + length) * 100 / expectedLength)));
+                    }
+                    DavGatewayTray.switchIcon();
+                    nextProgress += CHUNK_LENGTH;
                 }
             }
-            writer.write(">");
-            writeSoapBody(writer);
-            writer.write("</m:");
-            writer.write(methodName);
-            writer.write(">");
-            writer.write("</soap:Body>" +
-                    "</soap:Envelope>");
-            writer.flush();
+            count += length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * True if item MIME content is spooled, request body is then streamed instead of buffered.
+     *
+     * @return true if request content is spooled
+     */
+    protected boolean hasSpooledContent() {
+        return item != null && item.mimeContentSpool != null;
+    }
+
+    protected byte[] generateSoapEnvelope() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            writeSoapEnvelope(baos);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
         return baos.toByteArray();
     }
 
+    /**
+     * Write SOAP envelope to output stream.
+     *
+     * @param outputStream output stream
+     * @throws IOException on error
+     */
+    protected void writeSoapEnvelope(OutputStream outputStream) throws IOException {
+        OutputStreamWriter writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        writer.write("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\" " +
+                "xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\" " +
+                "xmlns:m=\"http://schemas.microsoft.com/exchange/services/2006/messages\">" +
+                "");
+        writer.write("<soap:Header>");
+        if (serverVersion != null) {
+            writer.write("<t:RequestServerVersion Version=\"");
+            writer.write(serverVersion);
+            writer.write("\"/>");
+        }
+        if (timezoneContext != null) {
+            writer.write("<t:TimeZoneContext><t:TimeZoneDefinition Id=\"");
+            writer.write(timezoneContext);
+            writer.write("\"/></t:TimeZoneContext>");
+        }
+        writer.write("</soap:Header>");
+
+        writer.write("<soap:Body>");
+        writer.write("<m:");
+        writer.write(methodName);
+        if (traversal != null) {
+            traversal.write(writer);
+        }
+        if (deleteType != null) {
+            deleteType.write(writer);
+        }
+        if (methodOptions != null) {
+            for (AttributeOption attributeOption : methodOptions) {
+                attributeOption.write(writer);
+            }
+        }
+        writer.write(">");
+        writeSoapBody(writer);
+        writer.write("</m:");
+        writer.write(methodName);
+        writer.write(">");
+        writer.write("</soap:Body>" +
+                "</soap:Envelope>");
+        writer.flush();
+    }
+
     protected void writeSoapBody(Writer writer) throws IOException {
         startChanges(writer);
         writeShape(writer);
@@ -564,6 +676,14 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
          */
         public String type;
         protected byte[] mimeContent;
+        /**
+         * Raw MIME content, base64 encoded on the fly when request is sent.
+         */
+        protected SpoolOutputStream mimeContentSpool;
+        /**
+         * Write an empty MimeContent element, used to compute request length.
+         */
+        protected boolean skipMimeContentSpool;
         protected List<FieldUpdate> fieldUpdates;
         protected List<FileAttachment> attachments;
         protected List<Attendee> attendees;
@@ -605,6 +725,14 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
                     writer.write(c);
                 }
                 writer.write("</t:MimeContent>");
+            } else if (mimeContentSpool != null) {
+                writer.write("<t:MimeContent>");
+                if (!skipMimeContentSpool) {
+                    try (InputStream inputStream = mimeContentSpool.getInputStream()) {
+                        IOUtil.encodeBase64(inputStream, writer);
+                    }
+                }
+                writer.write("</t:MimeContent>");
             }
             // write ordered fields
             for (String key : fieldNames) {
@@ -787,7 +915,7 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
      * @throws EWSException on error
      */
     public void checkSuccess() throws EWSException {
-        if ("The server cannot service this request right now. Try again later.".equals(errorDetail)) {
+        if (isThrottled()) {
             throw new EWSThrottlingException(errorDetail);
         }
         if (errorDetail != null) {
@@ -799,7 +927,7 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
                 throw new EWSException(errorDetail
                         + ' ' + ((errorDescription != null) ? errorDescription : "")
                         + ' ' + ((errorValue != null) ? errorValue : "")
-                        + "\n request: " + new String(generateSoapEnvelope(), StandardCharsets.UTF_8));
+                        + (hasSpooledContent() ? "" : "\n request: " + new String(generateSoapEnvelope(), StandardCharsets.UTF_8)));
             }
         }
         if (getStatusCode() == HttpStatus.SC_BAD_REQUEST || getStatusCode() == HttpStatus.SC_INSUFFICIENT_STORAGE) {
@@ -807,6 +935,51 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
         }
     }
 
+    /**
+     * Check if request was rejected by server throttling policy.
+     *
+     * @return true on throttling error
+     */
+    protected boolean isThrottled() {
+        return isServerThrottled() || "ErrorServerBusy".equals(errorDetail);
+    }
+
+    /**
+     * Check if whole server rejected request, ErrorServerBusy is only on current user budget.
+     *
+     * @return true if server is overloaded
+     */
+    protected boolean isServerThrottled() {
+        return "The server cannot service this request right now. Try again later.".equals(errorDetail);
+    }
+
+    /**
+     * Reset error status before retry.
+     */
+    protected void clearErrors() {
+        errorDetail = null;
+        errorDescription = null;
+        errorValue = null;
+    }
+
+    /**
+     * Set request priority in gateway request governor.
+     *
+     * @param priority EwsRequestGovernor priority
+     */
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Decode response MimeContent to a spool instead of a byte array.
+     *
+     * @param threshold maximum content size in bytes kept in memory
+     */
+    public void setMimeContentSpoolThreshold(int threshold) {
+        this.mimeContentSpoolThreshold = threshold;
+    }
+
     public int getStatusCode() {
         if ("ErrorAccessDenied".equals(errorDetail)) {
             return HttpStatus.SC_FORBIDDEN;
@@ -863,6 +1036,29 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
         }
     }
 
+    /**
+     * Get response mime content decoded to a spool, see setMimeContentSpoolThreshold.
+     * Caller must delete spool when done.
+     *
+     * @return mime content spool
+     * @throws EWSException on error
+     */
+    public SpoolOutputStream getMimeContentSpool() throws EWSException {
+        SpoolOutputStream mimeContentSpool = null;
+        if (responseItems != null && !responseItems.isEmpty()) {
+            mimeContentSpool = responseItems.get(0).mimeContentSpool;
+        }
+        try {
+            checkSuccess();
+        } catch (EWSException e) {
+            if (mimeContentSpool != null) {
+                mimeContentSpool.delete();
+            }
+            throw e;
+        }
+        return mimeContentSpool;
+    }
+
     protected String handleTag(XMLStreamReader reader, String localName) throws XMLStreamException {
         StringBuilder result = null;
         int event = reader.getEventType();
@@ -940,8 +1136,10 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
                 } else {
                     if (tagLocalName.endsWith("Id")) {
                         value = getAttributeValue(reader, "Id");
-                        // get change key
-                        responseItem.put("ChangeKey", getAttributeValue(reader, "ChangeKey"));
+                        // get change key, parent folder change key must not override item change key
+                        if (!"ParentFolderId".equals(tagLocalName)) {
+                            responseItem.put("ChangeKey", getAttributeValue(reader, "ChangeKey"));
+                        }
                     }
                     if (value == null) {
                         value = getTagContent(reader);
@@ -1112,7 +1310,9 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
 
 
     protected void handleMimeContent(XMLStreamReader reader, Item responseItem) throws XMLStreamException {
-        if (reader instanceof TypedXMLStreamReader) {
+        if (mimeContentSpoolThreshold >= 0) {
+            responseItem.mimeContentSpool = readMimeContentSpool(reader);
+        } else if (reader instanceof TypedXMLStreamReader) {
             // Stax2 parser: use enhanced base64 conversion
             responseItem.mimeContent = ((TypedXMLStreamReader) reader).getElementAsBinary();
         } else {
@@ -1121,6 +1321,54 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
         }
     }
 
+    /**
+     * Decode base64 MimeContent chunk by chunk to a spool, content over threshold goes to a temporary file.
+     *
+     * @param reader XML stream reader on MimeContent start tag
+     * @return decoded content
+     * @throws XMLStreamException on error
+     */
+    protected SpoolOutputStream readMimeContentSpool(XMLStreamReader reader) throws XMLStreamException {
+        SpoolOutputStream spoolOutputStream = new SpoolOutputStream(mimeContentSpoolThreshold);
+        try {
+            if (reader instanceof TypedXMLStreamReader) {
+                // Stax2 parser: decode directly to buffer
+                byte[] buffer = new byte[CHUNK_LENGTH];
+                int count;
+                while ((count = ((TypedXMLStreamReader) reader).readElementAsBinary(buffer, 0, buffer.length)) >= 0) {
+                    spoolOutputStream.write(buffer, 0, count);
+                }
+                spoolOutputStream.close();
+            } else {
+                // failover: decode text events
+                OutputStream base64OutputStream = new Base64OutputStream(spoolOutputStream, false);
+                char[] chars = new char[8192];
+                byte[] bytes = new byte[8192];
+                while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+                    if (reader.isCharacters()) {
+                        int offset = 0;
+                        int count;
+                        while ((count = reader.getTextCharacters(offset, chars, 0, chars.length)) > 0) {
+                            for (int i = 0; i < count; i++) {
+                                bytes[i] = (byte) chars[i];
+                            }
+                            base64OutputStream.write(bytes, 0, count);
+                            offset += count;
+                        }
+                    }
+                }
+                base64OutputStream.close();
+            }
+        } catch (IOException e) {
+            spoolOutputStream.delete();
+            throw new XMLStreamException(e);
+        } catch (XMLStreamException e) {
+            spoolOutputStream.delete();
+            throw e;
+        }
+        return spoolOutputStream;
+    }
+
     protected void addExtendedPropertyValue(XMLStreamReader reader, Item item) throws XMLStreamException {
         String propertyTag = null;
         String propertyValue = null;
@@ -1208,7 +1456,21 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
         return this;
     }
 
+    /**
+     * Delete spooled content of a previous response, e.g. when method is retried.
+     */
+    protected void deleteMimeContentSpools() {
+        if (responseItems != null) {
+            for (Item responseItem : responseItems) {
+                if (responseItem.mimeContentSpool != null) {
+                    responseItem.mimeContentSpool.delete();
+                }
+            }
+        }
+    }
+
     protected void processResponseStream(InputStream inputStream) {
+        deleteMimeContentSpools();
         responseItems = new ArrayList<>();
         XMLStreamReader reader = null;
         try {
@@ -1221,7 +1483,9 @@ public abstract class EWSMethod extends HttpPost implements ResponseHandler<EWSM
                     int count = super.read(buffer, offset, length);
                     totalCount += count;
                     if (totalCount - lastLogCount > 1024 * 128) {
-                        DavGatewayTray.debug(new BundleMessage("LOG_DOWNLOAD_PROGRESS", String.valueOf(totalCount / 1024), EWSMethod.this.getURI()));
+                        if (DavGatewayTray.isDebugEnabled()) {
+                            DavGatewayTray.debug(new BundleMessage("LOG_DOWNLOAD_PROGRESS", String.valueOf(totalCount / 1024), EWSMethod.this.getURI()));
+                        }
                         DavGatewayTray.switchIcon();
                         lastLogCount = totalCount;
                     }
@@ -24,6 +24,8 @@ import davmail.exception.DavMailAuthenticationException;
 import davmail.exception.DavMailException;
 import davmail.exception.HttpNotFoundException;
 import davmail.exchange.ExchangeSession;
+import davmail.exchange.MessagePrefetcher;
+import davmail.exchange.SessionInfoStore;
 import davmail.exchange.VCalendar;
 import davmail.exchange.VObject;
 import davmail.exchange.VProperty;
@@ -32,10 +34,13 @@ import davmail.http.DavGatewayHttpClientFacade;
 import davmail.http.HttpClientAdapter;
 import davmail.http.request.GetRequest;
 import davmail.ui.NotificationDialog;
+import davmail.util.ExpiringCache;
 import davmail.util.IOUtil;
+import davmail.util.SpoolOutputStream;
 import davmail.util.StringUtil;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpStatus;
+import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.methods.CloseableHttpResponse;
 
 import javax.mail.MessagingException;
@@ -55,6 +60,14 @@ import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * EWS Exchange adapter.
@@ -63,6 +76,10 @@ import java.util.*;
 public class EwsExchangeSession extends ExchangeSession {
 
     protected static final int PAGE_SIZE = 500;
+    /**
+     * Maximum changes returned by a single SyncFolderItems request.
+     */
+    protected static final int SYNC_MAX_CHANGES = 512;
 
     protected static final String ARCHIVE_ROOT = "/archive/";
 
@@ -142,7 +159,37 @@ public class EwsExchangeSession extends ExchangeSession {
     protected HttpClientAdapter httpClient;
 
     protected Map<String, String> folderIdMap;
+
+    protected static final String[] WELL_KNOWN_FOLDERS = {INBOX, CALENDAR, CONTACTS, SENT, DRAFTS, TRASH, JUNK, UNSENT};
     protected boolean directEws;
+    /**
+     * Session initialized from stored session info instead of bootstrap requests.
+     */
+    protected boolean sessionInfoFromCache;
+    /**
+     * Exchange timezone id of current VTIMEZONE, compared on session info refresh.
+     */
+    protected String timezoneId;
+
+    /**
+     * Folder path to folder id resolution cache, avoid one FindFolder per path segment.
+     */
+    protected final FolderIdCache folderIdCache = new FolderIdCache(Settings.getIntProperty("davmail.folderIdCacheDelay", 300) * 1000L);
+
+    protected static class FolderTreeCacheEntry {
+        protected final List<ExchangeSession.Folder> folders;
+        protected final long timestamp;
+
+        protected FolderTreeCacheEntry(List<ExchangeSession.Folder> folders) {
+            this.folders = folders;
+            this.timestamp = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Recursive folder listings by base folder and search condition.
+     */
+    protected final Map<String, FolderTreeCacheEntry> folderTreeCache = new HashMap<>();
 
     /**
      * Oauth2 token
@@ -151,6 +198,36 @@ public class EwsExchangeSession extends ExchangeSession {
 
     protected class Folder extends ExchangeSession.Folder {
         public FolderId folderId;
+        /**
+         * SyncFolderItems state matching current message list.
+         */
+        public String syncState;
+        /**
+         * Folder synchronization failed, use full reload.
+         */
+        public boolean syncDisabled;
+
+        /**
+         * Copy folder listing attributes, cached folder trees are shared by connections.
+         *
+         * @return folder copy without messages
+         */
+        protected Folder copy() {
+            Folder folder = new Folder();
+            folder.folderId = folderId;
+            folder.folderPath = folderPath;
+            folder.displayName = displayName;
+            folder.folderClass = folderClass;
+            folder.etag = etag;
+            folder.ctag = ctag;
+            folder.count = count;
+            folder.unreadCount = unreadCount;
+            folder.recent = recent;
+            folder.hasChildren = hasChildren;
+            folder.noInferiors = noInferiors;
+            folder.uidNext = uidNext;
+            return folder;
+        }
     }
 
     protected static class FolderPath {
@@ -175,6 +252,7 @@ public class EwsExchangeSession extends ExchangeSession {
         if (userName.contains("@")) {
             this.email = userName;
         }
+        initGovernors();
         buildSessionInfo(null);
     }
 
@@ -185,6 +263,7 @@ public class EwsExchangeSession extends ExchangeSession {
             this.email = userName;
             this.alias = userName.substring(0, userName.indexOf('@'));
         }
+        initGovernors();
         buildSessionInfo(uri);
     }
 
@@ -196,6 +275,7 @@ public class EwsExchangeSession extends ExchangeSession {
             this.alias = userName.substring(0, userName.indexOf('@'));
         }
         this.token = token;
+        initGovernors();
         buildSessionInfo(null);
     }
 
@@ -248,24 +328,37 @@ public class EwsExchangeSession extends ExchangeSession {
 
     @Override
     public void buildSessionInfo(java.net.URI uri) throws IOException {
-        // send a first request to get server version
+        // send a first request to get server version, also checks credentials
         checkEndPointUrl();
 
+        if (SessionInfoStore.isEnabled()) {
+            SessionInfoStore.SessionInfo sessionInfo = SessionInfoStore.load(getSessionInfoKey());
+            if (sessionInfo != null && applySessionInfo(uri, sessionInfo)) {
+                LOGGER.debug("Current user email is " + email + ", alias is " + alias + " on " + serverVersion + " from session info cache");
+                sessionInfoFromCache = true;
+                if (sessionInfo.isStale(Settings.getIntProperty("davmail.sessionInfoRefreshDelay", 24) * 3600000L)) {
+                    startSessionInfoRefresh(sessionInfo);
+                }
+                return;
+            }
+        }
+        bootstrapSessionInfo(uri);
+        storeSessionInfo();
+    }
+
+    /**
+     * Retrieve email, alias and well known folder ids from server.
+     *
+     * @param uri Exchange uri
+     * @throws IOException on error
+     */
+    protected void bootstrapSessionInfo(java.net.URI uri) throws IOException {
         // new approach based on ConvertId to find primary email address
         if (email == null || alias == null) {
             try {
-                GetFolderMethod getFolderMethod = new GetFolderMethod(BaseShape.ID_ONLY,
-                        DistinguishedFolderId.getInstance(null, DistinguishedFolderId.Name.root),
-                        null);
-                executeMethod(getFolderMethod);
-                EWSMethod.Item item = getFolderMethod.getResponseItem();
-                String folderId = item.get("FolderId");
-
-                ConvertIdMethod convertIdMethod = new ConvertIdMethod(folderId);
-                executeMethod(convertIdMethod);
-                EWSMethod.Item convertIdItem = convertIdMethod.getResponseItem();
-                if (convertIdItem != null && !convertIdItem.isEmpty()) {
-                    email = convertIdItem.get("Mailbox");
+                String mailbox = getMailboxFromConvertId();
+                if (mailbox != null) {
+                    email = mailbox;
                     alias = email.substring(0, email.indexOf('@'));
                 }
 
@@ -274,9 +367,7 @@ public class EwsExchangeSession extends ExchangeSession {
             }
         }
 
-        directEws = uri == null
-                || "/ews/services.wsdl".equalsIgnoreCase(uri.getPath())
-                || "/ews/exchange.asmx".equalsIgnoreCase(uri.getPath());
+        directEws = isDirectEws(uri);
 
         // TODO: no longer needed
         // options page is not available in direct EWS mode
@@ -331,16 +422,7 @@ public class EwsExchangeSession extends ExchangeSession {
         }
 
         try {
-            folderIdMap = new HashMap<>();
-            // load actual well known folder ids
-            folderIdMap.put(internalGetFolder(INBOX).folderId.value, INBOX);
-            folderIdMap.put(internalGetFolder(CALENDAR).folderId.value, CALENDAR);
-            folderIdMap.put(internalGetFolder(CONTACTS).folderId.value, CONTACTS);
-            folderIdMap.put(internalGetFolder(SENT).folderId.value, SENT);
-            folderIdMap.put(internalGetFolder(DRAFTS).folderId.value, DRAFTS);
-            folderIdMap.put(internalGetFolder(TRASH).folderId.value, TRASH);
-            folderIdMap.put(internalGetFolder(JUNK).folderId.value, JUNK);
-            folderIdMap.put(internalGetFolder(UNSENT).folderId.value, UNSENT);
+            folderIdMap = getWellKnownFolderIds();
         } catch (IOException e) {
             LOGGER.error(e.getMessage(), e);
             throw new DavMailAuthenticationException("EXCEPTION_EWS_NOT_AVAILABLE");
@@ -348,6 +430,169 @@ public class EwsExchangeSession extends ExchangeSession {
         LOGGER.debug("Current user email is " + email + ", alias is " + alias + " on " + serverVersion);
     }
 
+    /**
+     * Get primary email address of current mailbox with ConvertId on root folder id.
+     *
+     * @return mailbox email address or null
+     * @throws IOException on error
+     */
+    protected String getMailboxFromConvertId() throws IOException {
+        GetFolderMethod getFolderMethod = new GetFolderMethod(BaseShape.ID_ONLY,
+                DistinguishedFolderId.getInstance(null, DistinguishedFolderId.Name.root),
+                null);
+        executeMethod(getFolderMethod);
+        EWSMethod.Item item = getFolderMethod.getResponseItem();
+        String folderId = item.get("FolderId");
+
+        ConvertIdMethod convertIdMethod = new ConvertIdMethod(folderId);
+        executeMethod(convertIdMethod);
+        EWSMethod.Item convertIdItem = convertIdMethod.getResponseItem();
+        if (convertIdItem != null && !convertIdItem.isEmpty()) {
+            return convertIdItem.get("Mailbox");
+        }
+        return null;
+    }
+
+    /**
+     * Load actual well known folder ids.
+     *
+     * @return well known folder path by folder id
+     * @throws IOException on error
+     */
+    protected Map<String, String> getWellKnownFolderIds() throws IOException {
+        Map<String, String> wellKnownFolderIds = new HashMap<>();
+        for (String folderPath : WELL_KNOWN_FOLDERS) {
+            wellKnownFolderIds.put(internalGetFolder(folderPath).folderId.value, folderPath);
+        }
+        return wellKnownFolderIds;
+    }
+
+    protected boolean isDirectEws(java.net.URI uri) {
+        return uri == null
+                || "/ews/services.wsdl".equalsIgnoreCase(uri.getPath())
+                || "/ews/exchange.asmx".equalsIgnoreCase(uri.getPath());
+    }
+
+    /**
+     * Session info store key: user name and EWS endpoint.
+     *
+     * @return key
+     */
+    protected String getSessionInfoKey() {
+        String endpoint = httpClient.getUri() == null ? "" : String.valueOf(httpClient.getUri().getHost());
+        return userName.toLowerCase() + '@' + endpoint;
+    }
+
+    /**
+     * Initialize session from stored bootstrap information.
+     *
+     * @param uri         Exchange uri
+     * @param sessionInfo stored session information
+     * @return false if stored information is incomplete or server version changed
+     */
+    protected boolean applySessionInfo(java.net.URI uri, SessionInfoStore.SessionInfo sessionInfo) {
+        if (sessionInfo.alias == null
+                || !sessionInfo.folderIds.values().containsAll(Arrays.asList(WELL_KNOWN_FOLDERS))
+                || (sessionInfo.serverVersion != null && !sessionInfo.serverVersion.equals(serverVersion))) {
+            return false;
+        }
+        directEws = isDirectEws(uri);
+        email = sessionInfo.email;
+        alias = sessionInfo.alias;
+        currentMailboxPath = "/users/" + email.toLowerCase();
+        folderIdMap = new HashMap<>(sessionInfo.folderIds);
+        if (sessionInfo.vTimezone != null) {
+            try {
+                vTimezone = new VObject(sessionInfo.vTimezone);
+                timezoneId = sessionInfo.timezoneId;
+            } catch (IOException e) {
+                LOGGER.debug("Invalid stored VTIMEZONE: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Save current session bootstrap information.
+     */
+    protected void storeSessionInfo() {
+        if (SessionInfoStore.isEnabled()) {
+            SessionInfoStore.SessionInfo sessionInfo = new SessionInfoStore.SessionInfo();
+            sessionInfo.email = email;
+            sessionInfo.alias = alias;
+            sessionInfo.serverVersion = serverVersion;
+            VObject currentVTimezone = vTimezone;
+            if (currentVTimezone != null) {
+                sessionInfo.timezoneId = timezoneId;
+                sessionInfo.vTimezone = currentVTimezone.toString();
+            }
+            sessionInfo.folderIds.putAll(folderIdMap);
+            sessionInfo.timestamp = System.currentTimeMillis();
+            SessionInfoStore.store(getSessionInfoKey(), sessionInfo);
+        }
+    }
+
+    /**
+     * Retrieve email, alias and well known folder ids from server into a new session info,
+     * current session state is left unchanged. Stored VTIMEZONE is kept only if user timezone is unchanged.
+     *
+     * @param storedSessionInfo stored session information
+     * @return current session information
+     * @throws IOException on error
+     */
+    protected SessionInfoStore.SessionInfo retrieveSessionInfo(SessionInfoStore.SessionInfo storedSessionInfo) throws IOException {
+        SessionInfoStore.SessionInfo sessionInfo = new SessionInfoStore.SessionInfo();
+        String mailbox = getMailboxFromConvertId();
+        if (mailbox != null) {
+            sessionInfo.email = mailbox;
+            sessionInfo.alias = mailbox.substring(0, mailbox.indexOf('@'));
+        } else {
+            // unable to check email address, keep stored values
+            sessionInfo.email = storedSessionInfo.email;
+            sessionInfo.alias = storedSessionInfo.alias;
+        }
+        sessionInfo.serverVersion = serverVersion;
+        sessionInfo.timezoneId = getTimezoneId();
+        if (sessionInfo.timezoneId.equals(storedSessionInfo.timezoneId)) {
+            sessionInfo.vTimezone = storedSessionInfo.vTimezone;
+        } else if (storedSessionInfo.vTimezone != null) {
+            // next session builds a new VTIMEZONE
+            LOGGER.info("Timezone changed to " + sessionInfo.timezoneId + " for " + userName + ", drop stored VTIMEZONE");
+        }
+        sessionInfo.folderIds.putAll(getWellKnownFolderIds());
+        sessionInfo.timestamp = System.currentTimeMillis();
+        return sessionInfo;
+    }
+
+    /**
+     * Revalidate stored session information in background, current session keeps working
+     * with stored values, next sessions get the refreshed information.
+     *
+     * @param storedSessionInfo stored session information
+     */
+    protected void startSessionInfoRefresh(final SessionInfoStore.SessionInfo storedSessionInfo) {
+        final String sessionInfoKey = getSessionInfoKey();
+        Thread thread = new Thread(() -> {
+            try {
+                SessionInfoStore.SessionInfo sessionInfo = retrieveSessionInfo(storedSessionInfo);
+                if (sessionInfo.matches(storedSessionInfo)) {
+                    LOGGER.debug("Refreshed session info for " + userName);
+                } else {
+                    LOGGER.info("Session info changed on server for " + userName + ", updated for next sessions");
+                }
+                SessionInfoStore.store(sessionInfoKey, sessionInfo);
+            } catch (EWSException | HttpNotFoundException e) {
+                // stored information no longer valid, next session will bootstrap from server
+                LOGGER.warn("Unable to refresh session info, remove stored entry: " + e.getMessage());
+                SessionInfoStore.remove(sessionInfoKey);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to refresh session info: " + e.getMessage());
+            }
+        }, Thread.currentThread().getName() + "-SessionInfo");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     protected String getEmailSuffixFromHostname() {
         String domain = httpClient.getHost();
         int start = domain.lastIndexOf('.', domain.lastIndexOf('.') - 1);
@@ -388,6 +633,11 @@ public class EwsExchangeSession extends ExchangeSession {
             return itemId.id;
         }
 
+        @Override
+        protected String getMimeContentKey() {
+            return itemId.id + ' ' + itemId.changeKey;
+        }
+
         @Override
         protected InputStream getMimeHeaders() {
             InputStream result = null;
@@ -461,28 +711,47 @@ public class EwsExchangeSession extends ExchangeSession {
     public void createMessage(String folderPath, String messageName, HashMap<String, String> properties, MimeMessage mimeMessage) throws IOException {
         EWSMethod.Item item = new EWSMethod.Item();
         item.type = "Message";
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        item.mimeContentSpool = spoolMimeMessage(mimeMessage);
         try {
-            mimeMessage.writeTo(baos);
-        } catch (MessagingException e) {
-            throw new IOException(e.getMessage());
+            List<FieldUpdate> fieldUpdates = buildProperties(properties);
+            if (!properties.containsKey("draft")) {
+                // need to force draft flag to false
+                if (properties.containsKey("read")) {
+                    fieldUpdates.add(Field.createFieldUpdate("messageFlags", "1"));
+                } else {
+                    fieldUpdates.add(Field.createFieldUpdate("messageFlags", "0"));
+                }
+            }
+            fieldUpdates.add(Field.createFieldUpdate("urlcompname", messageName));
+            item.setFieldUpdates(fieldUpdates);
+            CreateItemMethod createItemMethod = new CreateItemMethod(MessageDisposition.SaveOnly, getFolderId(folderPath), item);
+            executeMethod(createItemMethod);
+        } finally {
+            item.mimeContentSpool.delete();
         }
-        baos.close();
-        item.mimeContent = IOUtil.encodeBase64(baos.toByteArray());
+    }
 
-        List<FieldUpdate> fieldUpdates = buildProperties(properties);
-        if (!properties.containsKey("draft")) {
-            // need to force draft flag to false
-            if (properties.containsKey("read")) {
-                fieldUpdates.add(Field.createFieldUpdate("messageFlags", "1"));
-            } else {
-                fieldUpdates.add(Field.createFieldUpdate("messageFlags", "0"));
-            }
+    /**
+     * Write MIME message to a spool, large messages are kept in a temporary file
+     * and streamed to Exchange.
+     *
+     * @param mimeMessage MIME message
+     * @return spooled MIME content
+     * @throws IOException on error
+     */
+    protected SpoolOutputStream spoolMimeMessage(MimeMessage mimeMessage) throws IOException {
+        SpoolOutputStream spoolOutputStream = new SpoolOutputStream(Settings.getIntProperty("davmail.uploadSpoolThreshold", 1024) * 1024);
+        try {
+            mimeMessage.writeTo(spoolOutputStream);
+            spoolOutputStream.close();
+        } catch (MessagingException e) {
+            spoolOutputStream.delete();
+            throw new IOException(e.getMessage());
+        } catch (IOException e) {
+            spoolOutputStream.delete();
+            throw e;
         }
-        fieldUpdates.add(Field.createFieldUpdate("urlcompname", messageName));
-        item.setFieldUpdates(fieldUpdates);
-        CreateItemMethod createItemMethod = new CreateItemMethod(MessageDisposition.SaveOnly, getFolderId(folderPath), item);
-        executeMethod(createItemMethod);
+        return spoolOutputStream;
     }
 
     @Override
@@ -496,14 +765,97 @@ public class EwsExchangeSession extends ExchangeSession {
                     SendMeetingInvitationsOrCancellations.SendToNone,
                     ((EwsExchangeSession.Message) message).itemId, buildProperties(properties));
             executeMethod(updateItemMethod);
+            evictMimeContent(message);
         }
     }
 
+    /**
+     * Send one UpdateItem request with an ItemChange per message for each chunk of messages,
+     * items that could not be updated are logged and skipped.
+     */
+    @Override
+    public List<ExchangeSession.Message> updateMessages(List<ExchangeSession.Message> messages, Map<String, String> properties) throws IOException {
+        List<ExchangeSession.Message> updatedMessages = new ArrayList<>();
+        List<ItemId> itemIds = new ArrayList<>();
+        List<ExchangeSession.Message> pendingMessages = new ArrayList<>();
+        for (ExchangeSession.Message message : messages) {
+            if (properties.containsKey("read") && "urn:content-classes:appointment".equals(message.contentClass)) {
+                // read flag is not updated on appointments
+                updateMessage(message, new HashMap<>(properties));
+                updatedMessages.add(message);
+            } else {
+                itemIds.add(((EwsExchangeSession.Message) message).itemId);
+                pendingMessages.add(message);
+            }
+            if (itemIds.size() >= getBatchSize()) {
+                updateItems(itemIds, pendingMessages, properties, updatedMessages);
+            }
+        }
+        if (!itemIds.isEmpty()) {
+            updateItems(itemIds, pendingMessages, properties, updatedMessages);
+        }
+        return updatedMessages;
+    }
+
+    protected void updateItems(List<ItemId> itemIds, List<ExchangeSession.Message> messages, Map<String, String> properties,
+                               List<ExchangeSession.Message> updatedMessages) throws IOException {
+        if (properties.isEmpty()) {
+            updatedMessages.addAll(messages);
+        } else {
+            UpdateItemMethod updateItemMethod = new UpdateItemMethod(MessageDisposition.SaveOnly,
+                    ConflictResolution.AlwaysOverwrite,
+                    SendMeetingInvitationsOrCancellations.SendToNone,
+                    new ArrayList<>(itemIds), buildProperties(properties));
+            executeMethod(updateItemMethod);
+            for (int i = 0; i < messages.size(); i++) {
+                ExchangeSession.Message message = messages.get(i);
+                if (updateItemMethod.isUpdated(i)) {
+                    evictMimeContent(message);
+                    updatedMessages.add(message);
+                } else {
+                    LOGGER.warn("Unable to update message " + message.imapUid + ": " + updateItemMethod.getResponseCode(i));
+                }
+            }
+        }
+        itemIds.clear();
+        messages.clear();
+    }
+
     @Override
     public void deleteMessage(ExchangeSession.Message message) throws IOException {
         LOGGER.debug("Delete " + message.imapUid);
         DeleteItemMethod deleteItemMethod = new DeleteItemMethod(((EwsExchangeSession.Message) message).itemId, DeleteType.HardDelete, SendMeetingCancellations.SendToNone);
         executeMethod(deleteItemMethod);
+        evictMimeContent(message);
+    }
+
+    /**
+     * Send one DeleteItem request per chunk of messages, items that could not be deleted are logged and skipped.
+     */
+    @Override
+    public List<ExchangeSession.Message> deleteMessages(List<ExchangeSession.Message> messages) throws IOException {
+        List<ExchangeSession.Message> deletedMessages = new ArrayList<>();
+        int batchSize = getBatchSize();
+        for (int i = 0; i < messages.size(); i += batchSize) {
+            List<ExchangeSession.Message> chunk = messages.subList(i, Math.min(i + batchSize, messages.size()));
+            List<ItemId> itemIds = new ArrayList<>();
+            for (ExchangeSession.Message message : chunk) {
+                itemIds.add(((EwsExchangeSession.Message) message).itemId);
+            }
+            LOGGER.debug("Delete " + chunk.size() + " messages");
+            DeleteItemMethod deleteItemMethod = new DeleteItemMethod(itemIds, DeleteType.HardDelete, SendMeetingCancellations.SendToNone);
+            executeMethod(deleteItemMethod);
+            for (int j = 0; j < chunk.size(); j++) {
+                ExchangeSession.Message message = chunk.get(j);
+                if (deleteItemMethod.isDeleted(j)) {
+                    evictMimeContent(message);
+                    deletedMessages.add(message);
+                } else {
+                    LOGGER.warn("Unable to delete message " + message.imapUid + ": " + deleteItemMethod.getResponseCode(j));
+                }
+            }
+        }
+        return deletedMessages;
     }
 
 
@@ -511,6 +863,10 @@ public class EwsExchangeSession extends ExchangeSession {
         EWSMethod.Item item = new EWSMethod.Item();
         item.type = "Message";
         item.mimeContent = IOUtil.encodeBase64(messageBody);
+        sendMessage(itemClass, item);
+    }
+
+    protected void sendMessage(String itemClass, EWSMethod.Item item) throws IOException {
         if (itemClass != null) {
             item.put("ItemClass", itemClass);
         }
@@ -533,13 +889,14 @@ public class EwsExchangeSession extends ExchangeSession {
             itemClass = "REPORT.IPM.Note.IPNRN";
         }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        EWSMethod.Item item = new EWSMethod.Item();
+        item.type = "Message";
+        item.mimeContentSpool = spoolMimeMessage(mimeMessage);
         try {
-            mimeMessage.writeTo(baos);
-        } catch (MessagingException e) {
-            throw new IOException(e.getMessage());
+            sendMessage(itemClass, item);
+        } finally {
+            item.mimeContentSpool.delete();
         }
-        sendMessage(itemClass, baos.toByteArray());
     }
 
     /**
@@ -570,50 +927,96 @@ public class EwsExchangeSession extends ExchangeSession {
             throw new HttpNotFoundException("Item " + itemId + " not found");
         }
         if (mimeContent == null) {
-            LOGGER.warn("MimeContent not available, trying to rebuild from properties");
-            try {
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                getItemMethod = new GetItemMethod(BaseShape.ID_ONLY, itemId, false);
-                getItemMethod.addAdditionalProperty(Field.get("contentclass"));
-                getItemMethod.addAdditionalProperty(Field.get("message-id"));
-                getItemMethod.addAdditionalProperty(Field.get("from"));
-                getItemMethod.addAdditionalProperty(Field.get("to"));
-                getItemMethod.addAdditionalProperty(Field.get("cc"));
-                getItemMethod.addAdditionalProperty(Field.get("subject"));
-                getItemMethod.addAdditionalProperty(Field.get("date"));
-                getItemMethod.addAdditionalProperty(Field.get("body"));
-                executeMethod(getItemMethod);
-                EWSMethod.Item item = getItemMethod.getResponseItem();
+            mimeContent = rebuildContent(itemId);
+        }
+        return mimeContent;
+    }
 
-                if (item == null) {
-                    throw new HttpNotFoundException("Item " + itemId + " not found");
-                }
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected SpoolOutputStream getContentSpool(ExchangeSession.Message message) throws IOException {
+        ItemId itemId = ((EwsExchangeSession.Message) message).itemId;
+        GetItemMethod getItemMethod = new GetItemMethod(BaseShape.ID_ONLY, itemId, true);
+        getItemMethod.setMimeContentSpoolThreshold(Settings.getIntProperty("davmail.downloadSpoolThreshold", 1024) * 1024);
+        if (MessagePrefetcher.isPrefetchThread()) {
+            getItemMethod.setPriority(EwsRequestGovernor.PRIORITY_LOW);
+        }
+        SpoolOutputStream mimeContentSpool = null;
+        try {
+            executeMethod(getItemMethod);
+            mimeContentSpool = getItemMethod.getMimeContentSpool();
+        } catch (EWSException e) {
+            LOGGER.warn("GetItem with MimeContent failed: " + e.getMessage());
+        }
+        if (getItemMethod.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+            if (mimeContentSpool != null) {
+                mimeContentSpool.delete();
+            }
+            throw new HttpNotFoundException("Item " + itemId + " not found");
+        }
+        if (mimeContentSpool == null) {
+            byte[] mimeContent = rebuildContent(itemId);
+            mimeContentSpool = new SpoolOutputStream(mimeContent.length);
+            mimeContentSpool.write(mimeContent);
+            mimeContentSpool.close();
+        }
+        return mimeContentSpool;
+    }
 
-                MimeMessage mimeMessage = new MimeMessage((Session) null);
-                mimeMessage.addHeader("Content-class", item.get(Field.get("contentclass").getResponseName()));
-                mimeMessage.setSentDate(parseDateFromExchange(item.get(Field.get("date").getResponseName())));
-                mimeMessage.addHeader("From", item.get(Field.get("from").getResponseName()));
-                mimeMessage.addHeader("To", item.get(Field.get("to").getResponseName()));
-                mimeMessage.addHeader("Cc", item.get(Field.get("cc").getResponseName()));
-                mimeMessage.setSubject(item.get(Field.get("subject").getResponseName()));
-                String propertyValue = item.get(Field.get("body").getResponseName());
-                if (propertyValue == null) {
-                    propertyValue = "";
-                }
-                mimeMessage.setContent(propertyValue, "text/html; charset=UTF-8");
+    /**
+     * Rebuild item content from properties when MimeContent is not available.
+     *
+     * @param itemId EWS item id
+     * @return item content as byte array
+     * @throws IOException on error
+     */
+    protected byte[] rebuildContent(ItemId itemId) throws IOException {
+        byte[] mimeContent = null;
+        LOGGER.warn("MimeContent not available, trying to rebuild from properties");
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            GetItemMethod getItemMethod = new GetItemMethod(BaseShape.ID_ONLY, itemId, false);
+            getItemMethod.addAdditionalProperty(Field.get("contentclass"));
+            getItemMethod.addAdditionalProperty(Field.get("message-id"));
+            getItemMethod.addAdditionalProperty(Field.get("from"));
+            getItemMethod.addAdditionalProperty(Field.get("to"));
+            getItemMethod.addAdditionalProperty(Field.get("cc"));
+            getItemMethod.addAdditionalProperty(Field.get("subject"));
+            getItemMethod.addAdditionalProperty(Field.get("date"));
+            getItemMethod.addAdditionalProperty(Field.get("body"));
+            executeMethod(getItemMethod);
+            EWSMethod.Item item = getItemMethod.getResponseItem();
 
-                mimeMessage.writeTo(baos);
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Rebuilt message content: " + new String(baos.toByteArray(), StandardCharsets.UTF_8));
-                }
-                mimeContent = baos.toByteArray();
+            if (item == null) {
+                throw new HttpNotFoundException("Item " + itemId + " not found");
+            }
 
-            } catch (IOException | MessagingException e2) {
-                LOGGER.warn(e2);
+            MimeMessage mimeMessage = new MimeMessage((Session) null);
+            mimeMessage.addHeader("Content-class", item.get(Field.get("contentclass").getResponseName()));
+            mimeMessage.setSentDate(parseDateFromExchange(item.get(Field.get("date").getResponseName())));
+            mimeMessage.addHeader("From", item.get(Field.get("from").getResponseName()));
+            mimeMessage.addHeader("To", item.get(Field.get("to").getResponseName()));
+            mimeMessage.addHeader("Cc", item.get(Field.get("cc").getResponseName()));
+            mimeMessage.setSubject(item.get(Field.get("subject").getResponseName()));
+            String propertyValue = item.get(Field.get("body").getResponseName());
+            if (propertyValue == null) {
+                propertyValue = "";
             }
-            if (mimeContent == null) {
-                throw new IOException("GetItem returned null MimeContent");
+            mimeMessage.setContent(propertyValue, "text/html; charset=UTF-8");
+
+            mimeMessage.writeTo(baos);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Rebuilt message content: " + new String(baos.toByteArray(), StandardCharsets.UTF_8));
             }
+            mimeContent = baos.toByteArray();
+
+        } catch (IOException | MessagingException e2) {
+            LOGGER.warn(e2);
+        }
+        if (mimeContent == null) {
+            throw new IOException("GetItem returned null MimeContent");
         }
         return mimeContent;
     }
@@ -678,6 +1081,166 @@ public class EwsExchangeSession extends ExchangeSession {
         return messages;
     }
 
+    @Override
+    protected boolean syncMessages(ExchangeSession.Folder folder) throws IOException {
+        if (!(folder instanceof Folder) || ((Folder) folder).syncDisabled
+                || !Settings.getBooleanProperty("davmail.imapIncrementalSync", true)
+                // limited folder size relies on a sorted search
+                || Settings.getIntProperty("davmail.folderSizeLimit", 0) > 0) {
+            return false;
+        }
+        Folder ewsFolder = (Folder) folder;
+        boolean initialSync = ewsFolder.syncState == null || ewsFolder.messages == null;
+        // current message list may be in use by other connections, build a new list
+        MessageList messages = new MessageList();
+        HashMap<String, Message> messageMap = new HashMap<>();
+        if (!initialSync) {
+            for (ExchangeSession.Message message : ewsFolder.messages) {
+                messageMap.put(message.getPermanentId(), (Message) message);
+            }
+        }
+        String syncState = ewsFolder.syncState;
+        if (initialSync) {
+            syncState = null;
+        }
+        int changeCount = 0;
+        try {
+            SyncFolderItemsMethod syncFolderItemsMethod;
+            do {
+                syncFolderItemsMethod = new SyncFolderItemsMethod(BaseShape.ID_ONLY, ewsFolder.folderId, syncState, SYNC_MAX_CHANGES);
+                for (String attribute : IMAP_MESSAGE_ATTRIBUTES) {
+                    syncFolderItemsMethod.addAdditionalProperty(Field.get(attribute));
+                }
+                executeMethod(syncFolderItemsMethod);
+                for (EWSMethod.Item item : syncFolderItemsMethod.getResponseItems()) {
+                    applyChange(messageMap, item);
+                    changeCount++;
+                }
+                syncState = syncFolderItemsMethod.getSyncState();
+            } while (!syncFolderItemsMethod.includesLastItemInRange() && syncState != null);
+        } catch (EWSException e) {
+            LOGGER.warn("Unable to synchronize folder " + folder.folderPath + ", reloading all messages: " + e.getMessage());
+            ewsFolder.syncState = null;
+            // do not retry on folders that do not support synchronization
+            ewsFolder.syncDisabled = initialSync;
+            return false;
+        }
+        if (syncState == null) {
+            ewsFolder.syncState = null;
+            return false;
+        }
+        LOGGER.debug("Folder " + folder.folderPath + " synchronized, " + changeCount + " changes");
+        for (Message message : messageMap.values()) {
+            message.messageList = messages;
+            messages.add(message);
+        }
+        Collections.sort(messages);
+        ewsFolder.messages = messages;
+        ewsFolder.syncState = syncState;
+        return true;
+    }
+
+    /**
+     * Shared pull subscription poller for IMAP IDLE, created on first watched folder.
+     */
+    protected NotificationThread notificationThread;
+    /**
+     * Server rejected subscriptions, IDLE falls back to polling.
+     */
+    protected boolean notificationsDisabled;
+
+    @Override
+    public boolean watchFolder(ExchangeSession.Folder folder) {
+        int notificationDelay = Settings.getIntProperty("davmail.imapIdleNotificationDelay", 30);
+        if (notificationDelay <= 0 || !(folder instanceof Folder) || ((Folder) folder).folderId == null
+                // pull subscription only covers user mailbox, not public, archive or shared folders
+                || folder.folderPath.startsWith("/")) {
+            return false;
+        }
+        synchronized (this) {
+            if (notificationsDisabled) {
+                return false;
+            }
+            if (notificationThread != null && notificationThread.watch((Folder) folder)) {
+                return true;
+            }
+        }
+        // subscribe outside session lock, only publish the new subscription under lock
+        NotificationThread newNotificationThread = new NotificationThread(Thread.currentThread().getName(), this, notificationDelay * 1000L);
+        try {
+            newNotificationThread.subscribe();
+        } catch (EWSException e) {
+            LOGGER.warn("EWS notifications not available, IMAP IDLE will poll folders: " + e.getMessage());
+            synchronized (this) {
+                notificationsDisabled = true;
+            }
+            return false;
+        } catch (IOException e) {
+            LOGGER.debug("Unable to subscribe to EWS notifications: " + e.getMessage());
+            return false;
+        }
+        boolean watched;
+        boolean started = false;
+        synchronized (this) {
+            if (expired) {
+                // session closed meanwhile
+                watched = false;
+            } else if (notificationThread != null && notificationThread.watch((Folder) folder)) {
+                // another connection subscribed meanwhile
+                watched = true;
+            } else {
+                notificationThread = newNotificationThread;
+                notificationThread.watch((Folder) folder);
+                notificationThread.start();
+                watched = true;
+                started = true;
+            }
+        }
+        if (!started) {
+            newNotificationThread.unsubscribe();
+        }
+        return watched;
+    }
+
+    @Override
+    public void unwatchFolder(ExchangeSession.Folder folder) {
+        NotificationThread currentNotificationThread;
+        synchronized (this) {
+            currentNotificationThread = notificationThread;
+        }
+        if (currentNotificationThread != null && folder instanceof Folder && ((Folder) folder).folderId != null) {
+            currentNotificationThread.unwatch((Folder) folder);
+        } else {
+            super.unwatchFolder(folder);
+        }
+    }
+
+    /**
+     * Apply a SyncFolderItems change to folder messages.
+     *
+     * @param messageMap messages by item id
+     * @param item       change item
+     * @throws DavMailException on error
+     */
+    protected void applyChange(HashMap<String, Message> messageMap, EWSMethod.Item item) throws DavMailException {
+        String changeType = item.get("ChangeType");
+        if ("Delete".equals(changeType)) {
+            messageMap.remove(item.get("ItemId"));
+        } else if ("ReadFlagChange".equals(changeType)) {
+            Message message = messageMap.get(item.get("ItemId"));
+            if (message != null) {
+                message.read = "true".equals(item.get("IsRead"));
+                if (message.read) {
+                    message.recent = false;
+                }
+            }
+        } else if (MESSAGE_TYPES.contains(item.type)) {
+            // Create or Update
+            Message message = buildMessage(item);
+            messageMap.put(message.getPermanentId(), message);
+        }
+    }
+
     protected List<EWSMethod.Item> searchItems(String folderPath, Set<String> attributes, Condition condition, FolderQueryTraversal folderQueryTraversal, int maxCount) throws IOException {
         if (maxCount == 0) {
             // unlimited search
@@ -1070,6 +1633,10 @@ public class EwsExchangeSession extends ExchangeSession {
     }
 
     protected static final HashSet<FieldURI> FOLDER_PROPERTIES = new HashSet<>();
+    /**
+     * Folder properties with parent folder id, used to rebuild hierarchy on deep traversal.
+     */
+    protected static final HashSet<FieldURI> FOLDER_TREE_PROPERTIES = new HashSet<>();
 
     static {
         FOLDER_PROPERTIES.add(Field.get("urlcompname"));
@@ -1082,6 +1649,9 @@ public class EwsExchangeSession extends ExchangeSession {
         FOLDER_PROPERTIES.add(Field.get("hassubs"));
         FOLDER_PROPERTIES.add(Field.get("uidNext"));
         FOLDER_PROPERTIES.add(Field.get("highestUid"));
+
+        FOLDER_TREE_PROPERTIES.addAll(FOLDER_PROPERTIES);
+        FOLDER_TREE_PROPERTIES.add(Field.get("parentFolderId"));
     }
 
     protected Folder buildFolder(EWSMethod.Item item) {
@@ -1102,20 +1672,154 @@ public class EwsExchangeSession extends ExchangeSession {
     }
 
     /**
-     * @inheritDoc
+     * @inheritDoc
+     */
+    @Override
+    public List<ExchangeSession.Folder> getSubFolders(String folderPath, Condition condition, boolean recursive) throws IOException {
+        return getSubFolders(folderPath, condition, recursive, true);
+    }
+
+    /**
+     * Calendar folder ctags are compared by CalDAV clients, never list them from cache.
+     */
+    @Override
+    public List<ExchangeSession.Folder> getSubCalendarFolders(String folderName, boolean recursive) throws IOException {
+        return getSubFolders(folderName, isEqualTo("folderclass", "IPF.Appointment"), recursive, false);
+    }
+
+    protected List<ExchangeSession.Folder> getSubFolders(String folderPath, Condition condition, boolean recursive, boolean useCache) throws IOException {
+        String baseFolderPath = folderPath;
+        if (baseFolderPath.startsWith("/users/")) {
+            int index = baseFolderPath.indexOf('/', "/users/".length());
+            if (index >= 0) {
+                baseFolderPath = baseFolderPath.substring(index + 1);
+            }
+        }
+        if (recursive && !baseFolderPath.startsWith("/public")) {
+            return getFolderTree(baseFolderPath, getFolderId(folderPath), condition, useCache);
+        }
+        List<ExchangeSession.Folder> folders = new ArrayList<>();
+        appendSubFolders(folders, baseFolderPath, getFolderId(folderPath), condition, recursive);
+        return folders;
+    }
+
+    /**
+     * Get folder hierarchy from cache or with a single paged deep FindFolder.
+     * Cache entries expire after davmail.folderTreeCacheDelay seconds or on folder changes from this session.
+     *
+     * @param baseFolderPath base folder path
+     * @param baseFolderId   base folder id
+     * @param condition      search condition
+     * @param useCache       false to always list folders from Exchange
+     * @return folder list, each folder is followed by its sub folders
+     * @throws IOException on error
+     */
+    protected List<ExchangeSession.Folder> getFolderTree(String baseFolderPath, FolderId baseFolderId, Condition condition, boolean useCache) throws IOException {
+        StringBuilder cacheKey = new StringBuilder(baseFolderPath).append('|').append(baseFolderId.value);
+        if (baseFolderId.mailbox != null) {
+            cacheKey.append('|').append(baseFolderId.mailbox);
+        }
+        if (condition != null) {
+            cacheKey.append('|');
+            ((SearchExpression) condition).appendTo(cacheKey);
+        }
+        long timeToLive = useCache ? Settings.getIntProperty("davmail.folderTreeCacheDelay", 60) * 1000L : 0;
+        synchronized (folderTreeCache) {
+            FolderTreeCacheEntry cacheEntry = folderTreeCache.get(cacheKey.toString());
+            if (cacheEntry != null && System.currentTimeMillis() - cacheEntry.timestamp < timeToLive) {
+                LOGGER.debug("Folder tree " + baseFolderPath + " from cache");
+                return copyFolders(cacheEntry.folders);
+            }
+        }
+        List<ExchangeSession.Folder> folders = new ArrayList<>();
+        try {
+            appendFolderTree(folders, baseFolderPath, baseFolderId, condition);
+        } catch (EWSException e) {
+            LOGGER.debug("Deep folder traversal failed, use recursive search: " + e.getMessage());
+            folders.clear();
+            appendSubFolders(folders, baseFolderPath, baseFolderId, condition, true);
+        }
+        if (timeToLive > 0) {
+            synchronized (folderTreeCache) {
+                folderTreeCache.put(cacheKey.toString(), new FolderTreeCacheEntry(copyFolders(folders)));
+            }
+        }
+        return folders;
+    }
+
+    protected List<ExchangeSession.Folder> copyFolders(List<ExchangeSession.Folder> folders) {
+        List<ExchangeSession.Folder> folderCopies = new ArrayList<>(folders.size());
+        for (ExchangeSession.Folder folder : folders) {
+            folderCopies.add(((Folder) folder).copy());
+        }
+        return folderCopies;
+    }
+
+    /**
+     * Invalidate cached folder hierarchies after a folder change.
      */
-    @Override
-    public List<ExchangeSession.Folder> getSubFolders(String folderPath, Condition condition, boolean recursive) throws IOException {
-        String baseFolderPath = folderPath;
-        if (baseFolderPath.startsWith("/users/")) {
-            int index = baseFolderPath.indexOf('/', "/users/".length());
-            if (index >= 0) {
-                baseFolderPath = baseFolderPath.substring(index + 1);
+    protected void clearFolderTreeCache() {
+        synchronized (folderTreeCache) {
+            folderTreeCache.clear();
+        }
+    }
+
+    protected void appendFolderTree(List<ExchangeSession.Folder> folders, String baseFolderPath,
+                                    FolderId baseFolderId, Condition condition) throws IOException {
+        String rootId = baseFolderId.value;
+        if (baseFolderId instanceof DistinguishedFolderId) {
+            // need actual folder id to match ParentFolderId values
+            GetFolderMethod getFolderMethod = new GetFolderMethod(BaseShape.ID_ONLY, baseFolderId, null);
+            executeMethod(getFolderMethod);
+            EWSMethod.Item rootItem = getFolderMethod.getResponseItem();
+            if (rootItem == null) {
+                throw new HttpNotFoundException("Folder " + baseFolderPath + " not found");
             }
+            rootId = new FolderId(rootItem).value;
+        }
+        FolderTree folderTree = new FolderTree(rootId);
+        Map<String, Folder> folderById = new HashMap<>();
+        int resultCount = 0;
+        FindFolderMethod findFolderMethod;
+        do {
+            findFolderMethod = new FindFolderMethod(FolderQueryTraversal.DEEP,
+                    BaseShape.ID_ONLY, baseFolderId, FOLDER_TREE_PROPERTIES, (SearchExpression) condition, resultCount, getPageSize());
+            executeMethod(findFolderMethod);
+            for (EWSMethod.Item item : findFolderMethod.getResponseItems()) {
+                resultCount++;
+                Folder folder = buildFolder(item);
+                folderById.put(folder.folderId.value, folder);
+                folderTree.add(folder.folderId.value, item.get(Field.get("parentFolderId").getResponseName()));
+            }
+        } while (!(findFolderMethod.includesLastItemInRange));
+        LOGGER.debug("Deep folder traversal on " + baseFolderPath + ": " + resultCount + " folders");
+
+        for (String folderId : folderTree.getFolderIds()) {
+            Folder folder = folderById.get(folderId);
+            FolderId parentFolderId;
+            String parentFolderPath;
+            if (folderTree.isRootChild(folderId)) {
+                parentFolderId = baseFolderId;
+                parentFolderPath = baseFolderPath;
+            } else {
+                Folder parentFolder = folderById.get(folderTree.getParentId(folderId));
+                parentFolderId = parentFolder.folderId;
+                parentFolderPath = parentFolder.folderPath;
+            }
+            if (parentFolderPath.length() > 0) {
+                if (parentFolderPath.endsWith("/")) {
+                    folder.folderPath = parentFolderPath + folder.displayName;
+                } else {
+                    folder.folderPath = parentFolderPath + '/' + folder.displayName;
+                }
+            } else if (folderIdMap.get(folder.folderId.value) != null) {
+                folder.folderPath = folderIdMap.get(folder.folderId.value);
+            } else {
+                folder.folderPath = folder.displayName;
+            }
+            folders.add(folder);
+            folderIdCache.put(parentFolderId, folder.displayName, folder.folderId);
         }
-        List<ExchangeSession.Folder> folders = new ArrayList<>();
-        appendSubFolders(folders, baseFolderPath, getFolderId(folderPath), condition, recursive);
-        return folders;
     }
 
     protected void appendSubFolders(List<ExchangeSession.Folder> folders,
@@ -1142,6 +1846,7 @@ public class EwsExchangeSession extends ExchangeSession {
                     folder.folderPath = folder.displayName;
                 }
                 folders.add(folder);
+                folderIdCache.put(parentFolderId, folder.displayName, folder.folderId);
                 if (recursive && folder.hasChildren) {
                     appendSubFolders(folders, folder.folderPath, folder.folderId, condition, true);
                 }
@@ -1159,19 +1864,122 @@ public class EwsExchangeSession extends ExchangeSession {
     @Override
     protected EwsExchangeSession.Folder internalGetFolder(String folderPath) throws IOException {
         FolderId folderId = getFolderId(folderPath);
-        GetFolderMethod getFolderMethod = new GetFolderMethod(BaseShape.ID_ONLY, folderId, FOLDER_PROPERTIES);
-        executeMethod(getFolderMethod);
-        EWSMethod.Item item = getFolderMethod.getResponseItem();
+        EWSMethod.Item item = getFolderItem(folderId, folderPath);
+        if (item == null && folderIdCache.evict(folderId)) {
+            // cached folder id is stale, resolve path again
+            LOGGER.debug("Cached folder id for " + folderPath + " is no longer valid");
+            folderId = getFolderId(folderPath);
+            item = getFolderItem(folderId, folderPath);
+        }
         Folder folder;
         if (item != null) {
             folder = buildFolder(item);
             folder.folderPath = folderPath;
+            folderIdCache.refresh(folder.folderId);
         } else {
+            if (sessionInfoFromCache && Arrays.asList(WELL_KNOWN_FOLDERS).contains(folderPath)) {
+                // session built from invalid stored information
+                SessionInfoStore.remove(getSessionInfoKey());
+            }
             throw new HttpNotFoundException("Folder " + folderPath + " not found");
         }
         return folder;
     }
 
+    /**
+     * Get folder properties, check that a cached folder id still matches folder path.
+     *
+     * @param folderId   folder id
+     * @param folderPath folder path
+     * @return folder item or null if not found
+     * @throws IOException on error
+     */
+    protected EWSMethod.Item getFolderItem(FolderId folderId, String folderPath) throws IOException {
+        boolean cached = folderIdCache.contains(folderId);
+        GetFolderMethod getFolderMethod = new GetFolderMethod(BaseShape.ID_ONLY, folderId, FOLDER_PROPERTIES);
+        try {
+            executeMethod(getFolderMethod);
+        } catch (EWSException e) {
+            if (cached) {
+                LOGGER.debug("GetFolder on cached folder id failed: " + e.getMessage());
+                return null;
+            }
+            throw e;
+        }
+        EWSMethod.Item item = getFolderMethod.getResponseItem();
+        if (item != null && cached && isRenamed(item, folderPath)) {
+            return null;
+        }
+        return item;
+    }
+
+    /**
+     * Check if folder was renamed by another client.
+     *
+     * @param item       folder item
+     * @param folderPath expected folder path
+     * @return true if folder display name does not match path
+     */
+    protected boolean isRenamed(EWSMethod.Item item, String folderPath) {
+        String displayName = encodeFolderName(item.get(Field.get("folderDisplayName").getResponseName()));
+        return !new FolderPath(folderPath).folderName.equalsIgnoreCase(displayName);
+    }
+
+    /**
+     * Get several folders with one GetFolder request per batch of folder ids.
+     * Folder ids are resolved from cache, failed folders with a cached id are retried individually.
+     *
+     * @param folderPaths folder paths
+     * @return folder list
+     * @throws IOException on error
+     */
+    @Override
+    public List<ExchangeSession.Folder> getFolders(List<String> folderPaths) throws IOException {
+        List<ExchangeSession.Folder> folders = new ArrayList<>();
+        List<String> batchPaths = new ArrayList<>();
+        List<FolderId> batchIds = new ArrayList<>();
+        for (String folderPath : folderPaths) {
+            try {
+                if (isMainCalendar(folderPath)) {
+                    // main calendar ctag includes tasks folder
+                    folders.add(getFolder(folderPath));
+                } else {
+                    FolderId folderId = getFolderIdIfExists(folderPath);
+                    if (folderId != null) {
+                        batchPaths.add(folderPath);
+                        batchIds.add(folderId);
+                    }
+                }
+            } catch (HttpResponseException e) {
+                LOGGER.debug("Unable to get folder " + folderPath + ": " + e.getMessage());
+            }
+        }
+        int batchSize = getBatchSize();
+        for (int start = 0; start < batchIds.size(); start += batchSize) {
+            int end = Math.min(batchIds.size(), start + batchSize);
+            GetFolderMethod getFolderMethod = new GetFolderMethod(BaseShape.ID_ONLY, batchIds.subList(start, end), FOLDER_PROPERTIES);
+            executeMethod(getFolderMethod);
+            for (int i = start; i < end; i++) {
+                String folderPath = batchPaths.get(i);
+                boolean cached = folderIdCache.contains(batchIds.get(i));
+                EWSMethod.Item item = getFolderMethod.getResponseItem(i - start);
+                if (item != null && !(cached && isRenamed(item, folderPath))) {
+                    Folder folder = buildFolder(item);
+                    folder.folderPath = folderPath;
+                    folderIdCache.refresh(folder.folderId);
+                    folders.add(folder);
+                } else if (cached) {
+                    try {
+                        folders.add(getFolder(folderPath));
+                    } catch (HttpResponseException e) {
+                        LOGGER.debug("Unable to get folder " + folderPath + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return folders;
+    }
+
     /**
      * @inheritDoc
      */
@@ -1183,8 +1991,11 @@ public class EwsExchangeSession extends ExchangeSession {
         folder.put("FolderClass", folderClass);
         folder.put("DisplayName", decodeFolderName(path.folderName));
         // TODO: handle properties
-        CreateFolderMethod createFolderMethod = new CreateFolderMethod(getFolderId(path.parentPath), folder);
+        FolderId parentFolderId = getFolderId(path.parentPath);
+        folderIdCache.evict(parentFolderId, path.folderName);
+        CreateFolderMethod createFolderMethod = new CreateFolderMethod(parentFolderId, folder);
         executeMethod(createFolderMethod);
+        clearFolderTreeCache();
         return HttpStatus.SC_CREATED;
     }
 
@@ -1197,9 +2008,13 @@ public class EwsExchangeSession extends ExchangeSession {
         for (Map.Entry<String, String> entry : properties.entrySet()) {
             updates.add(new FieldUpdate(Field.get(entry.getKey()), entry.getValue()));
         }
-        UpdateFolderMethod updateFolderMethod = new UpdateFolderMethod(internalGetFolder(folderPath).folderId, updates);
+        FolderId folderId = internalGetFolder(folderPath).folderId;
+        UpdateFolderMethod updateFolderMethod = new UpdateFolderMethod(folderId, updates);
 
         executeMethod(updateFolderMethod);
+        // folder may have been renamed
+        folderIdCache.evict(folderId);
+        clearFolderTreeCache();
         return HttpStatus.SC_CREATED;
     }
 
@@ -1212,6 +2027,8 @@ public class EwsExchangeSession extends ExchangeSession {
         if (folderId != null) {
             DeleteFolderMethod deleteFolderMethod = new DeleteFolderMethod(folderId);
             executeMethod(deleteFolderMethod);
+            folderIdCache.evict(folderId);
+            clearFolderTreeCache();
         } else {
             LOGGER.debug("Folder " + folderPath + " not found");
         }
@@ -1224,6 +2041,7 @@ public class EwsExchangeSession extends ExchangeSession {
     public void moveMessage(ExchangeSession.Message message, String targetFolder) throws IOException {
         MoveItemMethod moveItemMethod = new MoveItemMethod(((EwsExchangeSession.Message) message).itemId, getFolderId(targetFolder));
         executeMethod(moveItemMethod);
+        evictMimeContent(message);
     }
 
     /**
@@ -1238,6 +2056,9 @@ public class EwsExchangeSession extends ExchangeSession {
 
         MoveItemMethod moveItemMethod = new MoveItemMethod(itemIds, getFolderId(targetFolder));
         executeMethod(moveItemMethod);
+        for (ExchangeSession.Message message : messages) {
+            evictMimeContent(message);
+        }
     }
 
     /**
@@ -1271,6 +2092,10 @@ public class EwsExchangeSession extends ExchangeSession {
         FolderPath path = new FolderPath(folderPath);
         FolderPath targetPath = new FolderPath(targetFolderPath);
         FolderId folderId = getFolderId(folderPath);
+        if (folderIdCache.contains(folderId)) {
+            // cached change key may be outdated
+            folderId.changeKey = null;
+        }
         FolderId toFolderId = getFolderId(targetPath.parentPath);
         toFolderId.changeKey = null;
         // move folder
@@ -1285,6 +2110,8 @@ public class EwsExchangeSession extends ExchangeSession {
             UpdateFolderMethod updateFolderMethod = new UpdateFolderMethod(folderId, updates);
             executeMethod(updateFolderMethod);
         }
+        folderIdCache.evict(folderId);
+        clearFolderTreeCache();
     }
 
     @Override
@@ -1304,6 +2131,7 @@ public class EwsExchangeSession extends ExchangeSession {
     protected void moveToTrash(ExchangeSession.Message message) throws IOException {
         MoveItemMethod moveItemMethod = new MoveItemMethod(((EwsExchangeSession.Message) message).itemId, getFolderId(TRASH));
         executeMethod(moveItemMethod);
+        evictMimeContent(message);
     }
 
     protected class Contact extends ExchangeSession.Contact {
@@ -2141,158 +2969,192 @@ public class EwsExchangeSession extends ExchangeSession {
                 LOGGER.debug("Get event: " + itemName);
             }
             try {
-                GetItemMethod getItemMethod;
-                if ("Task".equals(type)) {
-                    getItemMethod = new GetItemMethod(BaseShape.ID_ONLY, itemId, false);
-                    getItemMethod.addAdditionalProperty(Field.get("importance"));
-                    getItemMethod.addAdditionalProperty(Field.get("subject"));
-                    getItemMethod.addAdditionalProperty(Field.get("created"));
-                    getItemMethod.addAdditionalProperty(Field.get("lastmodified"));
-                    getItemMethod.addAdditionalProperty(Field.get("calendaruid"));
-                    getItemMethod.addAdditionalProperty(Field.get("description"));
-                    if (isExchange2013OrLater()) {
-                        getItemMethod.addAdditionalProperty(Field.get("textbody"));
-                    }
-                    getItemMethod.addAdditionalProperty(Field.get("percentcomplete"));
-                    getItemMethod.addAdditionalProperty(Field.get("taskstatus"));
-                    getItemMethod.addAdditionalProperty(Field.get("startdate"));
-                    getItemMethod.addAdditionalProperty(Field.get("duedate"));
-                    getItemMethod.addAdditionalProperty(Field.get("datecompleted"));
-                    getItemMethod.addAdditionalProperty(Field.get("keywords"));
-
-                } else if (!"Message".equals(type)
-                        && !"MeetingCancellation".equals(type)
-                        && !"MeetingResponse".equals(type)) {
-                    getItemMethod = new GetItemMethod(BaseShape.ID_ONLY, itemId, true);
-                    getItemMethod.addAdditionalProperty(Field.get("lastmodified"));
-                    getItemMethod.addAdditionalProperty(Field.get("reminderset"));
-                    getItemMethod.addAdditionalProperty(Field.get("calendaruid"));
-                    getItemMethod.addAdditionalProperty(Field.get("myresponsetype"));
-                    getItemMethod.addAdditionalProperty(Field.get("requiredattendees"));
-                    getItemMethod.addAdditionalProperty(Field.get("optionalattendees"));
-                    getItemMethod.addAdditionalProperty(Field.get("modifiedoccurrences"));
-                    getItemMethod.addAdditionalProperty(Field.get("xmozlastack"));
-                    getItemMethod.addAdditionalProperty(Field.get("xmozsnoozetime"));
-                    getItemMethod.addAdditionalProperty(Field.get("xmozsendinvitations"));
-                } else {
-                    getItemMethod = new GetItemMethod(BaseShape.ID_ONLY, itemId, true);
+                GetItemMethod getItemMethod = new GetItemMethod(BaseShape.ID_ONLY, itemId, !"Task".equals(type));
+                addContentProperties(getItemMethod);
+                executeMethod(getItemMethod);
+                content = buildEventContent(getItemMethod.getResponseItem());
+            } catch (IOException | MessagingException e) {
+                throw buildHttpNotFoundException(e);
+            }
+            return content;
+        }
+
+        /**
+         * Add properties needed to build event content, depends on item type.
+         *
+         * @param getItemMethod get item method
+         */
+        protected void addContentProperties(GetItemMethod getItemMethod) {
+            if ("Task".equals(type)) {
+                getItemMethod.addAdditionalProperty(Field.get("importance"));
+                getItemMethod.addAdditionalProperty(Field.get("subject"));
+                getItemMethod.addAdditionalProperty(Field.get("created"));
+                getItemMethod.addAdditionalProperty(Field.get("lastmodified"));
+                getItemMethod.addAdditionalProperty(Field.get("calendaruid"));
+                getItemMethod.addAdditionalProperty(Field.get("description"));
+                if (isExchange2013OrLater()) {
+                    getItemMethod.addAdditionalProperty(Field.get("textbody"));
                 }
+                getItemMethod.addAdditionalProperty(Field.get("percentcomplete"));
+                getItemMethod.addAdditionalProperty(Field.get("taskstatus"));
+                getItemMethod.addAdditionalProperty(Field.get("startdate"));
+                getItemMethod.addAdditionalProperty(Field.get("duedate"));
+                getItemMethod.addAdditionalProperty(Field.get("datecompleted"));
+                getItemMethod.addAdditionalProperty(Field.get("keywords"));
+            } else if (!"Message".equals(type)
+                    && !"MeetingCancellation".equals(type)
+                    && !"MeetingResponse".equals(type)) {
+                getItemMethod.addAdditionalProperty(Field.get("lastmodified"));
+                getItemMethod.addAdditionalProperty(Field.get("reminderset"));
+                getItemMethod.addAdditionalProperty(Field.get("calendaruid"));
+                getItemMethod.addAdditionalProperty(Field.get("myresponsetype"));
+                getItemMethod.addAdditionalProperty(Field.get("requiredattendees"));
+                getItemMethod.addAdditionalProperty(Field.get("optionalattendees"));
+                getItemMethod.addAdditionalProperty(Field.get("modifiedoccurrences"));
+                getItemMethod.addAdditionalProperty(Field.get("xmozlastack"));
+                getItemMethod.addAdditionalProperty(Field.get("xmozsnoozetime"));
+                getItemMethod.addAdditionalProperty(Field.get("xmozsendinvitations"));
+            }
+        }
 
-                executeMethod(getItemMethod);
-                if ("Task".equals(type)) {
-                    VCalendar localVCalendar = new VCalendar();
-                    VObject vTodo = new VObject();
-                    vTodo.type = "VTODO";
-                    localVCalendar.setTimezone(getVTimezone());
-                    vTodo.setPropertyValue("LAST-MODIFIED", convertDateFromExchange(getItemMethod.getResponseItem().get(Field.get("lastmodified").getResponseName())));
-                    vTodo.setPropertyValue("CREATED", convertDateFromExchange(getItemMethod.getResponseItem().get(Field.get("created").getResponseName())));
-                    String calendarUid = getItemMethod.getResponseItem().get(Field.get("calendaruid").getResponseName());
-                    if (calendarUid == null) {
-                        // use item id as uid for Exchange created tasks
-                        calendarUid = itemId.id;
-                    }
-                    vTodo.setPropertyValue("UID", calendarUid);
-                    vTodo.setPropertyValue("SUMMARY", getItemMethod.getResponseItem().get(Field.get("subject").getResponseName()));
-                    String description = getItemMethod.getResponseItem().get(Field.get("description").getResponseName());
-                    if (description == null) {
-                        // Exchange 2013: try to get description from body
-                        description = getItemMethod.getResponseItem().get(Field.get("textbody").getResponseName());
-                    }
-                    vTodo.setPropertyValue("DESCRIPTION", description);
-                    vTodo.setPropertyValue("PRIORITY", convertPriorityFromExchange(getItemMethod.getResponseItem().get(Field.get("importance").getResponseName())));
-                    vTodo.setPropertyValue("PERCENT-COMPLETE", getItemMethod.getResponseItem().get(Field.get("percentcomplete").getResponseName()));
-                    vTodo.setPropertyValue("STATUS", taskTovTodoStatusMap.get(getItemMethod.getResponseItem().get(Field.get("taskstatus").getResponseName())));
+        /**
+         * Build event content from GetItem response.
+         *
+         * @param responseItem GetItem response item
+         * @return event content
+         * @throws IOException        on error
+         * @throws MessagingException on error
+         */
+        protected byte[] buildEventContent(EWSMethod.Item responseItem) throws IOException, MessagingException {
+            if (responseItem == null) {
+                throw new IOException("empty event body");
+            }
+            byte[] content;
+            if ("Task".equals(type)) {
+                VCalendar localVCalendar = new VCalendar();
+                VObject vTodo = new VObject();
+                vTodo.type = "VTODO";
+                localVCalendar.setTimezone(getVTimezone());
+                vTodo.setPropertyValue("LAST-MODIFIED", convertDateFromExchange(responseItem.get(Field.get("lastmodified").getResponseName())));
+                vTodo.setPropertyValue("CREATED", convertDateFromExchange(responseItem.get(Field.get("created").getResponseName())));
+                String calendarUid = responseItem.get(Field.get("calendaruid").getResponseName());
+                if (calendarUid == null) {
+                    // use item id as uid for Exchange created tasks
+                    calendarUid = itemId.id;
+                }
+                vTodo.setPropertyValue("UID", calendarUid);
+                vTodo.setPropertyValue("SUMMARY", responseItem.get(Field.get("subject").getResponseName()));
+                String description = responseItem.get(Field.get("description").getResponseName());
+                if (description == null) {
+                    // Exchange 2013: try to get description from body
+                    description = responseItem.get(Field.get("textbody").getResponseName());
+                }
+                vTodo.setPropertyValue("DESCRIPTION", description);
+                vTodo.setPropertyValue("PRIORITY", convertPriorityFromExchange(responseItem.get(Field.get("importance").getResponseName())));
+                vTodo.setPropertyValue("PERCENT-COMPLETE", responseItem.get(Field.get("percentcomplete").getResponseName()));
+                vTodo.setPropertyValue("STATUS", taskTovTodoStatusMap.get(responseItem.get(Field.get("taskstatus").getResponseName())));
 
-                    vTodo.setPropertyValue("DUE;VALUE=DATE", convertDateFromExchangeToTaskDate(getItemMethod.getResponseItem().get(Field.get("duedate").getResponseName())));
-                    vTodo.setPropertyValue("DTSTART;VALUE=DATE", convertDateFromExchangeToTaskDate(getItemMethod.getResponseItem().get(Field.get("startdate").getResponseName())));
-                    vTodo.setPropertyValue("COMPLETED;VALUE=DATE", convertDateFromExchangeToTaskDate(getItemMethod.getResponseItem().get(Field.get("datecompleted").getResponseName())));
+                vTodo.setPropertyValue("DUE;VALUE=DATE", convertDateFromExchangeToTaskDate(responseItem.get(Field.get("duedate").getResponseName())));
+                vTodo.setPropertyValue("DTSTART;VALUE=DATE", convertDateFromExchangeToTaskDate(responseItem.get(Field.get("startdate").getResponseName())));
+                vTodo.setPropertyValue("COMPLETED;VALUE=DATE", convertDateFromExchangeToTaskDate(responseItem.get(Field.get("datecompleted").getResponseName())));
 
-                    vTodo.setPropertyValue("CATEGORIES", getItemMethod.getResponseItem().get(Field.get("keywords").getResponseName()));
+                vTodo.setPropertyValue("CATEGORIES", responseItem.get(Field.get("keywords").getResponseName()));
 
-                    localVCalendar.addVObject(vTodo);
-                    content = localVCalendar.toString().getBytes(StandardCharsets.UTF_8);
-                } else {
-                    content = getItemMethod.getMimeContent();
-                    if (content == null) {
-                        throw new IOException("empty event body");
-                    }
-                    if (!"CalendarItem".equals(type)) {
-                        content = getICS(new SharedByteArrayInputStream(content));
-                    }
-                    VCalendar localVCalendar = new VCalendar(content, email, getVTimezone());
+                localVCalendar.addVObject(vTodo);
+                content = localVCalendar.toString().getBytes(StandardCharsets.UTF_8);
+            } else {
+                content = responseItem.mimeContent;
+                if (content == null) {
+                    throw new IOException("empty event body");
+                }
+                if (!"CalendarItem".equals(type)) {
+                    content = getICS(new SharedByteArrayInputStream(content));
+                }
+                VCalendar localVCalendar = new VCalendar(content, email, getVTimezone());
 
-                    String calendaruid = getItemMethod.getResponseItem().get(Field.get("calendaruid").getResponseName());
+                String calendaruid = responseItem.get(Field.get("calendaruid").getResponseName());
 
-                    if ("Exchange2007_SP1".equals(serverVersion)) {
-                        // remove additional reminder
-                        if (!"true".equals(getItemMethod.getResponseItem().get(Field.get("reminderset").getResponseName()))) {
-                            localVCalendar.removeVAlarm();
-                        }
-                        if (calendaruid != null) {
-                            localVCalendar.setFirstVeventPropertyValue("UID", calendaruid);
-                        }
+                if ("Exchange2007_SP1".equals(serverVersion)) {
+                    // remove additional reminder
+                    if (!"true".equals(responseItem.get(Field.get("reminderset").getResponseName()))) {
+                        localVCalendar.removeVAlarm();
                     }
-                    fixAttendees(getItemMethod, localVCalendar.getFirstVevent());
-                    // fix UID and RECURRENCE-ID, broken at least on Exchange 2007
-                    List<EWSMethod.Occurrence> occurences = getItemMethod.getResponseItem().getOccurrences();
-                    if (occurences != null) {
-                        Iterator<VObject> modifiedOccurrencesIterator = localVCalendar.getModifiedOccurrences().iterator();
-                        for (EWSMethod.Occurrence occurrence : occurences) {
-                            if (modifiedOccurrencesIterator.hasNext()) {
-                                VObject modifiedOccurrence = modifiedOccurrencesIterator.next();
-                                // fix modified occurrences attendees
-                                GetItemMethod getOccurrenceMethod = new GetItemMethod(BaseShape.ID_ONLY, occurrence.itemId, false);
-                                getOccurrenceMethod.addAdditionalProperty(Field.get("requiredattendees"));
-                                getOccurrenceMethod.addAdditionalProperty(Field.get("optionalattendees"));
-                                getOccurrenceMethod.addAdditionalProperty(Field.get("modifiedoccurrences"));
-                                getOccurrenceMethod.addAdditionalProperty(Field.get("lastmodified"));
-                                executeMethod(getOccurrenceMethod);
-                                fixAttendees(getOccurrenceMethod, modifiedOccurrence);
-                                // LAST-MODIFIED is missing in event content
-                                modifiedOccurrence.setPropertyValue("LAST-MODIFIED", convertDateFromExchange(getOccurrenceMethod.getResponseItem().get(Field.get("lastmodified").getResponseName())));
-
-                                // fix uid, should be the same as main VEVENT
-                                if (calendaruid != null) {
-                                    modifiedOccurrence.setPropertyValue("UID", calendaruid);
-                                }
+                    if (calendaruid != null) {
+                        localVCalendar.setFirstVeventPropertyValue("UID", calendaruid);
+                    }
+                }
+                fixAttendees(responseItem, localVCalendar.getFirstVevent());
+                // fix UID and RECURRENCE-ID, broken at least on Exchange 2007
+                List<EWSMethod.Occurrence> occurences = responseItem.getOccurrences();
+                if (occurences != null) {
+                    Iterator<VObject> modifiedOccurrencesIterator = localVCalendar.getModifiedOccurrences().iterator();
+                    for (EWSMethod.Occurrence occurrence : occurences) {
+                        if (modifiedOccurrencesIterator.hasNext()) {
+                            VObject modifiedOccurrence = modifiedOccurrencesIterator.next();
+                            // fix modified occurrences attendees
+                            GetItemMethod getOccurrenceMethod = new GetItemMethod(BaseShape.ID_ONLY, occurrence.itemId, false);
+                            getOccurrenceMethod.addAdditionalProperty(Field.get("requiredattendees"));
+                            getOccurrenceMethod.addAdditionalProperty(Field.get("optionalattendees"));
+                            getOccurrenceMethod.addAdditionalProperty(Field.get("modifiedoccurrences"));
+                            getOccurrenceMethod.addAdditionalProperty(Field.get("lastmodified"));
+                            executeMethod(getOccurrenceMethod);
+                            fixAttendees(getOccurrenceMethod.getResponseItem(), modifiedOccurrence);
+                            // LAST-MODIFIED is missing in event content
+                            modifiedOccurrence.setPropertyValue("LAST-MODIFIED", convertDateFromExchange(getOccurrenceMethod.getResponseItem().get(Field.get("lastmodified").getResponseName())));
+
+                            // fix uid, should be the same as main VEVENT
+                            if (calendaruid != null) {
+                                modifiedOccurrence.setPropertyValue("UID", calendaruid);
+                            }
 
-                                VProperty recurrenceId = modifiedOccurrence.getProperty("RECURRENCE-ID");
-                                if (recurrenceId != null) {
-                                    recurrenceId.removeParam("TZID");
-                                    recurrenceId.getValues().set(0, convertDateFromExchange(occurrence.originalStart));
-                                }
+                            VProperty recurrenceId = modifiedOccurrence.getProperty("RECURRENCE-ID");
+                            if (recurrenceId != null) {
+                                recurrenceId.removeParam("TZID");
+                                recurrenceId.getValues().set(0, convertDateFromExchange(occurrence.originalStart));
                             }
                         }
                     }
-                    // LAST-MODIFIED is missing in event content
-                    localVCalendar.setFirstVeventPropertyValue("LAST-MODIFIED", convertDateFromExchange(getItemMethod.getResponseItem().get(Field.get("lastmodified").getResponseName())));
-
-                    // restore mozilla invitations option
-                    localVCalendar.setFirstVeventPropertyValue("X-MOZ-SEND-INVITATIONS",
-                            getItemMethod.getResponseItem().get(Field.get("xmozsendinvitations").getResponseName()));
-                    // restore mozilla alarm status
-                    localVCalendar.setFirstVeventPropertyValue("X-MOZ-LASTACK",
-                            getItemMethod.getResponseItem().get(Field.get("xmozlastack").getResponseName()));
-                    localVCalendar.setFirstVeventPropertyValue("X-MOZ-SNOOZE-TIME",
-                            getItemMethod.getResponseItem().get(Field.get("xmozsnoozetime").getResponseName()));
-                    // overwrite method
-                    // localVCalendar.setPropertyValue("METHOD", "REQUEST");
-                    content = localVCalendar.toString().getBytes(StandardCharsets.UTF_8);
                 }
-            } catch (IOException | MessagingException e) {
-                throw buildHttpNotFoundException(e);
+                // LAST-MODIFIED is missing in event content
+                localVCalendar.setFirstVeventPropertyValue("LAST-MODIFIED", convertDateFromExchange(responseItem.get(Field.get("lastmodified").getResponseName())));
+
+                // restore mozilla invitations option
+                localVCalendar.setFirstVeventPropertyValue("X-MOZ-SEND-INVITATIONS",
+                        responseItem.get(Field.get("xmozsendinvitations").getResponseName()));
+                // restore mozilla alarm status
+                localVCalendar.setFirstVeventPropertyValue("X-MOZ-LASTACK",
+                        responseItem.get(Field.get("xmozlastack").getResponseName()));
+                localVCalendar.setFirstVeventPropertyValue("X-MOZ-SNOOZE-TIME",
+                        responseItem.get(Field.get("xmozsnoozetime").getResponseName()));
+                // overwrite method
+                // localVCalendar.setPropertyValue("METHOD", "REQUEST");
+                content = localVCalendar.toString().getBytes(StandardCharsets.UTF_8);
             }
             return content;
         }
 
-        protected void fixAttendees(GetItemMethod getItemMethod, VObject vEvent) throws EWSException {
-            if (getItemMethod.getResponseItem() != null) {
-                List<EWSMethod.Attendee> attendees = getItemMethod.getResponseItem().getAttendees();
+        /**
+         * Set event content from a batched GetItem response.
+         *
+         * @param responseItem GetItem response item
+         * @throws IOException on error
+         */
+        protected void setEventContent(EWSMethod.Item responseItem) throws IOException {
+            try {
+                fixICS(buildEventContent(responseItem), true);
+            } catch (MessagingException e) {
+                throw buildHttpNotFoundException(e);
+            }
+        }
+
+        protected void fixAttendees(EWSMethod.Item responseItem, VObject vEvent) {
+            if (responseItem != null) {
+                List<EWSMethod.Attendee> attendees = responseItem.getAttendees();
                 if (attendees != null) {
                     for (EWSMethod.Attendee attendee : attendees) {
                         VProperty attendeeProperty = new VProperty("ATTENDEE", "mailto:" + attendee.email);
                         attendeeProperty.addParam("CN", attendee.name);
-                        String myResponseType = getItemMethod.getResponseItem().get(Field.get("myresponsetype").getResponseName());
+                        String myResponseType = responseItem.get(Field.get("myresponsetype").getResponseName());
                         if (email.equalsIgnoreCase(attendee.email) && myResponseType != null) {
                             attendeeProperty.addParam("PARTSTAT", EWSMethod.responseTypeToPartstat(myResponseType));
                         } else {
@@ -2508,6 +3370,157 @@ public class EwsExchangeSession extends ExchangeSession {
 
     }
 
+    /**
+     * Resolve item names with a single FindItem (or GetItem for item id names),
+     * then load contacts and event contents with one multi ItemId GetItem per item type.
+     * Items in the main calendar that are actually tasks are left to getItem.
+     */
+    @Override
+    public Map<String, Item> getItems(String folderPath, List<String> itemNames) throws IOException {
+        Map<String, Item> items = new HashMap<>();
+        Map<String, EWSMethod.Item> ewsItems = getEwsItems(folderPath, itemNames, EVENT_REQUEST_PROPERTIES);
+
+        Map<String, List<String>> contactNamesByType = new HashMap<>();
+        Map<String, List<Event>> eventsByType = new HashMap<>();
+        for (Map.Entry<String, EWSMethod.Item> entry : ewsItems.entrySet()) {
+            String itemName = entry.getKey();
+            EWSMethod.Item item = entry.getValue();
+            String itemType = item.type;
+            if ("Contact".equals(itemType) || "DistributionList".equals(itemType)) {
+                contactNamesByType.computeIfAbsent(itemType, k -> new ArrayList<>()).add(itemName);
+            } else if ("CalendarItem".equals(itemType)
+                    || "MeetingMessage".equals(itemType)
+                    || "MeetingRequest".equals(itemType)
+                    || "MeetingResponse".equals(itemType)
+                    || "MeetingCancellation".equals(itemType)
+                    || "Task".equals(itemType)
+                    // VTODOs appear as Messages
+                    || "Message".equals(itemType)) {
+                Event event = new Event(folderPath, item);
+                // force item name to client provided name (for tasks)
+                event.setItemName(itemName);
+                eventsByType.computeIfAbsent(itemType, k -> new ArrayList<>()).add(event);
+                items.put(itemName, event);
+            }
+        }
+
+        for (Map.Entry<String, List<String>> entry : contactNamesByType.entrySet()) {
+            Map<String, String> itemNamesById = new HashMap<>();
+            List<ItemId> itemIds = new ArrayList<>();
+            for (String itemName : entry.getValue()) {
+                ItemId itemId = new ItemId(ewsItems.get(itemName));
+                itemIds.add(itemId);
+                itemNamesById.put(itemId.id, itemName);
+            }
+            GetItemMethod getItemMethod = new GetItemMethod(BaseShape.ID_ONLY, itemIds, false);
+            Set<String> attributes = CONTACT_ATTRIBUTES;
+            if ("DistributionList".equals(entry.getKey())) {
+                attributes = DISTRIBUTION_LIST_ATTRIBUTES;
+            }
+            for (String attribute : attributes) {
+                getItemMethod.addAdditionalProperty(Field.get(attribute));
+            }
+            executeMethod(getItemMethod);
+            for (EWSMethod.Item item : getItemMethod.getResponseItems()) {
+                String itemName = itemNamesById.get(new ItemId(item).id);
+                if (itemName != null) {
+                    items.put(itemName, new Contact(item));
+                }
+            }
+        }
+
+        for (List<Event> events : eventsByType.values()) {
+            loadEventContents(events);
+        }
+        return items;
+    }
+
+    /**
+     * Resolve item names to EWS items in folder.
+     *
+     * @param folderPath     Exchange folder path
+     * @param itemNames      item names
+     * @param itemProperties item properties to retrieve
+     * @return EWS items by requested name, names not found are omitted
+     * @throws IOException on error
+     */
+    protected Map<String, EWSMethod.Item> getEwsItems(String folderPath, List<String> itemNames, Set<String> itemProperties) throws IOException {
+        Map<String, EWSMethod.Item> ewsItems = new HashMap<>();
+        Map<String, String> itemNamesById = new HashMap<>();
+        Map<String, String> itemNamesByUrlcompname = new HashMap<>();
+        List<ItemId> itemIds = new ArrayList<>();
+        for (String itemName : itemNames) {
+            String urlcompname = convertItemNameToEML(itemName);
+            itemNamesByUrlcompname.put(urlcompname, itemName);
+            // workaround for missing urlcompname in Exchange 2010
+            if (isItemId(urlcompname)) {
+                ItemId itemId = new ItemId(StringUtil.urlToBase64(urlcompname.substring(0, urlcompname.indexOf('.'))));
+                itemIds.add(itemId);
+                itemNamesById.put(itemId.id, itemName);
+            }
+        }
+        if (!itemIds.isEmpty()) {
+            GetItemMethod getItemMethod = new GetItemMethod(BaseShape.ID_ONLY, itemIds, false);
+            for (String attribute : itemProperties) {
+                getItemMethod.addAdditionalProperty(Field.get(attribute));
+            }
+            executeMethod(getItemMethod);
+            for (EWSMethod.Item item : getItemMethod.getResponseItems()) {
+                String itemName = itemNamesById.get(new ItemId(item).id);
+                if (itemName != null) {
+                    ewsItems.put(itemName, item);
+                    itemNamesByUrlcompname.remove(convertItemNameToEML(itemName));
+                }
+            }
+        }
+        // find remaining items by urlcompname
+        if (!itemNamesByUrlcompname.isEmpty()) {
+            List<Condition> conditions = new ArrayList<>();
+            for (String urlcompname : itemNamesByUrlcompname.keySet()) {
+                conditions.add(isEqualTo("urlcompname", urlcompname));
+            }
+            List<EWSMethod.Item> responses = searchItems(folderPath, itemProperties,
+                    or(conditions.toArray(new Condition[0])), FolderQueryTraversal.SHALLOW, 0);
+            for (EWSMethod.Item item : responses) {
+                String itemName = itemNamesByUrlcompname.get(item.get(Field.get("urlcompname").getResponseName()));
+                if (itemName != null && !ewsItems.containsKey(itemName)) {
+                    ewsItems.put(itemName, item);
+                }
+            }
+        }
+        return ewsItems;
+    }
+
+    /**
+     * Load event contents with a single GetItem, all events must have the same item type.
+     * Events missing from the response are left to load their content on demand.
+     *
+     * @param events events of the same type
+     * @throws IOException on error
+     */
+    protected void loadEventContents(List<Event> events) throws IOException {
+        Map<String, Event> eventsById = new HashMap<>();
+        List<ItemId> itemIds = new ArrayList<>();
+        for (Event event : events) {
+            itemIds.add(event.itemId);
+            eventsById.put(event.itemId.id, event);
+        }
+        Event firstEvent = events.get(0);
+        GetItemMethod getItemMethod = new GetItemMethod(BaseShape.ID_ONLY, itemIds, !"Task".equals(firstEvent.type));
+        firstEvent.addContentProperties(getItemMethod);
+        executeMethod(getItemMethod);
+        for (EWSMethod.Item responseItem : getItemMethod.getResponseItems()) {
+            Event event = eventsById.get(new ItemId(responseItem).id);
+            if (event != null) {
+                try {
+                    event.setEventContent(responseItem);
+                } catch (IOException e) {
+                    LOGGER.warn("Unable to load event " + event.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
     @Override
     public ContactPhoto getContactPhoto(ExchangeSession.Contact contact) throws IOException {
         ContactPhoto contactPhoto;
@@ -2701,31 +3714,42 @@ public class EwsExchangeSession extends ExchangeSession {
         return result;
     }
 
+    /**
+     * Get user timezone id from server, fall back to davmail.timezoneId setting, then GMT.
+     *
+     * @return Exchange timezone id
+     * @throws IOException on error
+     */
+    protected String getTimezoneId() throws IOException {
+        String result = null;
+        if (!"Exchange2007_SP1".equals(serverVersion)) {
+            // On Exchange 2010, get user timezone from server
+            GetUserConfigurationMethod getUserConfigurationMethod = new GetUserConfigurationMethod();
+            executeMethod(getUserConfigurationMethod);
+            EWSMethod.Item item = getUserConfigurationMethod.getResponseItem();
+            if (item != null) {
+                result = item.get("timezone");
+            }
+        } else if (!directEws) {
+            result = getTimezoneidFromOptions();
+        }
+        // failover: use timezone id from settings file
+        if (result == null) {
+            result = Settings.getProperty("davmail.timezoneId");
+        }
+        // last failover: use GMT
+        if (result == null) {
+            LOGGER.warn("Unable to get user timezone, using GMT Standard Time. Set davmail.timezoneId setting to override this.");
+            result = "GMT Standard Time";
+        }
+        return result;
+    }
+
     @Override
     protected void loadVtimezone() {
 
         try {
-            String timezoneId = null;
-            if (!"Exchange2007_SP1".equals(serverVersion)) {
-                // On Exchange 2010, get user timezone from server
-                GetUserConfigurationMethod getUserConfigurationMethod = new GetUserConfigurationMethod();
-                executeMethod(getUserConfigurationMethod);
-                EWSMethod.Item item = getUserConfigurationMethod.getResponseItem();
-                if (item != null) {
-                    timezoneId = item.get("timezone");
-                }
-            } else if (!directEws) {
-                timezoneId = getTimezoneidFromOptions();
-            }
-            // failover: use timezone id from settings file
-            if (timezoneId == null) {
-                timezoneId = Settings.getProperty("davmail.timezoneId");
-            }
-            // last failover: use GMT
-            if (timezoneId == null) {
-                LOGGER.warn("Unable to get user timezone, using GMT Standard Time. Set davmail.timezoneId setting to override this.");
-                timezoneId = "GMT Standard Time";
-            }
+            String timezoneId = getTimezoneId();
 
             // delete existing temp folder first to avoid errors
             deleteFolder("davmailtemp");
@@ -2751,8 +3775,12 @@ public class EwsExchangeSession extends ExchangeSession {
             }
             VCalendar vCalendar = new VCalendar(getContent(new ItemId(item)), email, null);
             this.vTimezone = vCalendar.getVTimezone();
+            this.timezoneId = timezoneId;
             // delete temporary folder
             deleteFolder("davmailtemp");
+            if (SessionInfoStore.isEnabled() && vTimezone != null) {
+                SessionInfoStore.storeTimezone(getSessionInfoKey(), timezoneId, vTimezone.toString());
+            }
         } catch (IOException e) {
             LOGGER.warn("Unable to get VTIMEZONE info: " + e, e);
         }
@@ -2901,7 +3929,10 @@ public class EwsExchangeSession extends ExchangeSession {
     }
 
     protected FolderId getSubFolderByName(FolderId parentFolderId, String folderName) throws IOException {
-        FolderId folderId = null;
+        FolderId folderId = folderIdCache.get(parentFolderId, folderName);
+        if (folderId != null) {
+            return folderId;
+        }
         FindFolderMethod findFolderMethod = new FindFolderMethod(
                 FolderQueryTraversal.SHALLOW,
                 BaseShape.ID_ONLY,
@@ -2915,6 +3946,7 @@ public class EwsExchangeSession extends ExchangeSession {
         EWSMethod.Item item = findFolderMethod.getResponseItem();
         if (item != null) {
             folderId = new FolderId(item);
+            folderIdCache.put(parentFolderId, folderName, folderId);
         }
         return folderId;
     }
@@ -2939,43 +3971,55 @@ public class EwsExchangeSession extends ExchangeSession {
         return folderName;
     }
 
-    long throttlingTimestamp = 0;
+    private int userMaxConcurrency;
+    private int endpointMaxConcurrency;
+    private String endpointGovernorName;
+    private volatile String userGovernorName;
+
+    /**
+     * Resolve shared request governor keys for current user and EWS endpoint once at session creation,
+     * governors are looked up on each request as idle ones are removed.
+     */
+    private void initGovernors() {
+        String endpoint = httpClient.getUri() == null ? "" : String.valueOf(httpClient.getUri().getHost());
+        endpointGovernorName = endpoint;
+        endpointMaxConcurrency = Settings.getIntProperty("davmail.ewsMaxEndpointConcurrency", 64);
+        userMaxConcurrency = Settings.getIntProperty("davmail.ewsMaxConcurrency", 8);
+        // volatile write last, publish all governor settings
+        userGovernorName = userName.toLowerCase() + '@' + endpoint;
+    }
 
     protected int executeMethod(EWSMethod ewsMethod) throws IOException {
-        long throttlingDelay = throttlingTimestamp - System.currentTimeMillis();
-        try {
-            if (throttlingDelay > 0) {
-                LOGGER.warn("Throttling active on server, waiting " + (throttlingDelay / 1000) + " seconds");
-                try {
-                    Thread.sleep(throttlingDelay);
-                } catch (InterruptedException e1) {
-                    LOGGER.error("Throttling delay interrupted " + e1.getMessage());
-                    Thread.currentThread().interrupt();
-                }
-            }
-            internalExecuteMethod(ewsMethod);
-        } catch (EWSThrottlingException e) {
-            // default throttling delay is one minute
-            throttlingDelay = 60000;
-            if (ewsMethod.errorValue != null) {
-                // server provided a throttling delay, add 10 seconds
+        int maxRetries = Settings.getIntProperty("davmail.ewsThrottlingRetries", 2);
+        for (int attempt = 0; ; attempt++) {
+            EwsRequestGovernor userGovernor = EwsRequestGovernor.acquire(userGovernorName, userMaxConcurrency, ewsMethod.priority);
+            boolean throttled = false;
+            boolean serverThrottled = false;
+            long backOffDelay = 0;
+            try {
+                EwsRequestGovernor endpointGovernor = EwsRequestGovernor.acquire(endpointGovernorName, endpointMaxConcurrency, ewsMethod.priority);
                 try {
-                    throttlingDelay = Long.parseLong(ewsMethod.errorValue) + 10000;
-                } catch (NumberFormatException e2) {
-                    LOGGER.error("Unable to parse BackOffMilliseconds " + e2.getMessage());
+                    internalExecuteMethod(ewsMethod);
+                } catch (EWSThrottlingException e) {
+                    throttled = true;
+                    serverThrottled = ewsMethod.isServerThrottled();
+                    // default throttling delay is one minute, add up to 10 seconds jitter to spread retries
+                    backOffDelay = EwsRequestGovernor.parseBackOff(ewsMethod.errorValue, 60000)
+                            + ThreadLocalRandom.current().nextInt(10000);
+                    if (attempt >= maxRetries) {
+                        throw e;
+                    }
+                } finally {
+                    endpointGovernor.release(throttled, serverThrottled ? backOffDelay : 0);
                 }
+            } finally {
+                userGovernor.release(throttled, backOffDelay);
             }
-            throttlingTimestamp = System.currentTimeMillis() + throttlingDelay;
-
-            LOGGER.warn("Throttling active on server, waiting " + (throttlingDelay / 1000) + " seconds");
-            try {
-                Thread.sleep(throttlingDelay);
-            } catch (InterruptedException e1) {
-                LOGGER.error("Throttling delay interrupted " + e1.getMessage());
-                Thread.currentThread().interrupt();
+            if (!throttled) {
+                break;
             }
-            // retry once
-            internalExecuteMethod(ewsMethod);
+            // retry after back-off
+            ewsMethod.clearErrors();
         }
         return ewsMethod.getStatusCode();
     }
@@ -2988,6 +4032,13 @@ public class EwsExchangeSession extends ExchangeSession {
         try (CloseableHttpResponse response = httpClient.execute(ewsMethod)) {
             ewsMethod.handleResponse(response);
         }
+        int status = ewsMethod.getStatusCode();
+        if (status == HttpStatus.SC_UNAUTHORIZED || status == 440) {
+            // credentials rejected, 440 means login timeout on Exchange
+            markExpired();
+        } else if (status == HttpStatus.SC_OK) {
+            markAlive();
+        }
         if (serverVersion == null) {
             serverVersion = ewsMethod.getServerVersion();
         }
@@ -3056,6 +4107,94 @@ public class EwsExchangeSession extends ExchangeSession {
         return contact;
     }
 
+    /**
+     * ResolveNames results by search value, shared by all LDAP connections of this session.
+     */
+    protected final ExpiringCache<String, List<EWSMethod.Item>> galFindCache = new ExpiringCache<>(
+            Settings.getIntProperty("davmail.galFindCacheSize", 200),
+            Settings.getIntProperty("davmail.galFindCacheDelay", 300) * 1000L);
+    /**
+     * Bounded executor for concurrent ResolveNames requests, created on first use,
+     * idle threads exit so that idle sessions do not keep threads alive.
+     */
+    protected ExecutorService galFindExecutor;
+
+    protected synchronized ExecutorService getGalFindExecutor() {
+        if (galFindExecutor == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            int galFindThreads = Settings.getIntProperty("davmail.galFindThreads", 4);
+            ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(galFindThreads, galFindThreads,
+                    60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "GalFind-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            galFindExecutor = threadPoolExecutor;
+        }
+        return galFindExecutor;
+    }
+
+    /**
+     * Copy ResolveNames result items, cached lists are shared by concurrent searches.
+     *
+     * @param items result items
+     * @return item copies
+     */
+    protected static List<EWSMethod.Item> copyItems(List<EWSMethod.Item> items) {
+        List<EWSMethod.Item> itemCopies = new ArrayList<>(items.size());
+        for (EWSMethod.Item item : items) {
+            EWSMethod.Item itemCopy = new EWSMethod.Item();
+            itemCopy.type = item.type;
+            for (Map.Entry<String, String> entry : item.entrySet()) {
+                itemCopy.put(entry.getKey(), entry.getValue());
+            }
+            itemCopies.add(itemCopy);
+        }
+        return itemCopies;
+    }
+
+    /**
+     * Run OR branches concurrently, merge results in branch order and stop at sizeLimit.
+     *
+     * @param conditions          attribute conditions
+     * @param returningAttributes requested attributes
+     * @param sizeLimit           maximum result count
+     * @return contacts by lowercase name
+     * @throws IOException on error
+     */
+    protected Map<String, ExchangeSession.Contact> parallelGalFind(List<Condition> conditions, final Set<String> returningAttributes, final int sizeLimit) throws IOException {
+        Map<String, ExchangeSession.Contact> contacts = new HashMap<>();
+        List<Future<Map<String, ExchangeSession.Contact>>> futures = new ArrayList<>();
+        ExecutorService executorService = getGalFindExecutor();
+        for (final Condition innerCondition : conditions) {
+            futures.add(executorService.submit(() -> galFind(innerCondition, returningAttributes, sizeLimit)));
+        }
+        try {
+            for (Future<Map<String, ExchangeSession.Contact>> future : futures) {
+                if (sizeLimit > 0 && contacts.size() >= sizeLimit) {
+                    // enough results, skip pending requests
+                    future.cancel(false);
+                } else {
+                    contacts.putAll(future.get());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            for (Future<Map<String, ExchangeSession.Contact>> future : futures) {
+                future.cancel(false);
+            }
+        }
+        return contacts;
+    }
+
     @Override
     public Map<String, ExchangeSession.Contact> galFind(Condition condition, Set<String> returningAttributes, int sizeLimit) throws IOException {
         Map<String, ExchangeSession.Contact> contacts = new HashMap<>();
@@ -3063,8 +4202,17 @@ public class EwsExchangeSession extends ExchangeSession {
             List<Condition> conditions = ((ExchangeSession.MultiCondition) condition).getConditions();
             Operator operator = ((ExchangeSession.MultiCondition) condition).getOperator();
             if (operator == Operator.Or) {
+                boolean attributeConditionsOnly = conditions.size() > 1;
                 for (Condition innerCondition : conditions) {
-                    contacts.putAll(galFind(innerCondition, returningAttributes, sizeLimit));
+                    attributeConditionsOnly = attributeConditionsOnly && innerCondition instanceof AttributeCondition;
+                }
+                if (attributeConditionsOnly) {
+                    // leaf conditions only, no nested submit on the bounded executor
+                    contacts.putAll(parallelGalFind(conditions, returningAttributes, sizeLimit));
+                } else {
+                    for (Condition innerCondition : conditions) {
+                        contacts.putAll(galFind(innerCondition, returningAttributes, sizeLimit));
+                    }
                 }
             } else if (operator == Operator.And && !conditions.isEmpty()) {
                 Map<String, ExchangeSession.Contact> innerContacts = galFind(conditions.get(0), returningAttributes, sizeLimit);
@@ -3086,11 +4234,21 @@ public class EwsExchangeSession extends ExchangeSession {
                 if (operator == Operator.IsEqualTo) {
                     searchValue = '=' + searchValue;
                 }
-                ResolveNamesMethod resolveNamesMethod = new ResolveNamesMethod(searchValue);
-                executeMethod(resolveNamesMethod);
-                List<EWSMethod.Item> responses = resolveNamesMethod.getResponseItems();
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("ResolveNames(" + searchValue + ") returned " + responses.size() + " results");
+                List<EWSMethod.Item> responses = galFindCache.get(searchValue);
+                if (responses == null) {
+                    ResolveNamesMethod resolveNamesMethod = new ResolveNamesMethod(searchValue);
+                    resolveNamesMethod.setPriority(EwsRequestGovernor.PRIORITY_LOW);
+                    executeMethod(resolveNamesMethod);
+                    responses = resolveNamesMethod.getResponseItems();
+                    galFindCache.put(searchValue, copyItems(responses));
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("ResolveNames(" + searchValue + ") returned " + responses.size() + " results");
+                    }
+                } else {
+                    responses = copyItems(responses);
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("ResolveNames(" + searchValue + ") returned " + responses.size() + " cached results");
+                    }
                 }
                 for (EWSMethod.Item response : responses) {
                     Contact contact = buildGalfindContact(response);
@@ -3267,6 +4425,20 @@ public class EwsExchangeSession extends ExchangeSession {
      */
     @Override
     public void close() {
+        // holders must login again
+        expired = true;
+        synchronized (this) {
+            if (notificationThread != null) {
+                notificationThread.interrupt();
+                notificationThread = null;
+            }
+            if (galFindExecutor != null) {
+                galFindExecutor.shutdownNow();
+                galFindExecutor = null;
+            }
+        }
+        shutdownPrefetchExecutor();
+        mimeContentCache.clear();
         httpClient.close();
     }
 
@@ -0,0 +1,323 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import org.apache.log4j.Logger;
+
+import java.io.InterruptedIOException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Gateway wide EWS request governor shared by all sessions with the same key (user or endpoint).
+ * Requests wait in a priority queue for a slot under an adaptive concurrency limit:
+ * the limit grows by one slot per limit successful requests and is halved on throttling (AIMD).
+ * Server provided back-off delays are shared, all sessions wait until back-off expires.
+ * Idle governors are retired and removed, a new governor is created on next request.
+ */
+public final class EwsRequestGovernor {
+    private static final Logger LOGGER = Logger.getLogger(EwsRequestGovernor.class);
+
+    /**
+     * Interactive client request.
+     */
+    public static final int PRIORITY_HIGH = 0;
+    /**
+     * Default priority.
+     */
+    public static final int PRIORITY_NORMAL = 1;
+    /**
+     * Background request, e.g. prefetch or parallel search.
+     */
+    public static final int PRIORITY_LOW = 2;
+
+    private static final Pattern BACK_OFF_PATTERN = Pattern.compile("BackOffMilliseconds\\D*(\\d+)");
+
+    private static final ConcurrentHashMap<String, EwsRequestGovernor> INSTANCES = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int maxConcurrency;
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>();
+    private double limit;
+    private int inFlight;
+    private long backOffUntil;
+    private long sequence;
+    private long lastUseTime = System.currentTimeMillis();
+    private boolean retired;
+
+    private long requestCount;
+    private long throttledCount;
+    private long throttledWaitTime;
+    private int maxQueueDepth;
+
+    private static final class Ticket implements Comparable<Ticket> {
+        final int priority;
+        final long sequence;
+
+        Ticket(int priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        public int compareTo(Ticket other) {
+            if (priority != other.priority) {
+                return priority < other.priority ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Get or create the shared governor for key.
+     *
+     * @param name           governor key
+     * @param maxConcurrency maximum concurrent requests
+     * @return governor
+     */
+    public static EwsRequestGovernor getInstance(String name, int maxConcurrency) {
+        return INSTANCES.computeIfAbsent(name, k -> new EwsRequestGovernor(k, maxConcurrency));
+    }
+
+    /**
+     * Acquire a request slot on the shared governor for key, retry on a new governor
+     * if the current one was retired meanwhile.
+     *
+     * @param name           governor key
+     * @param maxConcurrency maximum concurrent requests
+     * @param priority       request priority
+     * @return governor to release
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    public static EwsRequestGovernor acquire(String name, int maxConcurrency, int priority) throws InterruptedIOException {
+        while (true) {
+            EwsRequestGovernor governor = getInstance(name, maxConcurrency);
+            if (governor.acquire(priority)) {
+                return governor;
+            }
+        }
+    }
+
+    /**
+     * Remove governors without request for more than idleTimeout and not in back-off.
+     *
+     * @param idleTimeout idle timeout in milliseconds
+     * @return removed governor count
+     */
+    public static int evictIdleInstances(long idleTimeout) {
+        int count = 0;
+        long now = System.currentTimeMillis();
+        for (EwsRequestGovernor governor : INSTANCES.values()) {
+            if (governor.retireIfIdle(now, idleTimeout)) {
+                INSTANCES.remove(governor.name, governor);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get request statistics over all active governors.
+     *
+     * @return statistics
+     */
+    public static String getStatistics() {
+        int count = 0;
+        int limited = 0;
+        int inFlightCount = 0;
+        int queueDepth = 0;
+        int maxQueueDepthValue = 0;
+        long requests = 0;
+        long throttled = 0;
+        long throttledWait = 0;
+        for (EwsRequestGovernor governor : INSTANCES.values()) {
+            synchronized (governor) {
+                count++;
+                if ((int) governor.limit < governor.maxConcurrency) {
+                    limited++;
+                }
+                inFlightCount += governor.inFlight;
+                queueDepth += governor.queue.size();
+                maxQueueDepthValue = Math.max(maxQueueDepthValue, governor.maxQueueDepth);
+                requests += governor.requestCount;
+                throttled += governor.throttledCount;
+                throttledWait += governor.throttledWaitTime;
+            }
+        }
+        return "EWS governors=" + count + " limited=" + limited + " inFlight=" + inFlightCount
+                + " queue=" + queueDepth + " maxQueue=" + maxQueueDepthValue
+                + " requests=" + requests + " throttled=" + throttled + " throttledWaitTime=" + throttledWait;
+    }
+
+    EwsRequestGovernor(String name, int maxConcurrency) {
+        this.name = name;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.limit = this.maxConcurrency;
+    }
+
+    /**
+     * Wait for back-off expiration and a free request slot.
+     *
+     * @param priority request priority
+     * @return false if this governor was retired, caller needs to get a new instance
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    public synchronized boolean acquire(int priority) throws InterruptedIOException {
+        if (retired) {
+            return false;
+        }
+        Ticket ticket = new Ticket(priority, sequence++);
+        queue.add(ticket);
+        maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+        try {
+            while (true) {
+                long now = System.currentTimeMillis();
+                long backOffDelay = backOffUntil - now;
+                if (backOffDelay > 0) {
+                    wait(backOffDelay);
+                    throttledWaitTime += System.currentTimeMillis() - now;
+                } else if (queue.peek() == ticket && inFlight < (int) limit) {
+                    break;
+                } else {
+                    wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            queue.remove(ticket);
+            notifyAll();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for EWS request slot");
+        }
+        queue.poll();
+        inFlight++;
+        requestCount++;
+        lastUseTime = System.currentTimeMillis();
+        // next request in queue may also have a free slot
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Release request slot and adapt concurrency limit.
+     *
+     * @param throttled    request was throttled by server
+     * @param backOffDelay delay in milliseconds before next request, 0 to only reduce concurrency
+     */
+    public synchronized void release(boolean throttled, long backOffDelay) {
+        inFlight--;
+        lastUseTime = System.currentTimeMillis();
+        if (throttled) {
+            throttledCount++;
+            limit = Math.max(1, limit / 2);
+            if (backOffDelay > 0) {
+                backOffUntil = Math.max(backOffUntil, System.currentTimeMillis() + backOffDelay);
+            }
+            LOGGER.warn("Throttling active on " + name + ", waiting " + (backOffDelay / 1000) + " seconds, " + this);
+        } else if (limit < maxConcurrency) {
+            limit = Math.min(maxConcurrency, limit + 1 / limit);
+        }
+        notifyAll();
+    }
+
+    synchronized boolean retireIfIdle(long now, long idleTimeout) {
+        if (!retired && inFlight == 0 && queue.isEmpty() && backOffUntil <= now && now - lastUseTime > idleTimeout) {
+            retired = true;
+        }
+        return retired;
+    }
+
+    /**
+     * Parse server back-off delay from ErrorServerBusy MessageXml.
+     *
+     * @param messageXml error value
+     * @param defaultValue default delay in milliseconds
+     * @return back-off delay in milliseconds
+     */
+    public static long parseBackOff(String messageXml, long defaultValue) {
+        if (messageXml != null) {
+            Matcher matcher = BACK_OFF_PATTERN.matcher(messageXml);
+            if (matcher.find()) {
+                try {
+                    return Long.parseLong(matcher.group(1));
+                } catch (NumberFormatException e) {
+                    LOGGER.error("Unable to parse BackOffMilliseconds " + e.getMessage());
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * @return current concurrency limit
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return requests currently executing
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return requests waiting for a slot
+     */
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return maximum queue depth observed
+     */
+    public synchronized int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * @return executed request count
+     */
+    public synchronized long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * @return throttled request count
+     */
+    public synchronized long getThrottledCount() {
+        return throttledCount;
+    }
+
+    /**
+     * @return cumulated time in milliseconds requests waited on server back-off
+     */
+    public synchronized long getThrottledWaitTime() {
+        return throttledWaitTime;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "EwsRequestGovernor " + name + " limit=" + (int) limit + '/' + maxConcurrency
+                + " inFlight=" + inFlight + " queue=" + queue.size() + " maxQueue=" + maxQueueDepth
+                + " requests=" + requestCount + " throttled=" + throttledCount
+                + " throttledWaitTime=" + throttledWaitTime;
+    }
+}
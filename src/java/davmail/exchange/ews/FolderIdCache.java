@@ -0,0 +1,254 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folder path to FolderId resolution cache.
+ * Nodes are identified by mailbox and folder id, children are indexed by encoded folder name:
+ * walking a folder path from a distinguished folder is a walk down this trie.
+ * Since EWS folder ids do not change on move or rename, only the moved entry is evicted.
+ * The same folder may be reached through several parents (distinguished id or actual id).
+ */
+public class FolderIdCache {
+    protected static class Entry {
+        protected final String parentKey;
+        protected final String folderName;
+        protected final long timestamp;
+        protected FolderId folderId;
+
+        protected Entry(String parentKey, String folderName, FolderId folderId) {
+            this.parentKey = parentKey;
+            this.folderName = folderName;
+            this.folderId = folderId;
+            this.timestamp = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Parent folder key to children by name.
+     */
+    private final Map<String, Map<String, Entry>> children = new HashMap<>();
+    /**
+     * Folder key to entries index, used to evict a folder without its path.
+     */
+    private final Map<String, List<Entry>> entries = new HashMap<>();
+    private final long timeToLive;
+
+    /**
+     * Create folder id cache.
+     *
+     * @param timeToLive entry time to live in milliseconds, 0 to disable cache
+     */
+    public FolderIdCache(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Build node key from folder id, include mailbox for shared distinguished folders.
+     *
+     * @param folderId folder id
+     * @return node key
+     */
+    protected static String getKey(FolderId folderId) {
+        if (folderId.mailbox == null) {
+            return folderId.value;
+        } else {
+            return folderId.mailbox.toLowerCase() + '/' + folderId.value;
+        }
+    }
+
+    /**
+     * Return a copy of cached folder id, FolderId objects are mutable.
+     *
+     * @param folderId cached folder id
+     * @return folder id copy
+     */
+    protected static FolderId copy(FolderId folderId) {
+        return new FolderId(folderId.name, folderId.value, folderId.changeKey, folderId.mailbox);
+    }
+
+    /**
+     * Get cached sub folder id.
+     *
+     * @param parentFolderId parent folder id
+     * @param folderName     encoded folder name
+     * @return folder id or null if not cached or expired
+     */
+    public synchronized FolderId get(FolderId parentFolderId, String folderName) {
+        Map<String, Entry> folderChildren = children.get(getKey(parentFolderId));
+        if (folderChildren != null) {
+            Entry entry = folderChildren.get(folderName);
+            if (entry != null) {
+                if (System.currentTimeMillis() - entry.timestamp < timeToLive) {
+                    return copy(entry.folderId);
+                }
+                remove(entry);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Store sub folder id.
+     *
+     * @param parentFolderId parent folder id
+     * @param folderName     encoded folder name
+     * @param folderId       sub folder id
+     */
+    public synchronized void put(FolderId parentFolderId, String folderName, FolderId folderId) {
+        if (timeToLive <= 0 || folderId == null) {
+            return;
+        }
+        String parentKey = getKey(parentFolderId);
+        Map<String, Entry> folderChildren = children.get(parentKey);
+        if (folderChildren != null) {
+            Entry previousEntry = folderChildren.get(folderName);
+            if (previousEntry != null) {
+                if (previousEntry.folderId.value.equals(folderId.value)) {
+                    unindex(previousEntry);
+                } else {
+                    // same name now points to another folder
+                    remove(previousEntry);
+                    folderChildren = children.get(parentKey);
+                }
+            }
+        }
+        if (folderChildren == null) {
+            folderChildren = new HashMap<>();
+            children.put(parentKey, folderChildren);
+        }
+        Entry entry = new Entry(parentKey, folderName, copy(folderId));
+        folderChildren.put(folderName, entry);
+        String key = getKey(folderId);
+        List<Entry> folderEntries = entries.get(key);
+        if (folderEntries == null) {
+            folderEntries = new ArrayList<>();
+            entries.put(key, folderEntries);
+        }
+        folderEntries.add(entry);
+    }
+
+    /**
+     * Check if folder id is currently cached.
+     *
+     * @param folderId folder id
+     * @return true if folderId was resolved from cache
+     */
+    public synchronized boolean contains(FolderId folderId) {
+        return entries.containsKey(getKey(folderId));
+    }
+
+    /**
+     * Update cached change key from a fresh folder id.
+     *
+     * @param folderId current folder id
+     */
+    public synchronized void refresh(FolderId folderId) {
+        List<Entry> folderEntries = entries.get(getKey(folderId));
+        if (folderEntries != null && folderId.changeKey != null) {
+            for (Entry entry : folderEntries) {
+                if (!folderId.changeKey.equals(entry.folderId.changeKey)) {
+                    entry.folderId = new FolderId(entry.folderId.name, entry.folderId.value, folderId.changeKey, entry.folderId.mailbox);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evict folder and all cached sub folders.
+     *
+     * @param folderId folder id
+     * @return true if folder was cached
+     */
+    public synchronized boolean evict(FolderId folderId) {
+        String key = getKey(folderId);
+        List<Entry> folderEntries = entries.get(key);
+        if (folderEntries != null) {
+            for (Entry entry : new ArrayList<>(folderEntries)) {
+                remove(entry);
+            }
+            return true;
+        }
+        // not a cached entry, still drop sub folders
+        removeChildren(key);
+        return false;
+    }
+
+    /**
+     * Evict sub folder by name.
+     *
+     * @param parentFolderId parent folder id
+     * @param folderName     encoded folder name
+     */
+    public synchronized void evict(FolderId parentFolderId, String folderName) {
+        Map<String, Entry> folderChildren = children.get(getKey(parentFolderId));
+        if (folderChildren != null) {
+            Entry entry = folderChildren.get(folderName);
+            if (entry != null) {
+                remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Clear cache.
+     */
+    public synchronized void clear() {
+        children.clear();
+        entries.clear();
+    }
+
+    private void unindex(Entry entry) {
+        String key = getKey(entry.folderId);
+        List<Entry> folderEntries = entries.get(key);
+        if (folderEntries != null) {
+            folderEntries.remove(entry);
+            if (folderEntries.isEmpty()) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    private void remove(Entry entry) {
+        Map<String, Entry> folderChildren = children.get(entry.parentKey);
+        if (folderChildren != null && folderChildren.get(entry.folderName) == entry) {
+            folderChildren.remove(entry.folderName);
+            if (folderChildren.isEmpty()) {
+                children.remove(entry.parentKey);
+            }
+        }
+        unindex(entry);
+        removeChildren(getKey(entry.folderId));
+    }
+
+    private void removeChildren(String key) {
+        Map<String, Entry> folderChildren = children.remove(key);
+        if (folderChildren != null) {
+            for (Entry child : folderChildren.values()) {
+                unindex(child);
+                removeChildren(getKey(child.folderId));
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folder hierarchy rebuilt from a deep FindFolder result: each folder only knows its parent folder id.
+ * Folders whose parent is not in the result (e.g. excluded by search condition) are unreachable from root
+ * and not returned, same as a recursive shallow traversal.
+ */
+public class FolderTree {
+    private final String rootId;
+    private final Map<String, String> parentIds = new LinkedHashMap<>();
+    private final Map<String, List<String>> children = new HashMap<>();
+
+    /**
+     * Create folder tree.
+     *
+     * @param rootId actual root folder id
+     */
+    public FolderTree(String rootId) {
+        this.rootId = rootId;
+    }
+
+    /**
+     * Add folder in result order.
+     *
+     * @param folderId folder id
+     * @param parentId parent folder id
+     */
+    public void add(String folderId, String parentId) {
+        parentIds.put(folderId, parentId);
+        children.computeIfAbsent(parentId, k -> new ArrayList<>()).add(folderId);
+    }
+
+    /**
+     * Get parent folder id.
+     *
+     * @param folderId folder id
+     * @return parent folder id
+     */
+    public String getParentId(String folderId) {
+        return parentIds.get(folderId);
+    }
+
+    /**
+     * Check if folder is a direct child of root.
+     *
+     * @param folderId folder id
+     * @return true if parent is root
+     */
+    public boolean isRootChild(String folderId) {
+        return rootId.equals(parentIds.get(folderId));
+    }
+
+    /**
+     * Folder ids reachable from root, each folder is followed by its sub folders.
+     *
+     * @return folder ids in hierarchy order
+     */
+    public List<String> getFolderIds() {
+        List<String> result = new ArrayList<>();
+        appendChildren(result, rootId);
+        return result;
+    }
+
+    private void appendChildren(List<String> result, String parentId) {
+        List<String> childIds = children.get(parentId);
+        if (childIds != null) {
+            for (String childId : childIds) {
+                result.add(childId);
+                // a folder cannot be its own parent, guard against loops anyway
+                if (!childId.equals(parentId) && !childId.equals(rootId)) {
+                    appendChildren(result, childId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import davmail.exchange.XMLStreamUtil;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * EWS GetEvents method, retrieve pull subscription events since watermark.
+ */
+public class GetEventsMethod extends EWSMethod {
+    protected final String subscriptionId;
+    protected final String previousWatermark;
+    protected String watermark;
+    protected boolean moreEvents;
+    protected final Set<String> folderIds = new HashSet<>();
+
+    /**
+     * Get events method.
+     *
+     * @param subscriptionId pull subscription id
+     * @param watermark      last known watermark
+     */
+    public GetEventsMethod(String subscriptionId, String watermark) {
+        super("Notification", "GetEvents");
+        this.subscriptionId = subscriptionId;
+        this.previousWatermark = watermark;
+    }
+
+    @Override
+    protected void writeSoapBody(Writer writer) throws IOException {
+        writer.write("<m:SubscriptionId>");
+        writer.write(subscriptionId);
+        writer.write("</m:SubscriptionId><m:Watermark>");
+        writer.write(previousWatermark);
+        writer.write("</m:Watermark>");
+    }
+
+    @Override
+    protected void handleCustom(XMLStreamReader reader) throws XMLStreamException {
+        if (XMLStreamUtil.isStartTag(reader)) {
+            String localName = reader.getLocalName();
+            if ("Watermark".equals(localName)) {
+                // each event carries a watermark, keep the last one
+                watermark = XMLStreamUtil.getElementText(reader);
+            } else if ("MoreEvents".equals(localName)) {
+                moreEvents = "true".equals(XMLStreamUtil.getElementText(reader));
+            } else if ("FolderId".equals(localName) || "ParentFolderId".equals(localName)
+                    || "OldParentFolderId".equals(localName)) {
+                String folderId = getAttributeValue(reader, "Id");
+                if (folderId != null) {
+                    folderIds.add(folderId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get watermark to send on next call.
+     *
+     * @return last event watermark
+     */
+    public String getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Check if more events are available on server.
+     *
+     * @return true if GetEvents needs to be called again
+     */
+    public boolean hasMoreEvents() {
+        return moreEvents;
+    }
+
+    /**
+     * Get changed folder ids, including parent folders of changed items.
+     *
+     * @return folder ids
+     */
+    public Set<String> getFolderIds() {
+        return folderIds;
+    }
+}
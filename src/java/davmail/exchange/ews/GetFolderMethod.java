@@ -18,12 +18,17 @@
  */
 package davmail.exchange.ews;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /**
  * EWS GetFolder method.
  */
 public class GetFolderMethod extends EWSMethod {
+    protected final List<String> responseCodes = new ArrayList<>();
 
     /**
      * Get folder method.
@@ -39,4 +44,63 @@ public class GetFolderMethod extends EWSMethod {
         this.additionalProperties = additionalProperties;
     }
 
+    /**
+     * Get several folders in a single request.
+     *
+     * @param baseShape            base requested shape
+     * @param folderIds            folder id list
+     * @param additionalProperties additional requested properties
+     */
+    public GetFolderMethod(BaseShape baseShape, List<FolderId> folderIds, Set<FieldURI> additionalProperties) {
+        super("Folder", "GetFolder");
+        this.baseShape = baseShape;
+        this.folderIds = folderIds;
+        this.additionalProperties = additionalProperties;
+    }
+
+    @Override
+    protected String handleTag(XMLStreamReader reader, String localName) throws XMLStreamException {
+        String result = super.handleTag(reader, localName);
+        if (result != null && "ResponseCode".equals(localName)) {
+            responseCodes.add(result);
+        }
+        return result;
+    }
+
+    @Override
+    public void checkSuccess() throws EWSException {
+        // on multiple folder get, per folder errors are reported by getResponseItem(index)
+        if (isThrottled() || folderIds == null || responseCodes.size() != folderIds.size()) {
+            super.checkSuccess();
+        }
+    }
+
+    @Override
+    protected void clearErrors() {
+        super.clearErrors();
+        responseCodes.clear();
+    }
+
+    /**
+     * Get folder item matching a requested folder id.
+     *
+     * @param index folder index in request
+     * @return folder item or null if folder was not found
+     * @throws EWSException on error
+     */
+    public Item getResponseItem(int index) throws EWSException {
+        List<Item> items = getResponseItems();
+        if (index >= responseCodes.size() || !"NoError".equals(responseCodes.get(index))) {
+            return null;
+        }
+        // failed responses have no folder item
+        int itemIndex = 0;
+        for (int i = 0; i < index; i++) {
+            if ("NoError".equals(responseCodes.get(i))) {
+                itemIndex++;
+            }
+        }
+        return itemIndex < items.size() ? items.get(itemIndex) : null;
+    }
+
 }
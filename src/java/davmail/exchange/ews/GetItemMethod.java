@@ -18,6 +18,8 @@
  */
 package davmail.exchange.ews;
 
+import java.util.List;
+
 /**
  * Get Item method.
  */
@@ -36,4 +38,18 @@ public class GetItemMethod extends EWSMethod {
         this.includeMimeContent = includeMimeContent;
     }
 
+    /**
+     * Get items method.
+     *
+     * @param baseShape          base requested shape
+     * @param itemIds            item id list
+     * @param includeMimeContent return mime content
+     */
+    public GetItemMethod(BaseShape baseShape, List<ItemId> itemIds, boolean includeMimeContent) {
+        super("Item", "GetItem");
+        this.baseShape = baseShape;
+        this.itemIds = itemIds;
+        this.includeMimeContent = includeMimeContent;
+    }
+
 }
@@ -0,0 +1,230 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import davmail.exchange.ExchangeSession;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Poll EWS pull subscription events for all watched folders of a session.
+ * A single GetEvents request covers all folders, IMAP IDLE connections only refresh
+ * their folder when notified.
+ */
+public class NotificationThread extends Thread {
+    private static final Logger LOGGER = Logger.getLogger(NotificationThread.class);
+
+    /**
+     * Subscription timeout in minutes, must be greater than poll delay.
+     */
+    protected static final int SUBSCRIPTION_TIMEOUT = 10;
+
+    private final EwsExchangeSession session;
+    private final long delay;
+    private final Map<String, List<ExchangeSession.Folder>> watchedFolders = new HashMap<>();
+    private boolean stopped;
+    private String subscriptionId;
+    private String watermark;
+
+    /**
+     * Create notification thread.
+     *
+     * @param threadName parent thread name
+     * @param session    EWS session
+     * @param delay      delay between GetEvents calls in milliseconds
+     */
+    protected NotificationThread(String threadName, EwsExchangeSession session, long delay) {
+        super(threadName + "-Notification");
+        setDaemon(true);
+        this.session = session;
+        this.delay = delay;
+    }
+
+    /**
+     * Create a new pull subscription.
+     *
+     * @throws IOException on error, EWSException if server does not support subscriptions
+     */
+    protected void subscribe() throws IOException {
+        SubscribeMethod subscribeMethod = new SubscribeMethod(SUBSCRIPTION_TIMEOUT);
+        session.executeMethod(subscribeMethod);
+        if (subscribeMethod.getSubscriptionId() == null || subscribeMethod.getWatermark() == null) {
+            throw new EWSException("Subscribe failed");
+        }
+        subscriptionId = subscribeMethod.getSubscriptionId();
+        watermark = subscribeMethod.getWatermark();
+        LOGGER.debug("Created pull subscription " + subscriptionId);
+    }
+
+    /**
+     * Add folder to watched folders.
+     *
+     * @param folder EWS folder
+     * @return false if thread is stopping
+     */
+    protected synchronized boolean watch(EwsExchangeSession.Folder folder) {
+        if (stopped) {
+            return false;
+        }
+        List<ExchangeSession.Folder> folders = watchedFolders.get(folder.folderId.value);
+        if (folders == null) {
+            folders = new ArrayList<>();
+            watchedFolders.put(folder.folderId.value, folders);
+        }
+        if (!folders.contains(folder)) {
+            folders.add(folder);
+        }
+        folder.changed = false;
+        folder.watched = true;
+        return true;
+    }
+
+    /**
+     * Remove folder from watched folders.
+     *
+     * @param folder EWS folder
+     */
+    protected synchronized void unwatch(EwsExchangeSession.Folder folder) {
+        folder.watched = false;
+        List<ExchangeSession.Folder> folders = watchedFolders.get(folder.folderId.value);
+        if (folders != null) {
+            folders.remove(folder);
+            if (folders.isEmpty()) {
+                watchedFolders.remove(folder.folderId.value);
+            }
+        }
+        if (watchedFolders.isEmpty()) {
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (waitForNextPoll()) {
+                getEvents();
+            }
+        } catch (InterruptedException e) {
+            LOGGER.debug("Notification thread interrupted");
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOGGER.warn("Notification thread failed, fallback to polling: " + e.getMessage());
+        } finally {
+            flagWatchedFolders(true);
+            unsubscribe();
+        }
+    }
+
+    /**
+     * Wait poll delay, stop when there is no watched folder left.
+     *
+     * @return true to poll events
+     * @throws InterruptedException on session close
+     */
+    protected synchronized boolean waitForNextPoll() throws InterruptedException {
+        if (!watchedFolders.isEmpty()) {
+            wait(delay);
+        }
+        if (watchedFolders.isEmpty()) {
+            stopped = true;
+        }
+        return !stopped;
+    }
+
+    /**
+     * Mark watched folders as changed.
+     *
+     * @param unwatch also unregister all folders, IDLE connections will fall back to polling
+     */
+    protected synchronized void flagWatchedFolders(boolean unwatch) {
+        for (List<ExchangeSession.Folder> folders : watchedFolders.values()) {
+            for (ExchangeSession.Folder folder : folders) {
+                if (unwatch) {
+                    folder.watched = false;
+                }
+                folder.notifyChange();
+            }
+        }
+        if (unwatch) {
+            stopped = true;
+            watchedFolders.clear();
+        }
+    }
+
+    /**
+     * Mark watched folder as changed.
+     *
+     * @param folderId changed folder id
+     */
+    protected synchronized void notifyFolder(String folderId) {
+        List<ExchangeSession.Folder> folders = watchedFolders.get(folderId);
+        if (folders != null) {
+            for (ExchangeSession.Folder folder : folders) {
+                LOGGER.debug("Change notified on folder " + folder.folderPath);
+                folder.notifyChange();
+            }
+        }
+    }
+
+    /**
+     * Retrieve pending events and flag changed folders.
+     *
+     * @throws IOException on error
+     */
+    protected void getEvents() throws IOException {
+        GetEventsMethod getEventsMethod;
+        do {
+            getEventsMethod = new GetEventsMethod(subscriptionId, watermark);
+            try {
+                session.executeMethod(getEventsMethod);
+            } catch (EWSException e) {
+                // subscription expired or lost on server, events may have been missed
+                LOGGER.debug("GetEvents failed, create a new subscription: " + e.getMessage());
+                subscribe();
+                flagWatchedFolders(false);
+                return;
+            }
+            if (getEventsMethod.getWatermark() != null) {
+                watermark = getEventsMethod.getWatermark();
+            }
+            for (String folderId : getEventsMethod.getFolderIds()) {
+                notifyFolder(folderId);
+            }
+        } while (getEventsMethod.hasMoreEvents());
+    }
+
+    /**
+     * Cancel subscription on server, ignore errors.
+     */
+    protected void unsubscribe() {
+        if (subscriptionId != null) {
+            try {
+                session.executeMethod(new UnsubscribeMethod(subscriptionId));
+            } catch (Exception e) {
+                LOGGER.debug("Unsubscribe failed: " + e.getMessage());
+            }
+            subscriptionId = null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import davmail.exchange.XMLStreamUtil;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * EWS Subscribe method, create a pull subscription on all mailbox folders.
+ */
+public class SubscribeMethod extends EWSMethod {
+    protected static final String[] EVENT_TYPES = {
+            "CopiedEvent", "CreatedEvent", "DeletedEvent", "ModifiedEvent", "MovedEvent", "NewMailEvent"
+    };
+
+    protected final int timeout;
+    protected String subscriptionId;
+    protected String watermark;
+
+    /**
+     * Pull subscription method.
+     *
+     * @param timeout subscription timeout in minutes without a GetEvents call
+     */
+    public SubscribeMethod(int timeout) {
+        super("Subscription", "Subscribe");
+        this.timeout = timeout;
+    }
+
+    @Override
+    protected void writeSoapBody(Writer writer) throws IOException {
+        writer.write("<m:PullSubscriptionRequest SubscribeToAllFolders=\"true\"><t:EventTypes>");
+        for (String eventType : EVENT_TYPES) {
+            writer.write("<t:EventType>");
+            writer.write(eventType);
+            writer.write("</t:EventType>");
+        }
+        writer.write("</t:EventTypes><t:Timeout>");
+        writer.write(String.valueOf(timeout));
+        writer.write("</t:Timeout></m:PullSubscriptionRequest>");
+    }
+
+    @Override
+    protected void handleCustom(XMLStreamReader reader) throws XMLStreamException {
+        if (XMLStreamUtil.isStartTag(reader, "SubscriptionId")) {
+            subscriptionId = XMLStreamUtil.getElementText(reader);
+        } else if (XMLStreamUtil.isStartTag(reader, "Watermark")) {
+            watermark = XMLStreamUtil.getElementText(reader);
+        }
+    }
+
+    /**
+     * Get new subscription id.
+     *
+     * @return subscription id
+     */
+    public String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    /**
+     * Get initial watermark.
+     *
+     * @return watermark
+     */
+    public String getWatermark() {
+        return watermark;
+    }
+}
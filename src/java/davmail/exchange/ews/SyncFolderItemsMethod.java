@@ -0,0 +1,127 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import davmail.exchange.XMLStreamUtil;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * EWS SyncFolderItems method, retrieve item changes since last synchronization state.
+ * Each response item carries its change type (Create, Update, Delete or ReadFlagChange)
+ * in the ChangeType key.
+ */
+public class SyncFolderItemsMethod extends EWSMethod {
+    protected final String syncState;
+    protected String newSyncState;
+
+    /**
+     * Sync folder items method.
+     *
+     * @param baseShape base item shape
+     * @param folderId  folder id
+     * @param syncState previous synchronization state, null for initial synchronization
+     * @param maxCount  maximum change count, up to 512
+     */
+    public SyncFolderItemsMethod(BaseShape baseShape, FolderId folderId, String syncState, int maxCount) {
+        super("Item", "SyncFolderItems", "Changes");
+        this.baseShape = baseShape;
+        this.folderId = folderId;
+        this.syncState = syncState;
+        this.maxCount = maxCount;
+    }
+
+    @Override
+    protected void writeSoapBody(Writer writer) throws IOException {
+        writeShape(writer);
+        writer.write("<m:SyncFolderId>");
+        folderId.write(writer);
+        writer.write("</m:SyncFolderId>");
+        if (syncState != null) {
+            writer.write("<m:SyncState>");
+            writer.write(syncState);
+            writer.write("</m:SyncState>");
+        }
+        writer.write("<m:MaxChangesReturned>");
+        writer.write(String.valueOf(maxCount));
+        writer.write("</m:MaxChangesReturned>");
+    }
+
+    @Override
+    protected void handleCustom(XMLStreamReader reader) throws XMLStreamException {
+        if (XMLStreamUtil.isStartTag(reader, "SyncState")) {
+            newSyncState = XMLStreamUtil.getElementText(reader);
+        } else if (XMLStreamUtil.isStartTag(reader, "IncludesLastItemInRange")) {
+            includesLastItemInRange = "true".equals(XMLStreamUtil.getElementText(reader));
+        }
+    }
+
+    @Override
+    protected Item handleItem(XMLStreamReader reader) throws XMLStreamException {
+        String changeType = reader.getLocalName();
+        Item responseItem;
+        if ("Create".equals(changeType) || "Update".equals(changeType)) {
+            // skip to item element
+            reader.next();
+            while (reader.hasNext() && !XMLStreamUtil.isStartTag(reader)) {
+                reader.next();
+            }
+            responseItem = super.handleItem(reader);
+        } else {
+            // Delete and ReadFlagChange only contain ItemId and IsRead
+            responseItem = new Item();
+            responseItem.type = changeType;
+            while (reader.hasNext() && !XMLStreamUtil.isEndTag(reader, changeType)) {
+                reader.next();
+                if (XMLStreamUtil.isStartTag(reader, "ItemId")) {
+                    responseItem.put("ItemId", getAttributeValue(reader, "Id"));
+                    responseItem.put("ChangeKey", getAttributeValue(reader, "ChangeKey"));
+                } else if (XMLStreamUtil.isStartTag(reader, "IsRead")) {
+                    responseItem.put("IsRead", XMLStreamUtil.getElementText(reader));
+                }
+            }
+        }
+        while (reader.hasNext() && !XMLStreamUtil.isEndTag(reader, changeType)) {
+            reader.next();
+        }
+        responseItem.put("ChangeType", changeType);
+        return responseItem;
+    }
+
+    /**
+     * Get synchronization state to send on next call.
+     *
+     * @return new synchronization state
+     */
+    public String getSyncState() {
+        return newSyncState;
+    }
+
+    /**
+     * Check if all changes were returned.
+     *
+     * @return true if synchronization is complete
+     */
+    public boolean includesLastItemInRange() {
+        return includesLastItemInRange;
+    }
+}
@@ -18,12 +18,19 @@
  */
 package davmail.exchange.ews;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Update Item method.
  */
 public class UpdateItemMethod extends EWSMethod {
+    protected final List<String> responseCodes = new ArrayList<>();
+
     /**
      * Update exchange item.
      *
@@ -44,4 +51,88 @@ public class UpdateItemMethod extends EWSMethod {
         addMethodOption(conflictResolution);
         addMethodOption(sendMeetingInvitationsOrCancellations);
     }
+
+    /**
+     * Apply the same field updates to several exchange items.
+     *
+     * @param messageDisposition save or send option
+     * @param conflictResolution overwrite option
+     * @param sendMeetingInvitationsOrCancellations
+     *                           send invitations option
+     * @param itemIds            item id list
+     * @param updates            field updates
+     */
+    public UpdateItemMethod(MessageDisposition messageDisposition, ConflictResolution conflictResolution,
+                            SendMeetingInvitationsOrCancellations sendMeetingInvitationsOrCancellations,
+                            List<ItemId> itemIds, List<FieldUpdate> updates) {
+        super("Item", "UpdateItem");
+        this.itemIds = itemIds;
+        this.updates = updates;
+        addMethodOption(messageDisposition);
+        addMethodOption(conflictResolution);
+        addMethodOption(sendMeetingInvitationsOrCancellations);
+    }
+
+    @Override
+    protected String handleTag(XMLStreamReader reader, String localName) throws XMLStreamException {
+        String result = super.handleTag(reader, localName);
+        if (result != null && "ResponseCode".equals(localName)) {
+            responseCodes.add(result);
+        }
+        return result;
+    }
+
+    @Override
+    public void checkSuccess() throws EWSException {
+        // on multiple item update, per item errors are reported by isUpdated
+        if (isThrottled() || itemIds == null || responseCodes.size() != itemIds.size()) {
+            super.checkSuccess();
+        }
+    }
+
+    @Override
+    protected void clearErrors() {
+        super.clearErrors();
+        responseCodes.clear();
+    }
+
+    /**
+     * Check update status of an item.
+     *
+     * @param index item index in request
+     * @return true if item was updated
+     */
+    public boolean isUpdated(int index) {
+        return "NoError".equals(getResponseCode(index));
+    }
+
+    /**
+     * Get response code of an item.
+     *
+     * @param index item index in request
+     * @return response code
+     */
+    public String getResponseCode(int index) {
+        if (index >= responseCodes.size()) {
+            return null;
+        }
+        return responseCodes.get(index);
+    }
+
+    @Override
+    protected void writeSoapBody(Writer writer) throws IOException {
+        if (itemIds == null) {
+            super.writeSoapBody(writer);
+        } else {
+            // one ItemChange per item
+            writer.write("<m:ItemChanges>");
+            for (ItemId localItemId : itemIds) {
+                writer.write("<t:ItemChange>");
+                localItemId.write(writer);
+                writeUpdates(writer);
+                writer.write("</t:ItemChange>");
+            }
+            writer.write("</m:ItemChanges>");
+        }
+    }
 }
\ No newline at end of file
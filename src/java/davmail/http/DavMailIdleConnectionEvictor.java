@@ -20,6 +20,8 @@
 package davmail.http;
 
 import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.apache.log4j.Logger;
 
 import java.util.HashSet;
@@ -36,9 +38,14 @@ public class DavMailIdleConnectionEvictor {
     private static final HashSet<HttpClientConnectionManager> connectionManagers = new HashSet<>();
 
     private static final long sleepTimeMs = 1000;
-    private static final long maxIdleTimeMs = 3000;
+    private static final long statisticsDelayMs = 60000;
 
     private static Thread thread;
+    private static long lastStatisticsTime;
+    private static long lastHandshakeCount;
+    private static long handshakesPerMinute;
+    private static long lastResumedHandshakeCount;
+    private static long resumedHandshakesPerMinute;
 
     private static void initEvictorThread() {
         if (thread == null) {
@@ -46,6 +53,7 @@ public class DavMailIdleConnectionEvictor {
                 try {
                     while (!Thread.currentThread().isInterrupted()) {
                         Thread.sleep(sleepTimeMs);
+                        long maxIdleTimeMs = HttpClientAdapter.getIdleTimeout();
                         synchronized (connectionManagers) {
                             // iterate over connection managers
                             for (HttpClientConnectionManager connectionManager : connectionManagers) {
@@ -55,6 +63,7 @@ public class DavMailIdleConnectionEvictor {
                                 }
                             }
                         }
+                        updateStatistics();
                     }
                 } catch (final Exception ex) {
                     LOGGER.error(ex);
@@ -72,6 +81,53 @@ public class DavMailIdleConnectionEvictor {
         thread = null;
     }
 
+    private static void updateStatistics() {
+        long now = System.currentTimeMillis();
+        if (now - lastStatisticsTime >= statisticsDelayMs) {
+            long handshakeCount = HttpClientAdapter.getHandshakeCount();
+            long resumedHandshakeCount = HttpClientAdapter.getResumedHandshakeCount();
+            synchronized (connectionManagers) {
+                if (lastStatisticsTime > 0) {
+                    handshakesPerMinute = (handshakeCount - lastHandshakeCount) * statisticsDelayMs / (now - lastStatisticsTime);
+                    resumedHandshakesPerMinute = (resumedHandshakeCount - lastResumedHandshakeCount) * statisticsDelayMs / (now - lastStatisticsTime);
+                }
+                lastStatisticsTime = now;
+                lastHandshakeCount = handshakeCount;
+                lastResumedHandshakeCount = resumedHandshakeCount;
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(getStatistics());
+            }
+        }
+    }
+
+    /**
+     * Get connection pool statistics over all pooled connection managers.
+     *
+     * @return statistics
+     */
+    public static String getStatistics() {
+        int leased = 0;
+        int available = 0;
+        int pending = 0;
+        int max = 0;
+        synchronized (connectionManagers) {
+            for (HttpClientConnectionManager connectionManager : connectionManagers) {
+                if (connectionManager instanceof PoolingHttpClientConnectionManager) {
+                    PoolStats poolStats = ((PoolingHttpClientConnectionManager) connectionManager).getTotalStats();
+                    leased += poolStats.getLeased();
+                    available += poolStats.getAvailable();
+                    pending += poolStats.getPending();
+                    max += poolStats.getMax();
+                }
+            }
+            return "Connection pools=" + connectionManagers.size() + " leased=" + leased + " available=" + available
+                    + " pending=" + pending + " max=" + max
+                    + " handshakes=" + HttpClientAdapter.getHandshakeCount() + " handshakesPerMinute=" + handshakesPerMinute
+                    + " resumedHandshakes=" + HttpClientAdapter.getResumedHandshakeCount() + " resumedHandshakesPerMinute=" + resumedHandshakesPerMinute;
+        }
+    }
+
     /**
      * Add connection manager to evictor thread.
      *
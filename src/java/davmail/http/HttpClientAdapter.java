@@ -31,6 +31,7 @@ import davmail.http.request.GetRequest;
 import davmail.http.request.PostRequest;
 import davmail.http.request.ResponseWrapper;
 import davmail.http.request.RestRequest;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
@@ -48,6 +49,7 @@ import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.utils.URIUtils;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
@@ -60,6 +62,7 @@ import org.apache.http.impl.auth.SPNegoSchemeFactory;
 import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
@@ -73,6 +76,8 @@ import org.apache.jackrabbit.webdav.client.methods.HttpMove;
 import org.apache.log4j.Logger;
 import org.codehaus.jettison.json.JSONObject;
 
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.SSLSocket;
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetAddress;
@@ -81,8 +86,13 @@ import java.net.Proxy;
 import java.net.ProxySelector;
 import java.net.URI;
 import java.security.Security;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class HttpClientAdapter implements Closeable {
     static final Logger LOGGER = Logger.getLogger("davmail.http.HttpClientAdapter");
@@ -92,6 +102,38 @@ public class HttpClientAdapter implements Closeable {
     static String WORKSTATION_NAME = "UNKNOWN";
     static final int MAX_REDIRECTS = 10;
 
+    /**
+     * Full TLS handshake count on Exchange connections.
+     */
+    static final AtomicLong HANDSHAKE_COUNT = new AtomicLong();
+    /**
+     * Resumed TLS handshake count on Exchange connections.
+     */
+    static final AtomicLong RESUMED_HANDSHAKE_COUNT = new AtomicLong();
+    /**
+     * Recently negotiated TLS session ids, a handshake on a known session id is a resumed handshake.
+     */
+    static final Set<String> TLS_SESSION_IDS = Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_TLS_SESSION_IDS;
+        }
+    });
+    static final int MAX_TLS_SESSION_IDS = 1000;
+
+    /**
+     * Honor server Keep-Alive timeout, never keep a connection longer than configured idle timeout.
+     */
+    static final ConnectionKeepAliveStrategy KEEP_ALIVE_STRATEGY = (response, context) -> {
+        long keepAliveDuration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        long idleTimeout = getIdleTimeout();
+        if (keepAliveDuration > 0) {
+            return Math.min(keepAliveDuration, idleTimeout);
+        } else {
+            return idleTimeout;
+        }
+    };
+
     static {
         // disable Client-initiated TLS renegotiation
         System.setProperty("jdk.tls.rejectClientInitiatedRenegotiation", "true");
@@ -107,7 +149,12 @@ public class HttpClientAdapter implements Closeable {
         schemeRegistry.register("http", new PlainConnectionSocketFactory());
         schemeRegistry.register("https", new SSLConnectionSocketFactory(new DavGatewaySSLSocketFactory(),
                 SUPPORTED_PROTOCOLS, null,
-                SSLConnectionSocketFactory.getDefaultHostnameVerifier()));
+                SSLConnectionSocketFactory.getDefaultHostnameVerifier()) {
+            @Override
+            protected void prepareSocket(SSLSocket socket) {
+                socket.addHandshakeCompletedListener(HttpClientAdapter::handshakeCompleted);
+            }
+        });
 
         SCHEME_REGISTRY = schemeRegistry.build();
 
@@ -124,6 +171,51 @@ public class HttpClientAdapter implements Closeable {
         ProxySelector.setDefault(new DavGatewayProxySelector(ProxySelector.getDefault()));
     }
 
+    /**
+     * Maximum idle time of a pooled connection.
+     *
+     * @return idle timeout in milliseconds
+     */
+    static long getIdleTimeout() {
+        return Settings.getIntProperty("davmail.httpIdleTimeout", 60) * 1000L;
+    }
+
+    /**
+     * Count full and resumed TLS handshakes.
+     *
+     * @param event handshake completed event
+     */
+    static void handshakeCompleted(HandshakeCompletedEvent event) {
+        byte[] sessionId = event.getSession().getId();
+        boolean resumed;
+        synchronized (TLS_SESSION_IDS) {
+            resumed = sessionId.length > 0 && !TLS_SESSION_IDS.add(Hex.encodeHexString(sessionId));
+        }
+        if (resumed) {
+            RESUMED_HANDSHAKE_COUNT.incrementAndGet();
+        } else {
+            HANDSHAKE_COUNT.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get full TLS handshake count since startup.
+     *
+     * @return handshake count
+     */
+    public static long getHandshakeCount() {
+        return HANDSHAKE_COUNT.get();
+    }
+
+    /**
+     * Get resumed TLS handshake count since startup.
+     *
+     * @return resumed handshake count
+     */
+    public static long getResumedHandshakeCount() {
+        return RESUMED_HANDSHAKE_COUNT.get();
+    }
+
     /**
      * Test if the response is gzip encoded
      *
@@ -184,8 +276,10 @@ public class HttpClientAdapter implements Closeable {
         this.uri = uri;
 
         if (enablePool) {
-            connectionManager = new PoolingHttpClientConnectionManager(SCHEME_REGISTRY);
-            ((PoolingHttpClientConnectionManager)connectionManager).setDefaultMaxPerRoute(5);
+            PoolingHttpClientConnectionManager poolingConnectionManager = new PoolingHttpClientConnectionManager(SCHEME_REGISTRY);
+            poolingConnectionManager.setDefaultMaxPerRoute(Settings.getIntProperty("davmail.httpMaxConnectionsPerRoute", 5));
+            poolingConnectionManager.setMaxTotal(Settings.getIntProperty("davmail.httpMaxConnections", 20));
+            connectionManager = poolingConnectionManager;
             startEvictorThread();
         } else {
             connectionManager = new BasicHttpClientConnectionManager(SCHEME_REGISTRY);
@@ -197,6 +291,7 @@ public class HttpClientAdapter implements Closeable {
                 .setDefaultAuthSchemeRegistry(getAuthSchemeRegistry())
                 // httpClient is not shared between clients, do not track connection state
                 .disableConnectionState()
+                .setKeepAliveStrategy(KEEP_ALIVE_STRATEGY)
                 .setConnectionManager(connectionManager);
 
         SystemDefaultRoutePlanner routePlanner = new SystemDefaultRoutePlanner(ProxySelector.getDefault());
@@ -0,0 +1,78 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package davmail.http.request;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.jackrabbit.webdav.DavConstants;
+import org.apache.jackrabbit.webdav.client.methods.BaseDavRequest;
+import org.apache.jackrabbit.webdav.client.methods.XmlEntity;
+import org.apache.jackrabbit.webdav.property.PropEntry;
+import org.apache.jackrabbit.webdav.property.ProppatchInfo;
+import org.apache.jackrabbit.webdav.xml.DomUtil;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Exchange BPROPPATCH method.
+ * Apply the same property updates to several resources of a folder in a single request.
+ */
+public class HttpBatchProppatch extends BaseDavRequest {
+
+    /**
+     * Create BPROPPATCH method.
+     *
+     * @param folderUri  encoded folder uri
+     * @param hrefs      encoded resource names relative to folder
+     * @param changeList property updates
+     * @throws IOException on error
+     */
+    public HttpBatchProppatch(String folderUri, List<String> hrefs, List<? extends PropEntry> changeList) throws IOException {
+        super(URI.create(folderUri));
+        try {
+            Document document = DomUtil.createDocument();
+            Element propertyUpdate = new ProppatchInfo(changeList).toXml(document);
+            Element target = DomUtil.createElement(document, "target", DavConstants.NAMESPACE);
+            for (String href : hrefs) {
+                DomUtil.addChildElement(target, DavConstants.XML_HREF, DavConstants.NAMESPACE, href);
+            }
+            propertyUpdate.insertBefore(target, propertyUpdate.getFirstChild());
+            document.appendChild(propertyUpdate);
+            setEntity(XmlEntity.create(document));
+        } catch (ParserConfigurationException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getMethod() {
+        return "BPROPPATCH";
+    }
+
+    @Override
+    public boolean succeeded(HttpResponse response) {
+        return response.getStatusLine().getStatusCode() == HttpStatus.SC_MULTI_STATUS;
+    }
+}
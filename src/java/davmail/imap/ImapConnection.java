@@ -31,10 +31,13 @@ import davmail.exception.InsufficientStorageException;
 import davmail.exchange.ExchangeSession;
 import davmail.exchange.ExchangeSessionFactory;
 import davmail.exchange.FolderLoadThread;
+import davmail.exchange.MessageIndex;
 import davmail.exchange.MessageCreateThread;
 import davmail.exchange.MessageLoadThread;
+import davmail.exchange.MessagePrefetcher;
 import davmail.ui.tray.DavGatewayTray;
 import davmail.util.IOUtil;
+import davmail.util.SpoolOutputStream;
 import davmail.util.StringUtil;
 import org.apache.http.client.HttpResponseException;
 import org.apache.log4j.Logger;
@@ -67,9 +70,22 @@ import java.util.*;
  */
 public class ImapConnection extends AbstractConnection {
     private static final Logger LOGGER = Logger.getLogger(ImapConnection.class);
+    /**
+     * Maximum age in milliseconds of a batched folder status snapshot.
+     */
+    static final long STATUS_SNAPSHOT_TIMEOUT = 5000;
 
     protected String baseMailboxPath;
     ExchangeSession.Folder currentFolder;
+    /**
+     * Folders returned by LIST and LSUB, status counters are retrieved in batch.
+     */
+    protected final Set<String> listedFolderPaths = new LinkedHashSet<>();
+    /**
+     * Folder status snapshot for the current sequence of STATUS commands.
+     */
+    protected Map<String, ExchangeSession.Folder> statusFolders;
+    protected long statusFoldersTime;
 
     /**
      * Initialize the streams and start the thread.
@@ -85,9 +101,9 @@ public class ImapConnection extends AbstractConnection {
         final String capabilities;
         int imapIdleDelay = Settings.getIntProperty("davmail.imapIdleDelay") * 60;
         if (imapIdleDelay > 0) {
-            capabilities = "CAPABILITY IMAP4REV1 AUTH=LOGIN IDLE MOVE SPECIAL-USE";
+            capabilities = "CAPABILITY IMAP4REV1 AUTH=LOGIN IDLE MOVE SPECIAL-USE LIST-STATUS";
         } else {
-            capabilities = "CAPABILITY IMAP4REV1 AUTH=LOGIN MOVE SPECIAL-USE";
+            capabilities = "CAPABILITY IMAP4REV1 AUTH=LOGIN MOVE SPECIAL-USE LIST-STATUS";
         }
 
         String line;
@@ -111,6 +127,10 @@ public class ImapConnection extends AbstractConnection {
 
                     if (tokens.hasMoreTokens()) {
                         String command = tokens.nextToken();
+                        if (!"STATUS".equalsIgnoreCase(command)) {
+                            // status snapshot is only valid within a sequence of STATUS commands
+                            statusFolders = null;
+                        }
 
                         if ("LOGOUT".equalsIgnoreCase(command)) {
                             sendClient("* BYE Closing connection");
@@ -125,7 +145,7 @@ public class ImapConnection extends AbstractConnection {
                             // detect shared mailbox access
                             splitUserName();
                             try {
-                                session = ExchangeSessionFactory.getInstance(userName, password);
+                                setSession(ExchangeSessionFactory.getInstance(userName, password));
                                 logConnection("LOGON", userName);
                                 sendClient(commandId + " OK Authenticated");
                                 state = State.AUTHENTICATED;
@@ -152,7 +172,7 @@ public class ImapConnection extends AbstractConnection {
                                         sendClient("+ " + IOUtil.encodeBase64AsString("Password:"));
                                         state = State.PASSWORD;
                                         password = IOUtil.decodeBase64AsString(readClient());
-                                        session = ExchangeSessionFactory.getInstance(userName, password);
+                                        setSession(ExchangeSessionFactory.getInstance(userName, password));
                                         logConnection("LOGON", userName);
                                         sendClient(commandId + " OK Authenticated");
                                         state = State.AUTHENTICATED;
@@ -173,19 +193,20 @@ public class ImapConnection extends AbstractConnection {
                                 sendClient(commandId + " BAD command authentication required");
                             } else {
                                 // check for expired session
-                                session = ExchangeSessionFactory.getInstance(session, userName, password);
+                                setSession(ExchangeSessionFactory.getInstance(session, userName, password));
                                 if ("lsub".equalsIgnoreCase(command) || "list".equalsIgnoreCase(command)) {
                                     if (tokens.hasMoreTokens()) {
                                         String folderContext = buildFolderContext(tokens.nextToken());
                                         if (tokens.hasMoreTokens()) {
                                             String folderQuery = folderContext + decodeFolderPath(tokens.nextToken());
                                             String returnOption = getReturnOption(tokens);
-                                            boolean specialOnly = "SPECIAL-USE".equalsIgnoreCase(returnOption);
+                                            boolean specialOnly = hasReturnOption(returnOption, "SPECIAL-USE");
+                                            String statusItems = getStatusReturnOption(returnOption);
                                             if (folderQuery.endsWith("%/%") && !"/%/%".equals(folderQuery)) {
                                                 List<ExchangeSession.Folder> folders = session.getSubFolders(folderQuery.substring(0, folderQuery.length() - 3), false, false);
                                                 for (ExchangeSession.Folder folder : folders) {
-                                                    sendClient("* " + command + " (" + folder.getFlags() + ") \"/\" \"" + encodeFolderPath(folder.folderPath) + '\"');
-                                                    sendSubFolders(command, folder.folderPath, false, false, specialOnly);
+                                                    sendListResponse(command, folder, statusItems);
+                                                    sendSubFolders(command, folder.folderPath, false, false, specialOnly, statusItems);
                                                 }
                                                 sendClient(commandId + " OK " + command + " completed");
                                             } else if (folderQuery.endsWith("%") || folderQuery.endsWith("*")) {
@@ -201,7 +222,7 @@ public class ImapConnection extends AbstractConnection {
                                                 }
                                                 boolean wildcard = folderQuery.endsWith("%") && !folderQuery.contains("/") && !folderQuery.equals("%");
                                                 boolean recursive = folderQuery.endsWith("*");
-                                                sendSubFolders(command, folderQuery.substring(0, folderQuery.length() - 1), recursive, wildcard, specialOnly);
+                                                sendSubFolders(command, folderQuery.substring(0, folderQuery.length() - 1), recursive, wildcard, specialOnly, statusItems);
                                                 sendClient(commandId + " OK " + command + " completed");
                                             } else {
                                                 ExchangeSession.Folder folder = null;
@@ -218,7 +239,7 @@ public class ImapConnection extends AbstractConnection {
                                                     DavGatewayTray.debug(new BundleMessage("LOG_FOLDER_ACCESS_ERROR", folderQuery, e.getMessage()));
                                                 }
                                                 if (folder != null) {
-                                                    sendClient("* " + command + " (" + folder.getFlags() + ") \"/\" \"" + encodeFolderPath(folder.folderPath) + '\"');
+                                                    sendListResponse(command, folder, statusItems);
                                                     sendClient(commandId + " OK " + command + " completed");
                                                 } else {
                                                     sendClient(commandId + " NO Folder not found");
@@ -296,6 +317,7 @@ public class ImapConnection extends AbstractConnection {
                                     String targetName = decodeFolderPath(tokens.nextToken());
                                     try {
                                         session.moveFolder(folderName, targetName);
+                                        listedFolderPaths.clear();
                                         sendClient(commandId + " OK rename completed");
                                     } catch (HttpResponseException e) {
                                         sendClient(commandId + " NO " + e.getMessage());
@@ -304,6 +326,7 @@ public class ImapConnection extends AbstractConnection {
                                     String folderName = decodeFolderPath(tokens.nextToken());
                                     try {
                                         session.deleteFolder(folderName);
+                                        listedFolderPaths.clear();
                                         sendClient(commandId + " OK folder deleted");
                                     } catch (HttpResponseException e) {
                                         sendClient(commandId + " NO " + e.getMessage());
@@ -323,22 +346,7 @@ public class ImapConnection extends AbstractConnection {
                                                     if (tokens.hasMoreTokens()) {
                                                         parameters = tokens.nextToken();
                                                     }
-                                                    UIDRangeIterator uidRangeIterator = new UIDRangeIterator(currentFolder.messages, ranges);
-                                                    while (uidRangeIterator.hasNext()) {
-                                                        DavGatewayTray.switchIcon();
-                                                        ExchangeSession.Message message = uidRangeIterator.next();
-                                                        try {
-                                                            handleFetch(message, uidRangeIterator.currentIndex, parameters);
-                                                        } catch (HttpNotFoundException e) {
-                                                            LOGGER.warn("Ignore missing message " + uidRangeIterator.currentIndex);
-                                                        } catch (SocketException e) {
-                                                            // client closed connection
-                                                            throw e;
-                                                        } catch (IOException e) {
-                                                            DavGatewayTray.log(e);
-                                                            LOGGER.warn("Ignore broken message " + uidRangeIterator.currentIndex + ' ' + e.getMessage());
-                                                        }
-                                                    }
+                                                    handleFetchRange(new UIDRangeIterator(currentFolder, ranges), parameters);
                                                     sendClient(commandId + " OK UID FETCH completed");
                                                 }
                                             }
@@ -354,13 +362,13 @@ public class ImapConnection extends AbstractConnection {
                                             sendClient(commandId + " OK SEARCH completed");
 
                                         } else if ("store".equalsIgnoreCase(subcommand)) {
-                                            UIDRangeIterator uidRangeIterator = new UIDRangeIterator(currentFolder.messages, tokens.nextToken());
+                                            UIDRangeIterator uidRangeIterator = new UIDRangeIterator(currentFolder, tokens.nextToken());
                                             String action = tokens.nextToken();
                                             String flags = tokens.nextToken();
                                             handleStore(commandId, uidRangeIterator, action, flags);
                                         } else if ("copy".equalsIgnoreCase(subcommand) || "move".equalsIgnoreCase(subcommand)) {
                                             try {
-                                                UIDRangeIterator uidRangeIterator = new UIDRangeIterator(currentFolder.messages, tokens.nextToken());
+                                                UIDRangeIterator uidRangeIterator = new UIDRangeIterator(currentFolder, tokens.nextToken());
                                                 String targetName = buildFolderContext(tokens.nextToken());
                                                 if (!uidRangeIterator.hasNext()) {
                                                     sendClient(commandId + " NO " + "No message found");
@@ -415,22 +423,7 @@ public class ImapConnection extends AbstractConnection {
                                         if (tokens.hasMoreTokens()) {
                                             parameters = tokens.nextToken();
                                         }
-                                        while (rangeIterator.hasNext()) {
-                                            DavGatewayTray.switchIcon();
-                                            ExchangeSession.Message message = rangeIterator.next();
-                                            try {
-                                                handleFetch(message, rangeIterator.currentIndex, parameters);
-                                            } catch (HttpNotFoundException e) {
-                                                LOGGER.warn("Ignore missing message " + rangeIterator.currentIndex);
-                                            } catch (SocketException e) {
-                                                // client closed connection, rethrow exception
-                                                throw e;
-                                            } catch (IOException e) {
-                                                DavGatewayTray.log(e);
-                                                LOGGER.warn("Ignore broken message " + rangeIterator.currentIndex + ' ' + e.getMessage());
-                                            }
-
-                                        }
+                                        handleFetchRange(rangeIterator, parameters);
                                         sendClient(commandId + " OK FETCH completed");
                                     }
 
@@ -557,27 +550,35 @@ public class ImapConnection extends AbstractConnection {
                                         currentFolder.clearCache();
                                         DavGatewayTray.resetIcon();
                                         int originalTimeout = client.getSoTimeout();
+                                        // use session change notifications when available, fall back to polling
+                                        session.watchFolder(currentFolder);
+                                        IdleInputThread idleInputThread = new IdleInputThread(in, currentFolder);
                                         try {
-                                            int count = 0;
-                                            client.setSoTimeout(1000);
-                                            while (in.available() == 0) {
-                                                if (++count >= imapIdleDelay) {
-                                                    count = 0;
-                                                    TreeMap<Long, String> previousImapFlagMap = currentFolder.getImapFlagMap();
+                                            // input thread wakes up connection thread on client input, notifications on folder changes
+                                            client.setSoTimeout(0);
+                                            idleInputThread.start();
+                                            long pollDelay = imapIdleDelay * 1000L;
+                                            long nextPoll = System.currentTimeMillis() + pollDelay;
+                                            while (!idleInputThread.done) {
+                                                boolean changed = currentFolder.waitForChange(Math.max(1, nextPoll - System.currentTimeMillis()));
+                                                long now = System.currentTimeMillis();
+                                                if (idleInputThread.done) {
+                                                    break;
+                                                }
+                                                if (changed || (!currentFolder.watched && now >= nextPoll)) {
+                                                    MessageIndex previousMessageIndex = currentFolder.getMessageIndex();
                                                     if (session.refreshFolder(currentFolder)) {
-                                                        handleRefresh(previousImapFlagMap, currentFolder.getImapFlagMap());
+                                                        handleRefresh(previousMessageIndex, currentFolder.getMessageIndex());
                                                     }
                                                 }
-                                                // wait for input 1 second
-                                                try {
-                                                    byte[] byteBuffer = new byte[1];
-                                                    if (in.read(byteBuffer) > 0) {
-                                                        in.unread(byteBuffer);
-                                                    }
-                                                } catch (SocketTimeoutException e) {
-                                                    // ignore, read timed out
+                                                if (now >= nextPoll) {
+                                                    nextPoll = now + pollDelay;
                                                 }
                                             }
+                                            idleInputThread.join();
+                                            if (idleInputThread.exception != null) {
+                                                throw idleInputThread.exception;
+                                            }
                                             // read DONE line
                                             line = readClient();
                                             if ("DONE".equals(line)) {
@@ -589,6 +590,7 @@ public class ImapConnection extends AbstractConnection {
                                             // client connection closed
                                             throw new SocketException(e.getMessage());
                                         } finally {
+                                            session.unwatchFolder(currentFolder);
                                             client.setSoTimeout(originalTimeout);
                                         }
                                     } else {
@@ -597,9 +599,9 @@ public class ImapConnection extends AbstractConnection {
                                 } else if ("noop".equalsIgnoreCase(command) || "check".equalsIgnoreCase(command)) {
                                     if (currentFolder != null) {
                                         DavGatewayTray.debug(new BundleMessage("LOG_IMAP_COMMAND", command, currentFolder.folderPath));
-                                        TreeMap<Long, String> previousImapFlagMap = currentFolder.getImapFlagMap();
+                                        MessageIndex previousMessageIndex = currentFolder.getMessageIndex();
                                         if (session.refreshFolder(currentFolder)) {
-                                            handleRefresh(previousImapFlagMap, currentFolder.getImapFlagMap());
+                                            handleRefresh(previousMessageIndex, currentFolder.getMessageIndex());
                                         }
                                     }
                                     sendClient(commandId + " OK " + command + " completed");
@@ -609,51 +611,24 @@ public class ImapConnection extends AbstractConnection {
                                     try {
                                         String encodedFolderName = tokens.nextToken();
                                         String folderName = decodeFolderPath(encodedFolderName);
-                                        ExchangeSession.Folder folder = session.getFolder(folderName);
-                                        // must retrieve messages
+                                        // answer from folder counters, load messages only if uidNext is not available
+                                        ExchangeSession.Folder folder = getStatusFolder(folderName);
 
-                                        // use folder.loadMessages() for small folders only
                                         LOGGER.debug("*");
                                         os.write('*');
-                                        if (folder.count() <= 500) {
-                                            // simple folder load
-                                            folder.loadMessages();
-                                        } else {
-                                            // load folder in a separate thread
-                                            FolderLoadThread.loadFolder(folder, os);
+                                        if (folder.count() > 0 && folder.getUidNext() <= 0) {
+                                            // use folder.loadMessages() for small folders only
+                                            if (folder.count() <= 500) {
+                                                // simple folder load
+                                                folder.loadMessages();
+                                            } else {
+                                                // load folder in a separate thread
+                                                FolderLoadThread.loadFolder(folder, os);
+                                            }
                                         }
 
                                         String parameters = tokens.nextToken();
-                                        StringBuilder answer = new StringBuilder();
-                                        ImapTokenizer parametersTokens = new ImapTokenizer(parameters);
-                                        while (parametersTokens.hasMoreTokens()) {
-                                            String token = parametersTokens.nextToken();
-                                            if ("MESSAGES".equalsIgnoreCase(token)) {
-                                                answer.append("MESSAGES ").append(folder.count()).append(' ');
-                                            }
-                                            if ("RECENT".equalsIgnoreCase(token)) {
-                                                answer.append("RECENT ").append(folder.recent).append(' ');
-                                            }
-                                            if ("UIDNEXT".equalsIgnoreCase(token)) {
-                                                if (folder.count() == 0) {
-                                                    answer.append("UIDNEXT 1 ");
-                                                } else {
-                                                    if (folder.count() == 0) {
-                                                        answer.append("UIDNEXT 1 ");
-                                                    } else {
-                                                        answer.append("UIDNEXT ").append(folder.getUidNext()).append(' ');
-                                                    }
-                                                }
-
-                                            }
-                                            if ("UIDVALIDITY".equalsIgnoreCase(token)) {
-                                                answer.append("UIDVALIDITY 1 ");
-                                            }
-                                            if ("UNSEEN".equalsIgnoreCase(token)) {
-                                                answer.append("UNSEEN ").append(folder.unreadCount).append(' ');
-                                            }
-                                        }
-                                        sendClient(" STATUS \"" + encodedFolderName + "\" (" + answer.toString().trim() + ')');
+                                        sendClient(" STATUS \"" + encodedFolderName + "\" (" + buildStatusAnswer(folder, parameters) + ')');
                                         sendClient(commandId + " OK " + command + " completed");
                                     } catch (HttpResponseException e) {
                                         sendClient(commandId + " NO folder not found");
@@ -710,6 +685,130 @@ public class ImapConnection extends AbstractConnection {
         return null;
     }
 
+    /**
+     * Check if LIST return options contain option.
+     *
+     * @param returnOption LIST return options
+     * @param option       option name
+     * @return true if option is present
+     */
+    static boolean hasReturnOption(String returnOption, String option) {
+        if (returnOption != null) {
+            ImapTokenizer returnTokens = new ImapTokenizer(returnOption);
+            while (returnTokens.hasMoreTokens()) {
+                if (option.equalsIgnoreCase(returnTokens.nextToken())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get requested status items from LIST-STATUS return option (RFC 5819).
+     *
+     * @param returnOption LIST return options
+     * @return status items or null if status is not requested
+     */
+    static String getStatusReturnOption(String returnOption) {
+        if (returnOption != null) {
+            ImapTokenizer returnTokens = new ImapTokenizer(returnOption);
+            while (returnTokens.hasMoreTokens()) {
+                if ("STATUS".equalsIgnoreCase(returnTokens.nextToken()) && returnTokens.hasMoreTokens()) {
+                    return returnTokens.nextToken();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check if status items need recent count or uidNext, not available from folder properties.
+     *
+     * @param statusItems requested status items
+     * @return true if RECENT or UIDNEXT is requested
+     */
+    static boolean needsFolderStatus(String statusItems) {
+        ImapTokenizer statusTokens = new ImapTokenizer(statusItems);
+        while (statusTokens.hasMoreTokens()) {
+            String token = statusTokens.nextToken();
+            if ("RECENT".equalsIgnoreCase(token) || "UIDNEXT".equalsIgnoreCase(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build STATUS response attributes.
+     *
+     * @param folder     folder with status counters
+     * @param parameters requested status items
+     * @return status attributes
+     */
+    static String buildStatusAnswer(ExchangeSession.Folder folder, String parameters) {
+        StringBuilder answer = new StringBuilder();
+        ImapTokenizer parametersTokens = new ImapTokenizer(parameters);
+        while (parametersTokens.hasMoreTokens()) {
+            String token = parametersTokens.nextToken();
+            if ("MESSAGES".equalsIgnoreCase(token)) {
+                answer.append("MESSAGES ").append(folder.count()).append(' ');
+            }
+            if ("RECENT".equalsIgnoreCase(token)) {
+                answer.append("RECENT ").append(folder.recent).append(' ');
+            }
+            if ("UIDNEXT".equalsIgnoreCase(token)) {
+                if (folder.count() == 0) {
+                    answer.append("UIDNEXT 1 ");
+                } else {
+                    answer.append("UIDNEXT ").append(folder.getUidNext()).append(' ');
+                }
+            }
+            if ("UIDVALIDITY".equalsIgnoreCase(token)) {
+                answer.append("UIDVALIDITY 1 ");
+            }
+            if ("UNSEEN".equalsIgnoreCase(token)) {
+                answer.append("UNSEEN ").append(folder.unreadCount).append(' ');
+            }
+        }
+        return answer.toString().trim();
+    }
+
+    /**
+     * Get folder status counters, on first STATUS of a sequence retrieve folder properties
+     * of all previously listed folders in batched requests.
+     * Snapshot is rebuilt once drained or older than a few seconds, polling clients get current counters.
+     * Recent count is computed only for the requested folder.
+     *
+     * @param folderName folder path
+     * @return folder with status counters
+     * @throws IOException on error
+     */
+    protected ExchangeSession.Folder getStatusFolder(String folderName) throws IOException {
+        ExchangeSession.Folder folder = null;
+        if (statusFolders != null && (statusFolders.isEmpty()
+                || System.currentTimeMillis() - statusFoldersTime > STATUS_SNAPSHOT_TIMEOUT)) {
+            statusFolders = null;
+        }
+        if (statusFolders == null && listedFolderPaths.size() > 1 && listedFolderPaths.contains(folderName)) {
+            statusFolders = new HashMap<>();
+            statusFoldersTime = System.currentTimeMillis();
+            for (ExchangeSession.Folder statusFolder : session.getFolders(new ArrayList<>(listedFolderPaths))) {
+                statusFolders.put(statusFolder.folderPath, statusFolder);
+            }
+        }
+        if (statusFolders != null) {
+            // each snapshot entry is used once, next STATUS on the same folder gets fresh counters
+            folder = statusFolders.remove(folderName);
+        }
+        if (folder == null) {
+            folder = session.getFolderStatus(folderName);
+        } else {
+            session.loadFolderStatus(folder);
+        }
+        return folder;
+    }
+
     protected String lastCommand;
     protected int lastCommandCount;
 
@@ -783,20 +882,25 @@ public class ImapConnection extends AbstractConnection {
     /**
      * Send expunge untagged response for removed IMAP message uids.
      *
-     * @param previousImapFlagMap uid map before refresh
-     * @param imapFlagMap         uid map after refresh
+     * @param previousMessageIndex message index before refresh
+     * @param messageIndex         message index after refresh
      * @throws IOException on error
      */
-    private void handleRefresh(TreeMap<Long, String> previousImapFlagMap, TreeMap<Long, String> imapFlagMap) throws IOException {
-        // send deleted message expunge notification
+    private void handleRefresh(MessageIndex previousMessageIndex, MessageIndex messageIndex) throws IOException {
+        // send deleted message expunge notification, both uid arrays are sorted
         int index = 1;
-        for (long previousImapUid : previousImapFlagMap.keySet()) {
-            if (!imapFlagMap.containsKey(previousImapUid)) {
+        int currentIndex = 0;
+        for (int previousIndex = 0; previousIndex < previousMessageIndex.size(); previousIndex++) {
+            long previousImapUid = previousMessageIndex.getUid(previousIndex);
+            while (currentIndex < messageIndex.size() && messageIndex.getUid(currentIndex) < previousImapUid) {
+                currentIndex++;
+            }
+            if (currentIndex >= messageIndex.size() || messageIndex.getUid(currentIndex) != previousImapUid) {
                 sendClient("* " + index + " EXPUNGE");
             } else {
                 // send updated flags
-                if (!previousImapFlagMap.get(previousImapUid).equals(imapFlagMap.get(previousImapUid))) {
-                    sendClient("* " + index + " FETCH (UID " + previousImapUid + " FLAGS (" + imapFlagMap.get(previousImapUid) + "))");
+                if (!previousMessageIndex.hasSameFlags(previousIndex, messageIndex, currentIndex)) {
+                    sendClient("* " + index + " FETCH (UID " + previousImapUid + " FLAGS (" + messageIndex.getMessage(currentIndex).getImapFlags() + "))");
                 }
                 index++;
             }
@@ -857,6 +961,69 @@ public class ImapConnection extends AbstractConnection {
     }
 
 
+    /**
+     * Fetch messages in range order, load upcoming messages ahead when full content is requested.
+     *
+     * @param rangeIterator message range
+     * @param parameters    fetch parameters
+     */
+    protected void handleFetchRange(AbstractRangeIterator rangeIterator, String parameters) throws IOException, MessagingException, InterruptedException {
+        List<ExchangeSession.Message> fetchMessages = new ArrayList<>();
+        List<Integer> fetchIndexes = new ArrayList<>();
+        while (rangeIterator.hasNext()) {
+            fetchMessages.add(rangeIterator.next());
+            fetchIndexes.add(rangeIterator.getCurrentIndex());
+        }
+        MessagePrefetcher messagePrefetcher = null;
+        if (fetchMessages.size() > 1 && isContentFetch(parameters)) {
+            messagePrefetcher = session.createMessagePrefetcher();
+        }
+        try {
+            for (int i = 0; i < fetchMessages.size(); i++) {
+                DavGatewayTray.switchIcon();
+                ExchangeSession.Message message = fetchMessages.get(i);
+                int currentIndex = fetchIndexes.get(i);
+                if (messagePrefetcher != null) {
+                    messagePrefetcher.await(message);
+                    messagePrefetcher.prefetch(fetchMessages.subList(i + 1, fetchMessages.size()));
+                }
+                try {
+                    handleFetch(message, currentIndex, parameters);
+                } catch (HttpNotFoundException e) {
+                    LOGGER.warn("Ignore missing message " + currentIndex);
+                } catch (SocketException e) {
+                    // client closed connection, rethrow exception
+                    throw e;
+                } catch (IOException e) {
+                    DavGatewayTray.log(e);
+                    LOGGER.warn("Ignore broken message " + currentIndex + ' ' + e.getMessage());
+                }
+            }
+        } finally {
+            if (messagePrefetcher != null) {
+                messagePrefetcher.cancel();
+            }
+        }
+    }
+
+    /**
+     * Check if fetch parameters need full message content, not only headers, flags or size.
+     *
+     * @param parameters fetch parameters
+     * @return true if message content is requested
+     */
+    static boolean isContentFetch(String parameters) {
+        if (parameters == null) {
+            return false;
+        }
+        String upperCaseParameters = parameters.toUpperCase();
+        return upperCaseParameters.contains("BODYSTRUCTURE")
+                || upperCaseParameters.contains("RFC822.TEXT")
+                || upperCaseParameters.matches(".*RFC822([^.].*)?")
+                // any body section except message header
+                || upperCaseParameters.matches(".*BODY(\\.PEEK)?\\[(?!HEADER).*");
+    }
+
     private void handleFetch(ExchangeSession.Message message, int currentIndex, String parameters) throws IOException, MessagingException, InterruptedException {
         StringBuilder buffer = new StringBuilder();
         MessageWrapper messageWrapper = new MessageWrapper(os, buffer, message);
@@ -923,109 +1090,115 @@ public class ImapConnection extends AbstractConnection {
                         }
                     }
 
-                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    InputStream partInputStream = null;
-                    OutputStream partOutputStream = null;
-
-                    // try to parse message part index
-                    String partIndexString = StringUtil.getToken(param, "[", "]");
-                    if ((partIndexString == null || partIndexString.length() == 0) && !"RFC822.HEADER".equals(param)) {
-                        // write message with headers
-                        partOutputStream = new PartialOutputStream(baos, startIndex, maxSize);
-                        partInputStream = messageWrapper.getRawInputStream();
-                    } else if ("TEXT".equals(partIndexString)) {
-                        // write message without headers
-                        partOutputStream = new PartOutputStream(baos, false, true, startIndex, maxSize);
-                        partInputStream = messageWrapper.getRawInputStream();
-                    } else if ("RFC822.HEADER".equals(param) || (partIndexString != null && partIndexString.startsWith("HEADER"))) {
-                        // Header requested fetch  headers
-                        String[] requestedHeaders = getRequestedHeaders(partIndexString);
-                        // OSX Lion special flags request
-                        if (requestedHeaders != null && requestedHeaders.length == 1 && "content-class".equals(requestedHeaders[0]) && message.contentClass != null) {
-                            baos.write("Content-class: ".getBytes(StandardCharsets.UTF_8));
-                            baos.write(message.contentClass.getBytes(StandardCharsets.UTF_8));
-                            baos.write(13);
-                            baos.write(10);
-                        } else if (requestedHeaders == null) {
-                            // load message and write all headers
-                            partOutputStream = new PartOutputStream(baos, true, false, startIndex, maxSize);
+                    // small parts stay in memory, large parts are spooled to a temporary file
+                    SpoolOutputStream partContent = new SpoolOutputStream(Settings.getIntProperty("davmail.imapFetchSpoolThreshold", 1024) * 1024);
+                    try {
+                        InputStream partInputStream = null;
+                        OutputStream partOutputStream = null;
+
+                        // try to parse message part index
+                        String partIndexString = StringUtil.getToken(param, "[", "]");
+                        if ((partIndexString == null || partIndexString.length() == 0) && !"RFC822.HEADER".equals(param)) {
+                            // write message with headers
+                            partOutputStream = new PartialOutputStream(partContent, startIndex, maxSize);
                             partInputStream = messageWrapper.getRawInputStream();
-                        } else {
-                            Enumeration headerEnumeration = messageWrapper.getMatchingHeaderLines(requestedHeaders);
-                            while (headerEnumeration.hasMoreElements()) {
-                                baos.write(((String) headerEnumeration.nextElement()).getBytes(StandardCharsets.UTF_8));
-                                baos.write(13);
-                                baos.write(10);
-                            }
-                        }
-                    } else if (partIndexString != null) {
-                        MimePart bodyPart = messageWrapper.getMimeMessage();
-                        String[] partIndexStrings = partIndexString.split("\\.");
-                        for (String subPartIndexString : partIndexStrings) {
-                            // ignore MIME subpart index, will return full part
-                            if ("MIME".equals(subPartIndexString)) {
-                                break;
-                            }
-                            int subPartIndex;
-                            // try to parse part index
-                            try {
-                                subPartIndex = Integer.parseInt(subPartIndexString);
-                            } catch (NumberFormatException e) {
-                                throw new DavMailException("EXCEPTION_INVALID_PARAMETER", param);
+                        } else if ("TEXT".equals(partIndexString)) {
+                            // write message without headers
+                            partOutputStream = new PartOutputStream(partContent, false, true, startIndex, maxSize);
+                            partInputStream = messageWrapper.getRawInputStream();
+                        } else if ("RFC822.HEADER".equals(param) || (partIndexString != null && partIndexString.startsWith("HEADER"))) {
+                            // Header requested fetch  headers
+                            String[] requestedHeaders = getRequestedHeaders(partIndexString);
+                            // OSX Lion special flags request
+                            if (requestedHeaders != null && requestedHeaders.length == 1 && "content-class".equals(requestedHeaders[0]) && message.contentClass != null) {
+                                partContent.write("Content-class: ".getBytes(StandardCharsets.UTF_8));
+                                partContent.write(message.contentClass.getBytes(StandardCharsets.UTF_8));
+                                partContent.write(13);
+                                partContent.write(10);
+                            } else if (requestedHeaders == null) {
+                                // load message and write all headers
+                                partOutputStream = new PartOutputStream(partContent, true, false, startIndex, maxSize);
+                                partInputStream = messageWrapper.getRawInputStream();
+                            } else {
+                                Enumeration headerEnumeration = messageWrapper.getMatchingHeaderLines(requestedHeaders);
+                                while (headerEnumeration.hasMoreElements()) {
+                                    partContent.write(((String) headerEnumeration.nextElement()).getBytes(StandardCharsets.UTF_8));
+                                    partContent.write(13);
+                                    partContent.write(10);
+                                }
                             }
+                        } else if (partIndexString != null) {
+                            MimePart bodyPart = messageWrapper.getMimeMessage();
+                            String[] partIndexStrings = partIndexString.split("\\.");
+                            for (String subPartIndexString : partIndexStrings) {
+                                // ignore MIME subpart index, will return full part
+                                if ("MIME".equals(subPartIndexString)) {
+                                    break;
+                                }
+                                int subPartIndex;
+                                // try to parse part index
+                                try {
+                                    subPartIndex = Integer.parseInt(subPartIndexString);
+                                } catch (NumberFormatException e) {
+                                    throw new DavMailException("EXCEPTION_INVALID_PARAMETER", param);
+                                }
 
-                            Object mimeBody = bodyPart.getContent();
-                            if (mimeBody instanceof MimeMultipart) {
-                                MimeMultipart multiPart = (MimeMultipart) mimeBody;
-                                if (subPartIndex - 1 < multiPart.getCount()) {
-                                    bodyPart = (MimePart) multiPart.getBodyPart(subPartIndex - 1);
-                                } else {
+                                Object mimeBody = bodyPart.getContent();
+                                if (mimeBody instanceof MimeMultipart) {
+                                    MimeMultipart multiPart = (MimeMultipart) mimeBody;
+                                    if (subPartIndex - 1 < multiPart.getCount()) {
+                                        bodyPart = (MimePart) multiPart.getBodyPart(subPartIndex - 1);
+                                    } else {
+                                        throw new DavMailException("EXCEPTION_INVALID_PARAMETER", param);
+                                    }
+                                } else if (subPartIndex != 1) {
                                     throw new DavMailException("EXCEPTION_INVALID_PARAMETER", param);
                                 }
-                            } else if (subPartIndex != 1) {
-                                throw new DavMailException("EXCEPTION_INVALID_PARAMETER", param);
                             }
-                        }
 
-                        // write selected part, without headers
-                        partOutputStream = new PartialOutputStream(baos, startIndex, maxSize);
-                        if (bodyPart instanceof MimeMessage) {
-                            partInputStream = ((MimeMessage) bodyPart).getRawInputStream();
-                        } else {
-                            partInputStream = ((MimeBodyPart) bodyPart).getRawInputStream();
+                            // write selected part, without headers
+                            partOutputStream = new PartialOutputStream(partContent, startIndex, maxSize);
+                            if (bodyPart instanceof MimeMessage) {
+                                partInputStream = ((MimeMessage) bodyPart).getRawInputStream();
+                            } else {
+                                partInputStream = ((MimeBodyPart) bodyPart).getRawInputStream();
+                            }
                         }
-                    }
 
-                    // copy selected content to baos
-                    if (partInputStream != null && partOutputStream != null) {
-                        IOUtil.write(partInputStream, partOutputStream);
-                        partInputStream.close();
-                        partOutputStream.close();
-                    }
-                    baos.close();
+                        // copy selected content to spool
+                        if (partInputStream != null && partOutputStream != null) {
+                            IOUtil.write(partInputStream, partOutputStream);
+                            partInputStream.close();
+                            partOutputStream.close();
+                        }
+                        partContent.close();
 
-                    if ("RFC822.HEADER".equals(param)) {
-                        buffer.append(" RFC822.HEADER");
-                    } else {
-                        buffer.append(" BODY[");
-                        if (partIndexString != null) {
-                            buffer.append(partIndexString);
+                        if ("RFC822.HEADER".equals(param)) {
+                            buffer.append(" RFC822.HEADER");
+                        } else {
+                            buffer.append(" BODY[");
+                            if (partIndexString != null) {
+                                buffer.append(partIndexString);
+                            }
+                            buffer.append(']');
                         }
-                        buffer.append(']');
-                    }
-                    // partial
-                    if (startIndex > 0 || maxSize != Integer.MAX_VALUE) {
-                        buffer.append('<').append(startIndex).append('>');
-                    }
-                    buffer.append(" {").append(baos.size()).append('}');
-                    sendClient(buffer.toString());
-                    // log content if less than 2K
-                    if (LOGGER.isDebugEnabled() && baos.size() < 2048) {
-                        LOGGER.debug(new String(baos.toByteArray(), StandardCharsets.UTF_8));
+                        // partial
+                        if (startIndex > 0 || maxSize != Integer.MAX_VALUE) {
+                            buffer.append('<').append(startIndex).append('>');
+                        }
+                        buffer.append(" {").append(partContent.size()).append('}');
+                        sendClient(buffer.toString());
+                        // log content if less than 2K
+                        if (LOGGER.isDebugEnabled() && partContent.size() < 2048) {
+                            LOGGER.debug(new String(partContent.toByteArray(), StandardCharsets.UTF_8));
+                        }
+                        // spooled content is sent from file without loading it in memory
+                        partContent.writeTo(os);
+                        os.flush();
+                        buffer.setLength(0);
+                    } finally {
+                        partContent.delete();
                     }
-                    os.write(baos.toByteArray());
-                    os.flush();
-                    buffer.setLength(0);
                 }
             }
         }
@@ -1050,12 +1223,27 @@ public class ImapConnection extends AbstractConnection {
     }
 
     protected void handleStore(String commandId, AbstractRangeIterator rangeIterator, String action, String flags) throws IOException {
+        int batchSize = session.getBatchSize();
+        // messages sharing the same property updates are sent to Exchange in a single request
+        Map<Map<String, String>, List<ExchangeSession.Message>> pendingUpdates = new LinkedHashMap<>();
+        Map<Integer, ExchangeSession.Message> pendingResponses = new LinkedHashMap<>();
+        // local flags before update, restored if Exchange did not update the message
+        Map<ExchangeSession.Message, FlagSnapshot> flagSnapshots = new IdentityHashMap<>();
         while (rangeIterator.hasNext()) {
             DavGatewayTray.switchIcon();
             ExchangeSession.Message message = rangeIterator.next();
-            updateFlags(message, action, flags);
-            sendClient("* " + (rangeIterator.getCurrentIndex()) + " FETCH (UID " + message.getImapUid() + " FLAGS (" + (message.getImapFlags()) + "))");
+            FlagSnapshot flagSnapshot = new FlagSnapshot(message);
+            HashMap<String, String> properties = buildFlagUpdates(message, action, flags);
+            if (!properties.isEmpty()) {
+                pendingUpdates.computeIfAbsent(properties, k -> new ArrayList<>()).add(message);
+                flagSnapshots.put(message, flagSnapshot);
+            }
+            pendingResponses.put(rangeIterator.getCurrentIndex(), message);
+            if (pendingResponses.size() >= batchSize) {
+                flushStore(pendingUpdates, pendingResponses, flagSnapshots);
+            }
         }
+        flushStore(pendingUpdates, pendingResponses, flagSnapshots);
         // auto expunge
         if (Settings.getBooleanProperty("davmail.imapAutoExpunge")) {
             if (expunge(false)) {
@@ -1065,6 +1253,39 @@ public class ImapConnection extends AbstractConnection {
         sendClient(commandId + " OK STORE completed");
     }
 
+    /**
+     * Send pending flag updates to Exchange, then untagged FETCH responses in sequence order.
+     *
+     * @param pendingUpdates   messages grouped by property updates
+     * @param pendingResponses messages by sequence number
+     * @param flagSnapshots    local flags before update by message
+     * @throws IOException on error
+     */
+    protected void flushStore(Map<Map<String, String>, List<ExchangeSession.Message>> pendingUpdates,
+                              Map<Integer, ExchangeSession.Message> pendingResponses,
+                              Map<ExchangeSession.Message, FlagSnapshot> flagSnapshots) throws IOException {
+        for (Map.Entry<Map<String, String>, List<ExchangeSession.Message>> entry : pendingUpdates.entrySet()) {
+            Set<ExchangeSession.Message> updatedMessages = Collections.newSetFromMap(new IdentityHashMap<>());
+            updatedMessages.addAll(session.updateMessages(entry.getValue(), entry.getKey()));
+            for (ExchangeSession.Message message : entry.getValue()) {
+                if (updatedMessages.contains(message)) {
+                    // message is no longer recent
+                    message.recent = false;
+                } else {
+                    // report actual flags to client
+                    flagSnapshots.get(message).restore(message);
+                }
+            }
+        }
+        flagSnapshots.clear();
+        for (Map.Entry<Integer, ExchangeSession.Message> entry : pendingResponses.entrySet()) {
+            ExchangeSession.Message message = entry.getValue();
+            sendClient("* " + entry.getKey() + " FETCH (UID " + message.getImapUid() + " FLAGS (" + (message.getImapFlags()) + "))");
+        }
+        pendingUpdates.clear();
+        pendingResponses.clear();
+    }
+
     protected ExchangeSession.Condition buildConditions(SearchConditions conditions, ImapTokenizer tokens) throws IOException {
         ExchangeSession.MultiCondition condition = null;
         while (tokens.hasMoreTokens()) {
@@ -1097,7 +1318,7 @@ public class ImapConnection extends AbstractConnection {
 
     protected List<Long> handleSearch(ImapTokenizer tokens) throws IOException {
         List<Long> uidList = new ArrayList<>();
-        List<Long> localMessagesUidList = null;
+        MessageIndex localMessageIndex = null;
         SearchConditions conditions = new SearchConditions();
         ExchangeSession.Condition condition = buildConditions(conditions, tokens);
         session.refreshFolder(currentFolder);
@@ -1108,11 +1329,8 @@ public class ImapConnection extends AbstractConnection {
         } else if (conditions.indexRange != null) {
             // range iterator is on folder messages, not messages returned from search
             iterator = new RangeIterator(currentFolder.messages, conditions.indexRange);
-            localMessagesUidList = new ArrayList<>();
-            // build search result uid list
-            for (ExchangeSession.Message message : localMessages) {
-                localMessagesUidList.add(message.getImapUid());
-            }
+            // build search result uid index
+            localMessageIndex = new MessageIndex(localMessages);
         } else {
             iterator = localMessages.iterator();
         }
@@ -1122,7 +1340,7 @@ public class ImapConnection extends AbstractConnection {
                     && (conditions.answered == null || message.answered == conditions.answered)
                     && (conditions.draft == null || message.draft == conditions.draft)
                     // range iterator: include messages available in search result
-                    && (localMessagesUidList == null || localMessagesUidList.contains(message.getImapUid()))
+                    && (localMessageIndex == null || localMessageIndex.contains(message.getImapUid()))
                     && isNotExcluded(conditions.notUidRange, message.getImapUid())) {
                 uidList.add(message.getImapUid());
             }
@@ -1412,12 +1630,20 @@ public class ImapConnection extends AbstractConnection {
         }
     }
 
-    protected void sendSubFolders(String command, String folderPath, boolean recursive, boolean wildcard, boolean specialOnly) throws IOException {
+    protected void sendSubFolders(String command, String folderPath, boolean recursive, boolean wildcard, boolean specialOnly, String statusItems) throws IOException {
         try {
             List<ExchangeSession.Folder> folders = session.getSubFolders(folderPath, recursive, wildcard);
+            if (recursive && statusItems != null) {
+                // recursive listing may come from folder tree cache, get current counters in batch
+                List<String> folderPaths = new ArrayList<>();
+                for (ExchangeSession.Folder folder : folders) {
+                    folderPaths.add(folder.folderPath);
+                }
+                folders = session.getFolders(folderPaths);
+            }
             for (ExchangeSession.Folder folder : folders) {
                 if (!specialOnly || folder.isSpecial()) {
-                    sendClient("* " + command + " (" + folder.getFlags() + ") \"/\" \"" + encodeFolderPath(folder.folderPath) + '\"');
+                    sendListResponse(command, folder, statusItems);
                 }
             }
         } catch (HttpForbiddenException e) {
@@ -1432,6 +1658,31 @@ public class ImapConnection extends AbstractConnection {
         }
     }
 
+    /**
+     * Send LIST or LSUB response for folder, followed by a STATUS response on LIST-STATUS.
+     * Status counters come from the folder properties already retrieved with the folder list,
+     * recent and uidNext are computed only when requested.
+     *
+     * @param command     LIST or LSUB
+     * @param folder      folder
+     * @param statusItems requested status items or null
+     * @throws IOException on error
+     */
+    protected void sendListResponse(String command, ExchangeSession.Folder folder, String statusItems) throws IOException {
+        String encodedFolderPath = encodeFolderPath(folder.folderPath);
+        sendClient("* " + command + " (" + folder.getFlags() + ") \"/\" \"" + encodedFolderPath + '\"');
+        listedFolderPaths.add(folder.folderPath);
+        if (statusItems != null) {
+            if (needsFolderStatus(statusItems)) {
+                session.loadFolderStatus(folder);
+                if (folder.count() > 0 && folder.getUidNext() <= 0) {
+                    folder.loadMessages();
+                }
+            }
+            sendClient("* STATUS \"" + encodedFolderPath + "\" (" + buildStatusAnswer(folder, statusItems) + ')');
+        }
+    }
+
     /**
      * client side search conditions
      */
@@ -1589,23 +1840,69 @@ public class ImapConnection extends AbstractConnection {
     protected boolean expunge(boolean silent) throws IOException {
         boolean hasDeleted = false;
         if (currentFolder.messages != null) {
+            int batchSize = session.getBatchSize();
+            // deleted messages by sequence number before expunge
+            Map<Integer, ExchangeSession.Message> pendingMessages = new LinkedHashMap<>();
+            int expungedCount = 0;
             int index = 1;
             for (ExchangeSession.Message message : currentFolder.messages) {
                 if (message.deleted) {
-                    message.delete();
-                    hasDeleted = true;
-                    if (!silent) {
-                        sendClient("* " + index + " EXPUNGE");
+                    pendingMessages.put(index, message);
+                    if (pendingMessages.size() >= batchSize) {
+                        expungedCount = expunge(pendingMessages, expungedCount, silent);
                     }
-                } else {
-                    index++;
                 }
+                index++;
             }
+            expungedCount = expunge(pendingMessages, expungedCount, silent);
+            hasDeleted = expungedCount > 0;
         }
         return hasDeleted;
     }
 
+    /**
+     * Delete pending messages and send EXPUNGE responses for messages actually deleted.
+     *
+     * @param pendingMessages messages by sequence number before expunge
+     * @param expungedCount   count of messages already expunged
+     * @param silent          do not send EXPUNGE responses
+     * @return updated expunged message count
+     * @throws IOException on error
+     */
+    protected int expunge(Map<Integer, ExchangeSession.Message> pendingMessages, int expungedCount, boolean silent) throws IOException {
+        if (!pendingMessages.isEmpty()) {
+            Set<ExchangeSession.Message> deletedMessages = new HashSet<>(session.deleteMessages(new ArrayList<>(pendingMessages.values())));
+            for (Map.Entry<Integer, ExchangeSession.Message> entry : pendingMessages.entrySet()) {
+                if (deletedMessages.contains(entry.getValue())) {
+                    if (!silent) {
+                        sendClient("* " + (entry.getKey() - expungedCount) + " EXPUNGE");
+                    }
+                    expungedCount++;
+                }
+            }
+            pendingMessages.clear();
+        }
+        return expungedCount;
+    }
+
     protected void updateFlags(ExchangeSession.Message message, String action, String flags) throws IOException {
+        HashMap<String, String> properties = buildFlagUpdates(message, action, flags);
+        if (!properties.isEmpty()) {
+            session.updateMessage(message, properties);
+            // message is no longer recent
+            message.recent = false;
+        }
+    }
+
+    /**
+     * Apply IMAP flag changes to message and build matching Exchange property updates.
+     *
+     * @param message IMAP message
+     * @param action  STORE action
+     * @param flags   IMAP flag list
+     * @return property updates, empty if flags are unchanged
+     */
+    protected HashMap<String, String> buildFlagUpdates(ExchangeSession.Message message, String action, String flags) {
         HashMap<String, String> properties = new HashMap<>();
         if ("-Flags".equalsIgnoreCase(action) || "-FLAGS.SILENT".equalsIgnoreCase(action)) {
             ImapTokenizer flagtokenizer = new ImapTokenizer(flags);
@@ -1778,11 +2075,7 @@ public class ImapConnection extends AbstractConnection {
                 }
             }
         }
-        if (!properties.isEmpty()) {
-            session.updateMessage(message, properties);
-            // message is no longer recent
-            message.recent = false;
-        }
+        return properties;
     }
 
     /**
@@ -1809,6 +2102,72 @@ public class ImapConnection extends AbstractConnection {
         }
     }
 
+    /**
+     * Wait for client input during IDLE and wake up connection thread waiting on folder changes.
+     */
+    /**
+     * Local message flags saved before a STORE update.
+     */
+    static final class FlagSnapshot {
+        private final boolean read;
+        private final boolean deleted;
+        private final boolean junk;
+        private final boolean flagged;
+        private final boolean answered;
+        private final boolean forwarded;
+        private final String keywords;
+
+        FlagSnapshot(ExchangeSession.Message message) {
+            read = message.read;
+            deleted = message.deleted;
+            junk = message.junk;
+            flagged = message.flagged;
+            answered = message.answered;
+            forwarded = message.forwarded;
+            keywords = message.keywords;
+        }
+
+        void restore(ExchangeSession.Message message) {
+            message.read = read;
+            message.deleted = deleted;
+            message.junk = junk;
+            message.flagged = flagged;
+            message.answered = answered;
+            message.forwarded = forwarded;
+            message.keywords = keywords;
+        }
+    }
+
+    private static final class IdleInputThread extends Thread {
+        private final LineReaderInputStream in;
+        private final ExchangeSession.Folder folder;
+        private volatile boolean done;
+        private IOException exception;
+
+        private IdleInputThread(LineReaderInputStream in, ExchangeSession.Folder folder) {
+            super(Thread.currentThread().getName() + "-Idle");
+            setDaemon(true);
+            this.in = in;
+            this.folder = folder;
+        }
+
+        @Override
+        public void run() {
+            try {
+                int b = in.read();
+                if (b >= 0) {
+                    // leave input to connection thread
+                    in.unread(b);
+                }
+            } catch (IOException e) {
+                exception = e;
+            } finally {
+                done = true;
+                folder.wakeUp();
+            }
+        }
+    }
+
     /**
      * Filter to output only headers, also count full size
      */
@@ -1905,12 +2264,22 @@ public class ImapConnection extends AbstractConnection {
 
     protected static class UIDRangeIterator extends AbstractRangeIterator {
         final String[] ranges;
+        final MessageIndex messageIndex;
         int currentRangeIndex;
         long startUid;
         long endUid;
 
         protected UIDRangeIterator(ExchangeSession.MessageList messages, String value) {
+            this(messages, new MessageIndex(messages), value);
+        }
+
+        protected UIDRangeIterator(ExchangeSession.Folder folder, String value) {
+            this(folder.messages, folder.getUidIndex(), value);
+        }
+
+        private UIDRangeIterator(ExchangeSession.MessageList messages, MessageIndex messageIndex, String value) {
             this.messages = messages;
+            this.messageIndex = messageIndex;
             ranges = value.split(",");
         }
 
@@ -1935,20 +2304,18 @@ public class ImapConnection extends AbstractConnection {
                         startUid = swap;
                     }
                 } else if ("*".equals(currentRange)) {
-                    startUid = endUid = messages.get(messages.size() - 1).getImapUid();
+                    startUid = endUid = messageIndex.getUid(messageIndex.size() - 1);
                 } else {
                     startUid = endUid = convertToLong(currentRange);
                 }
-                while (currentIndex < messages.size() && messages.get(currentIndex).getImapUid() < startUid) {
-                    currentIndex++;
-                }
+                currentIndex = Math.max(currentIndex, messageIndex.lowerBound(startUid));
             } else {
                 currentIndex = messages.size();
             }
         }
 
         protected boolean hasNextInRange() {
-            return hasNextIndex() && messages.get(currentIndex).getImapUid() <= endUid;
+            return hasNextIndex() && messageIndex.getUid(currentIndex) <= endUid;
         }
 
         protected boolean hasNextIndex() {
@@ -2022,8 +2389,8 @@ public class ImapConnection extends AbstractConnection {
                 } else {
                     startUid = endUid = convertToLong(currentRange);
                 }
-                while (currentIndex < messages.size() && (currentIndex + 1) < startUid) {
-                    currentIndex++;
+                if (currentIndex + 1 < startUid) {
+                    currentIndex = (int) Math.min(messages.size(), startUid - 1);
                 }
             } else {
                 currentIndex = messages.size();
@@ -562,7 +562,7 @@ public class LdapConnection extends AbstractConnection {
 
                         DavGatewayTray.debug(new BundleMessage("LOG_LDAP_REQ_BIND_USER", currentMessageId, userName));
                         try {
-                            session = ExchangeSessionFactory.getInstance(userName, password);
+                            setSession(ExchangeSessionFactory.getInstance(userName, password));
                             logConnection("LOGON", userName);
                             DavGatewayTray.debug(new BundleMessage("LOG_LDAP_REQ_BIND_SUCCESS"));
                         } catch (IOException e) {
@@ -604,7 +604,7 @@ public class LdapConnection extends AbstractConnection {
                     if (userName.length() > 0 && password.length() > 0) {
                         DavGatewayTray.debug(new BundleMessage("LOG_LDAP_REQ_BIND_USER", currentMessageId, userName));
                         try {
-                            session = ExchangeSessionFactory.getInstance(userName, password);
+                            setSession(ExchangeSessionFactory.getInstance(userName, password));
                             logConnection("LOGON", userName);
                             DavGatewayTray.debug(new BundleMessage("LOG_LDAP_REQ_BIND_SUCCESS"));
                             sendClient(currentMessageId, LDAP_REP_BIND, LDAP_SUCCESS, "");
@@ -623,7 +623,7 @@ public class LdapConnection extends AbstractConnection {
             } else if (requestOperation == LDAP_REQ_UNBIND) {
                 DavGatewayTray.debug(new BundleMessage("LOG_LDAP_REQ_UNBIND", currentMessageId));
                 if (session != null) {
-                    session = null;
+                    setSession(null);
                 }
             } else if (requestOperation == LDAP_REQ_SEARCH) {
                 reqBer.parseSeq(null);
@@ -1491,19 +1491,18 @@ public class LdapConnection extends AbstractConnection {
                                     break;
                                 }
                             }
-                            // full search
-                            for (char c = 'A'; c <= 'Z'; c++) {
-                                if (!abandon && persons.size() < sizeLimit) {
-                                    for (ExchangeSession.Contact person : session.galFind(session.startsWith("cn", String.valueOf(c)),
-                                            convertLdapToContactReturningAttributes(returningAttributes), sizeLimit).values()) {
-                                        persons.put(person.get("uid"), person);
-                                        if (persons.size() == sizeLimit) {
-                                            break;
-                                        }
-                                    }
+                            // full search, single OR condition lets the session run initials concurrently
+                            if (!abandon && persons.size() < sizeLimit) {
+                                ExchangeSession.Condition[] initials = new ExchangeSession.Condition[26];
+                                for (char c = 'A'; c <= 'Z'; c++) {
+                                    initials[c - 'A'] = session.startsWith("cn", String.valueOf(c));
                                 }
-                                if (persons.size() == sizeLimit) {
-                                    break;
+                                for (ExchangeSession.Contact person : session.galFind(session.or(initials),
+                                        convertLdapToContactReturningAttributes(returningAttributes), sizeLimit).values()) {
+                                    persons.put(person.get("uid"), person);
+                                    if (persons.size() == sizeLimit) {
+                                        break;
+                                    }
                                 }
                             }
                         } else {
@@ -26,6 +26,7 @@ import davmail.exchange.DoubleDotOutputStream;
 import davmail.exchange.ExchangeSession;
 import davmail.exchange.ExchangeSessionFactory;
 import davmail.exchange.MessageLoadThread;
+import davmail.exchange.MessagePrefetcher;
 import davmail.ui.tray.DavGatewayTray;
 import davmail.util.IOUtil;
 import org.apache.log4j.Logger;
@@ -47,6 +48,8 @@ public class PopConnection extends AbstractConnection {
     private static final Logger LOGGER = Logger.getLogger(PopConnection.class);
 
     private List<ExchangeSession.Message> messages;
+    private MessagePrefetcher messagePrefetcher;
+    private int lastMessageIndex = -1;
 
     /**
      * Initialize the streams and start the thread.
@@ -65,6 +68,28 @@ public class PopConnection extends AbstractConnection {
         return result;
     }
 
+    /**
+     * Wait for prefetched message, on sequential RETR or TOP load following messages ahead.
+     *
+     * @param messageIndex requested message index
+     * @throws InterruptedException on interrupt
+     */
+    protected void prefetchMessages(int messageIndex) throws InterruptedException {
+        if (messagePrefetcher != null) {
+            messagePrefetcher.await(messages.get(messageIndex));
+        }
+        if (messageIndex == lastMessageIndex + 1 && lastMessageIndex >= 0) {
+            if (messagePrefetcher == null) {
+                messagePrefetcher = session.createMessagePrefetcher();
+            }
+            messagePrefetcher.prefetch(messages.subList(messageIndex + 1, messages.size()));
+        } else if (messagePrefetcher != null) {
+            // random access, drop read-ahead
+            messagePrefetcher.cancel();
+        }
+        lastMessageIndex = messageIndex;
+    }
+
     protected void printCapabilities() throws IOException {
         sendClient("TOP");
         sendClient("USER");
@@ -119,7 +144,7 @@ public class PopConnection extends AbstractConnection {
                     } else if ("USER".equalsIgnoreCase(command)) {
                         userName = null;
                         password = null;
-                        session = null;
+                        setSession(null);
                         if (tokens.hasMoreTokens()) {
                             userName = line.substring("USER ".length());
                             sendOK("USER : " + userName);
@@ -138,7 +163,7 @@ public class PopConnection extends AbstractConnection {
                             // bug 2194492 : allow space in password
                             password = line.substring("PASS".length() + 1);
                             try {
-                                session = ExchangeSessionFactory.getInstance(userName, password);
+                                setSession(ExchangeSessionFactory.getInstance(userName, password));
                                 logConnection("LOGON", userName);
                                 sendOK("PASS");
                                 state = State.AUTHENTICATED;
@@ -202,6 +227,7 @@ public class PopConnection extends AbstractConnection {
                                 try {
                                     int messageNumber = Integer.parseInt(tokens.nextToken()) - 1;
                                     ExchangeSession.Message message = messages.get(messageNumber);
+                                    prefetchMessages(messageNumber);
 
                                     // load big messages in a separate thread
                                     os.write("+OK ".getBytes(StandardCharsets.US_ASCII));
@@ -245,6 +271,7 @@ public class PopConnection extends AbstractConnection {
                                 message = Integer.parseInt(tokens.nextToken());
                                 int lines = Integer.parseInt(tokens.nextToken());
                                 ExchangeSession.Message m = messages.get(message - 1);
+                                prefetchMessages(message - 1);
                                 sendOK("");
                                 DoubleDotOutputStream doubleDotOutputStream = new DoubleDotOutputStream(os);
                                 IOUtil.write(m.getRawInputStream(), new TopOutputStream(doubleDotOutputStream, lines));
@@ -280,6 +307,9 @@ public class PopConnection extends AbstractConnection {
                 DavGatewayTray.debug(new BundleMessage("LOG_EXCEPTION_SENDING_ERROR_TO_CLIENT"), e2);
             }
         } finally {
+            if (messagePrefetcher != null) {
+                messagePrefetcher.cancel();
+            }
             close();
         }
         DavGatewayTray.resetIcon();
@@ -226,7 +226,7 @@ public class SmtpConnection extends AbstractConnection {
      */
     protected void authenticate() throws IOException {
         try {
-            session = ExchangeSessionFactory.getInstance(userName, password);
+            setSession(ExchangeSessionFactory.getInstance(userName, password));
             logConnection("LOGON", userName);
             sendClient("235 OK Authenticated");
             state = State.AUTHENTICATED;
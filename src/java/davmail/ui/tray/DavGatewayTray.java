@@ -90,6 +90,25 @@ public final class DavGatewayTray {
         return davGatewayTray == null || davGatewayTray.isActive();
     }
 
+    /**
+     * Check if tray notifications are enabled.
+     *
+     * @return true if messages are displayed in tray
+     */
+    private static boolean isNotificationEnabled() {
+        return davGatewayTray != null && !Settings.getBooleanProperty("davmail.disableGuiNotifications");
+    }
+
+    /**
+     * Check if debug messages are consumed by logger or tray,
+     * use on hot paths to avoid building messages that will be discarded.
+     *
+     * @return true if debug messages are logged or displayed
+     */
+    public static boolean isDebugEnabled() {
+        return LOGGER.isDebugEnabled() || isNotificationEnabled();
+    }
+
     /**
      * Log and display balloon message according to log level.
      *
@@ -97,8 +116,11 @@ public final class DavGatewayTray {
      * @param level   log level
      */
     private static void displayMessage(BundleMessage message, Level level) {
-        LOGGER.log(level, message.formatLog());
-        if (davGatewayTray != null && !Settings.getBooleanProperty("davmail.disableGuiNotifications")) {
+        // format message only if logged
+        if (LOGGER.isEnabledFor(level)) {
+            LOGGER.log(level, message.formatLog());
+        }
+        if (isNotificationEnabled()) {
             davGatewayTray.displayMessage(message.format(), level);
         }
     }
@@ -111,13 +133,14 @@ public final class DavGatewayTray {
      * @param level   log level
      */
     private static void displayMessage(BundleMessage message, Exception e, Level level) {
-        if (e instanceof NetworkDownException) {
-            LOGGER.log(level, BundleMessage.getExceptionLogMessage(message, e));
-        } else {
-            LOGGER.log(level, BundleMessage.getExceptionLogMessage(message, e), e);
+        if (LOGGER.isEnabledFor(level)) {
+            if (e instanceof NetworkDownException) {
+                LOGGER.log(level, BundleMessage.getExceptionLogMessage(message, e));
+            } else {
+                LOGGER.log(level, BundleMessage.getExceptionLogMessage(message, e), e);
+            }
         }
-        if (davGatewayTray != null && !Settings.getBooleanProperty("davmail.disableGuiNotifications")
-                && (!(e instanceof NetworkDownException))) {
+        if (isNotificationEnabled() && (!(e instanceof NetworkDownException))) {
             davGatewayTray.displayMessage(BundleMessage.getExceptionMessage(message, e), level);
         }
         if (davGatewayTray != null && e instanceof NetworkDownException) {
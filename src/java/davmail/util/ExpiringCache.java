@@ -0,0 +1,114 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size bounded LRU cache with entry time to live.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ExpiringCache<K, V> {
+    private static class CacheEntry<V> {
+        private final V value;
+        private final long timestamp;
+
+        private CacheEntry(V value) {
+            this.value = value;
+            this.timestamp = System.currentTimeMillis();
+        }
+    }
+
+    private final long timeToLive;
+    private final LinkedHashMap<K, CacheEntry<V>> map;
+
+    /**
+     * Create cache.
+     *
+     * @param maxSize    maximum entry count, least recently used entries are evicted first
+     * @param timeToLive entry time to live in milliseconds, 0 to disable cache
+     */
+    public ExpiringCache(final int maxSize, long timeToLive) {
+        this.timeToLive = timeToLive;
+        this.map = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get cached value.
+     *
+     * @param key key
+     * @return value or null if missing or expired
+     */
+    public synchronized V get(K key) {
+        CacheEntry<V> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.timestamp >= timeToLive) {
+            map.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Store value.
+     *
+     * @param key   key
+     * @param value value
+     */
+    public synchronized void put(K key, V value) {
+        if (timeToLive > 0 && value != null) {
+            map.put(key, new CacheEntry<>(value));
+        }
+    }
+
+    /**
+     * Remove value.
+     *
+     * @param key key
+     */
+    public synchronized void remove(K key) {
+        map.remove(key);
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    /**
+     * Current entry count, including expired entries not yet evicted.
+     *
+     * @return entry count
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+}
@@ -109,6 +109,37 @@ public final class IOUtil {
         return Base64.encodeBase64(value);
     }
 
+    /**
+     * Base64 encode input stream content to writer block by block.
+     *
+     * @param inputStream input stream
+     * @param writer      base64 output
+     * @throws IOException on error
+     */
+    public static void encodeBase64(InputStream inputStream, Writer writer) throws IOException {
+        // block size is a multiple of 3 to avoid padding between blocks
+        byte[] buffer = new byte[3 * 16384];
+        char[] chars = new char[4 * 16384];
+        Base64 base64 = new Base64(0);
+        int length;
+        while ((length = readBlock(inputStream, buffer)) > 0) {
+            byte[] encoded = base64.encode(buffer, 0, length);
+            for (int i = 0; i < encoded.length; i++) {
+                chars[i] = (char) encoded[i];
+            }
+            writer.write(chars, 0, encoded.length);
+        }
+    }
+
+    private static int readBlock(InputStream inputStream, byte[] buffer) throws IOException {
+        int length = 0;
+        int count;
+        while (length < buffer.length && (count = inputStream.read(buffer, length, buffer.length - length)) >= 0) {
+            length += count;
+        }
+        return length;
+    }
+
     /**
      * Resize image bytes to a max width or height image size.
      *
@@ -0,0 +1,234 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.util;
+
+import org.apache.log4j.Logger;
+
+import javax.mail.util.SharedByteArrayInputStream;
+import javax.mail.util.SharedFileInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+
+/**
+ * Output stream kept in memory up to a threshold, then spooled to a temporary file.
+ * Call close when done writing and delete when content is no longer needed.
+ * Content shared between several holders is reference counted: each holder calls retain
+ * and release instead of delete, the spool file is deleted on last release.
+ */
+public class SpoolOutputStream extends OutputStream {
+    private static final Logger LOGGER = Logger.getLogger(SpoolOutputStream.class);
+
+    private final int threshold;
+    private ByteArrayOutputStream memoryOutputStream = new ByteArrayOutputStream();
+    private File file;
+    private OutputStream fileOutputStream;
+    private long size;
+    private int referenceCount = 1;
+
+    /**
+     * Create spool output stream.
+     *
+     * @param threshold maximum size in bytes kept in memory
+     */
+    public SpoolOutputStream(int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        checkThreshold(1);
+        if (fileOutputStream != null) {
+            fileOutputStream.write(b);
+        } else {
+            memoryOutputStream.write(b);
+        }
+        size++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        checkThreshold(length);
+        if (fileOutputStream != null) {
+            fileOutputStream.write(bytes, offset, length);
+        } else {
+            memoryOutputStream.write(bytes, offset, length);
+        }
+        size += length;
+    }
+
+    private void checkThreshold(int length) throws IOException {
+        if (memoryOutputStream != null && size + length > threshold) {
+            file = Files.createTempFile("davmail", ".spool").toFile();
+            fileOutputStream = new BufferedOutputStream(new FileOutputStream(file));
+            memoryOutputStream.writeTo(fileOutputStream);
+            memoryOutputStream = null;
+            LOGGER.debug("Spool content over " + threshold + " bytes to " + file);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileOutputStream != null) {
+            fileOutputStream.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileOutputStream != null) {
+            fileOutputStream.close();
+        }
+    }
+
+    /**
+     * @return content size in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return true if content was spooled to a temporary file
+     */
+    public boolean isSpooled() {
+        return file != null;
+    }
+
+    /**
+     * Get content as byte array, only for small content.
+     *
+     * @return content
+     * @throws IOException on error
+     */
+    public byte[] toByteArray() throws IOException {
+        if (memoryOutputStream != null) {
+            return memoryOutputStream.toByteArray();
+        } else {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (InputStream inputStream = getInputStream()) {
+                IOUtil.write(inputStream, baos);
+            }
+            return baos.toByteArray();
+        }
+    }
+
+    /**
+     * Read content, stream must be closed first.
+     *
+     * @return content input stream
+     * @throws IOException on error
+     */
+    public InputStream getInputStream() throws IOException {
+        if (memoryOutputStream != null) {
+            return new ByteArrayInputStream(memoryOutputStream.toByteArray());
+        } else {
+            return new FileInputStream(file);
+        }
+    }
+
+    /**
+     * Read content as a shared input stream, MIME parser then references parts
+     * in the spool file instead of copying them to memory.
+     *
+     * @return content shared input stream
+     * @throws IOException on error
+     */
+    public InputStream getSharedInputStream() throws IOException {
+        if (memoryOutputStream != null) {
+            return new SharedByteArrayInputStream(memoryOutputStream.toByteArray());
+        } else {
+            return new SharedFileInputStream(file);
+        }
+    }
+
+    /**
+     * Write content to output stream, spooled content is transferred from file channel
+     * without loading it in heap memory.
+     *
+     * @param outputStream target output stream
+     * @throws IOException on error
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        if (memoryOutputStream != null) {
+            memoryOutputStream.writeTo(outputStream);
+        } else {
+            WritableByteChannel targetChannel = Channels.newChannel(outputStream);
+            try (FileInputStream fileInputStream = new FileInputStream(file)) {
+                FileChannel fileChannel = fileInputStream.getChannel();
+                long position = 0;
+                long count = fileChannel.size();
+                while (position < count) {
+                    position += fileChannel.transferTo(position, count - position, targetChannel);
+                }
+            }
+        }
+    }
+
+    /**
+     * Register a new holder of this content.
+     *
+     * @return this
+     */
+    public synchronized SpoolOutputStream retain() {
+        referenceCount++;
+        return this;
+    }
+
+    /**
+     * Release content, memory buffer and spool file are deleted when the last holder releases it.
+     */
+    public void release() {
+        boolean lastHolder;
+        synchronized (this) {
+            lastHolder = referenceCount > 0 && --referenceCount == 0;
+        }
+        if (lastHolder) {
+            delete();
+        }
+    }
+
+    /**
+     * Release memory buffer and delete spool file.
+     */
+    public void delete() {
+        memoryOutputStream = null;
+        if (file != null) {
+            try {
+                close();
+            } catch (IOException e) {
+                LOGGER.debug("Unable to close " + file);
+            }
+            if (!file.delete()) {
+                LOGGER.debug("Unable to delete " + file);
+            }
+            file = null;
+        }
+    }
+}
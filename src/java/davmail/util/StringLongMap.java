@@ -0,0 +1,110 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.util;
+
+/**
+ * Open addressing String to long map, avoids an entry object and a boxed Long per mapping.
+ * Null keys are not supported, not thread safe.
+ */
+public class StringLongMap {
+    private String[] keys;
+    private long[] values;
+    private int size;
+
+    /**
+     * Create an empty map.
+     */
+    public StringLongMap() {
+        keys = new String[16];
+        values = new long[16];
+    }
+
+    private int slot(String[] keyArray, String key) {
+        int mask = keyArray.length - 1;
+        int h = key.hashCode();
+        int index = (h ^ (h >>> 16)) & mask;
+        while (keyArray[index] != null && !keyArray[index].equals(key)) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Check if key is present.
+     *
+     * @param key key
+     * @return true if key is mapped
+     */
+    public boolean containsKey(String key) {
+        return keys[slot(keys, key)] != null;
+    }
+
+    /**
+     * Get value mapped to key.
+     *
+     * @param key          key
+     * @param defaultValue value returned when key is not mapped
+     * @return value
+     */
+    public long get(String key, long defaultValue) {
+        int index = slot(keys, key);
+        return keys[index] != null ? values[index] : defaultValue;
+    }
+
+    /**
+     * Map key to value, an equal key already mapped is replaced by this key instance
+     * so that the map does not retain a duplicate copy of a string held by the caller.
+     *
+     * @param key   key
+     * @param value value
+     */
+    public void put(String key, long value) {
+        int index = slot(keys, key);
+        if (keys[index] == null) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize();
+                index = slot(keys, key);
+            }
+            size++;
+        }
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = slot(keys, oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * @return mapping count
+     */
+    public int size() {
+        return size;
+    }
+}
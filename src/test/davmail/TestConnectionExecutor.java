@@ -0,0 +1,141 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test listener connection executor modes.
+ */
+public class TestConnectionExecutor extends TestCase {
+    static class BlockingConnection extends AbstractConnection {
+        final CountDownLatch started;
+        final CountDownLatch release;
+        volatile boolean closed;
+        volatile String threadName;
+
+        BlockingConnection(Socket clientSocket, CountDownLatch started, CountDownLatch release) {
+            super("TestConnection", clientSocket);
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public void run() {
+            threadName = Thread.currentThread().getName();
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            super.close();
+        }
+    }
+
+    protected ServerSocket serverSocket;
+
+    @Override
+    public void setUp() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    @Override
+    public void tearDown() throws IOException {
+        serverSocket.close();
+        Settings.setProperty("davmail.testExecutor", "");
+        Settings.setProperty("davmail.testMaxConnections", "");
+        Settings.setProperty("davmail.testConnectionQueueSize", "");
+    }
+
+    protected Socket newSocket() throws IOException {
+        return new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+    }
+
+    public void testPoolRejectsWhenFull() throws IOException, InterruptedException {
+        Settings.setProperty("davmail.testExecutor", "pool");
+        Settings.setProperty("davmail.testMaxConnections", "1");
+        Settings.setProperty("davmail.testConnectionQueueSize", "1");
+        ConnectionExecutor connectionExecutor = new ConnectionExecutor("TEST");
+        assertEquals(ConnectionExecutor.Mode.pool, connectionExecutor.getMode());
+
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingConnection first = new BlockingConnection(newSocket(), started, release);
+        BlockingConnection second = new BlockingConnection(newSocket(), started, release);
+        BlockingConnection third = new BlockingConnection(newSocket(), started, release);
+        connectionExecutor.execute(first);
+        assertTrue(waitFor(connectionExecutor, 1, 0));
+        connectionExecutor.execute(second);
+        assertEquals(1, connectionExecutor.getQueuedCount());
+        connectionExecutor.execute(third);
+        assertTrue(third.closed);
+        assertFalse(first.closed);
+        assertEquals(first.getName(), first.threadName);
+
+        release.countDown();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(waitFor(connectionExecutor, 0, 0));
+        connectionExecutor.shutdown();
+    }
+
+    public void testThreadMode() throws IOException, InterruptedException {
+        Settings.setProperty("davmail.testExecutor", "thread");
+        ConnectionExecutor connectionExecutor = new ConnectionExecutor("TEST");
+        assertEquals(ConnectionExecutor.Mode.thread, connectionExecutor.getMode());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(0);
+        BlockingConnection connection = new BlockingConnection(newSocket(), started, release);
+        connectionExecutor.execute(connection);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(connection.getName(), connection.threadName);
+    }
+
+    public void testDefaultMode() {
+        ConnectionExecutor connectionExecutor = new ConnectionExecutor("TEST");
+        if (ConnectionExecutor.newVirtualThreadExecutor() != null) {
+            assertEquals(ConnectionExecutor.Mode.virtual, connectionExecutor.getMode());
+        } else {
+            assertEquals(ConnectionExecutor.Mode.pool, connectionExecutor.getMode());
+        }
+        connectionExecutor.shutdown();
+    }
+
+    protected boolean waitFor(ConnectionExecutor connectionExecutor, int activeCount, int queuedCount) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            if (connectionExecutor.getActiveCount() == activeCount && connectionExecutor.getQueuedCount() == queuedCount) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test settings snapshot reads.
+ */
+public class TestSettings extends TestCase {
+    public void testTypedValues() {
+        Settings.setProperty("davmail.test.int", "42");
+        Settings.setProperty("davmail.test.boolean", "true");
+        Settings.setProperty("davmail.test.empty", null);
+        assertEquals(42, Settings.getIntProperty("davmail.test.int"));
+        assertEquals(42, Settings.getIntProperty("davmail.test.int", 1));
+        assertEquals("42", Settings.getProperty("davmail.test.int"));
+        assertTrue(Settings.getBooleanProperty("davmail.test.boolean"));
+        assertFalse(Settings.getBooleanProperty("davmail.test.int", true));
+        // empty values are handled as missing
+        assertNull(Settings.getProperty("davmail.test.empty"));
+        assertEquals("default", Settings.getProperty("davmail.test.empty", "default"));
+        assertEquals(7, Settings.getIntProperty("davmail.test.empty", 7));
+        assertTrue(Settings.getBooleanProperty("davmail.test.empty", true));
+        assertNull(Settings.getProperty("davmail.test.missing"));
+    }
+
+    public void testConcurrentReads() throws InterruptedException {
+        Settings.setProperty("davmail.test.counter", "0");
+        final AtomicInteger errorCount = new AtomicInteger();
+        Thread[] readers = new Thread[64];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                int previousValue = 0;
+                for (int j = 0; j < 100000; j++) {
+                    int value = Settings.getIntProperty("davmail.test.counter", -1);
+                    // values are published in order, a reader never goes back
+                    if (value < previousValue) {
+                        errorCount.incrementAndGet();
+                    }
+                    previousValue = value;
+                }
+            });
+            readers[i].start();
+        }
+        for (int i = 1; i <= 1000; i++) {
+            Settings.setProperty("davmail.test.counter", String.valueOf(i));
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(0, errorCount.get());
+        assertEquals(1000, Settings.getIntProperty("davmail.test.counter"));
+    }
+}
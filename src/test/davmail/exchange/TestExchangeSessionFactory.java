@@ -0,0 +1,178 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import davmail.Settings;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Test session pool single-flight creation and eviction against a local mock EWS endpoint.
+ */
+public class TestExchangeSessionFactory extends TestCase {
+    protected static final Pattern FOLDER_ID_PATTERN = Pattern.compile("FolderId Id=\"([^\"]+)\"");
+    protected static final Pattern CREATED_PATTERN = Pattern.compile("created=(\\d+)");
+
+    protected HttpServer server;
+    protected String url;
+
+    @Override
+    public void setUp() throws IOException {
+        Settings.setProperty("davmail.sessionInfoCache", "false");
+        Settings.setProperty("davmail.sessionPoolIdleTimeout", "1");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/ews/exchange.asmx", this::handle);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/ews/exchange.asmx";
+        Settings.setProperty("davmail.url", url);
+    }
+
+    @Override
+    public void tearDown() {
+        ExchangeSessionFactory.reset();
+        server.stop(0);
+        Settings.setProperty("davmail.sessionInfoCache", "");
+        Settings.setProperty("davmail.sessionPoolIdleTimeout", "");
+        Settings.setProperty("davmail.url", "");
+    }
+
+    protected void handle(HttpExchange exchange) throws IOException {
+        String request;
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            request = new String(readFully(inputStream), StandardCharsets.UTF_8);
+        }
+        String body = "";
+        if (request.contains("<m:GetFolder>")) {
+            Matcher matcher = FOLDER_ID_PATTERN.matcher(request);
+            String folderId = matcher.find() ? matcher.group(1) : "unknown";
+            if ("root".equals(folderId)) {
+                try {
+                    // slow login, concurrent callers overlap
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            body = "<m:GetFolderResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>" +
+                    "<m:Folders><t:Folder><t:FolderId Id=\"" + folderId + "-id\" ChangeKey=\"ck\"/>" +
+                    "<t:DisplayName>" + folderId + "</t:DisplayName></t:Folder></m:Folders></m:GetFolderResponseMessage>";
+        }
+        byte[] response = ("<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+                "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"><s:Header>" +
+                "<h:ServerVersionInfo MajorVersion=\"15\" MinorVersion=\"1\" xmlns:h=\"http://schemas.microsoft.com/exchange/services/2006/types\"/>" +
+                "</s:Header><s:Body><m:Response xmlns:m=\"http://schemas.microsoft.com/exchange/services/2006/messages\" " +
+                "xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\"><m:ResponseMessages>" + body +
+                "</m:ResponseMessages></m:Response></s:Body></s:Envelope>").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=utf-8");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(response);
+        }
+    }
+
+    protected byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = inputStream.read(buffer)) > 0) {
+            outputStream.write(buffer, 0, length);
+        }
+        return outputStream.toByteArray();
+    }
+
+    protected long getCreatedCount() {
+        Matcher matcher = CREATED_PATTERN.matcher(ExchangeSessionFactory.getStatistics());
+        assertTrue(matcher.find());
+        return Long.parseLong(matcher.group(1));
+    }
+
+    protected ExchangeSession getSession() throws IOException {
+        return ExchangeSessionFactory.getInstance(url, "user@company.com", "password");
+    }
+
+    public void testSingleFlightCreation() throws Exception {
+        long createdCount = getCreatedCount();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ExchangeSession>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executorService.submit((Callable<ExchangeSession>) this::getSession));
+            }
+            ExchangeSession session = futures.get(0).get();
+            for (Future<ExchangeSession> future : futures) {
+                assertSame(session, future.get());
+            }
+            assertEquals(createdCount + 1, getCreatedCount());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    public void testHeldSessionNotEvicted() throws Exception {
+        long createdCount = getCreatedCount();
+        ExchangeSession session = getSession();
+        ExchangeSessionFactory.holdSession(session);
+        Thread.sleep(1100);
+        ExchangeSessionFactory.evictSessions();
+        assertSame(session, getSession());
+        assertFalse(session.closed);
+
+        ExchangeSessionFactory.releaseSession(session);
+        Thread.sleep(1100);
+        ExchangeSessionFactory.evictSessions();
+        assertTrue(session.closed);
+        assertNotSame(session, getSession());
+        assertEquals(createdCount + 2, getCreatedCount());
+    }
+
+    public void testExpiredSessionCloseDeferred() throws Exception {
+        ExchangeSession session = getSession();
+        ExchangeSessionFactory.holdSession(session);
+        session.expired = true;
+        ExchangeSession newSession = getSession();
+        assertNotSame(session, newSession);
+        // still held by a client connection
+        assertFalse(session.closed);
+
+        // stale reference to expired session does not remove new pooled session
+        assertSame(newSession, ExchangeSessionFactory.getInstance(session, "user@company.com", "password"));
+        assertSame(newSession, getSession());
+        assertFalse(newSession.closed);
+
+        ExchangeSessionFactory.releaseSession(session);
+        assertTrue(session.closed);
+    }
+}
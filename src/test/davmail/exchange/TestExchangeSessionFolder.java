@@ -44,6 +44,15 @@ public class TestExchangeSessionFolder extends AbstractExchangeSessionTestCase {
         assertNotNull(folder.etag);
     }
 
+    public void testFolderStatus() throws IOException {
+        ExchangeSession.Folder folder = session.getFolder("INBOX");
+        folder.loadMessages();
+        ExchangeSession.Folder statusFolder = session.getFolderStatus("INBOX");
+        assertEquals(folder.count(), statusFolder.count());
+        assertEquals(folder.recent, statusFolder.recent);
+        assertEquals(folder.getUidNext(), statusFolder.getUidNext());
+    }
+
     public void testSubFolder() throws IOException {
         session.createMessageFolder("test/subfolder");
         ExchangeSession.Folder folder = session.getFolder("test/subfolder");
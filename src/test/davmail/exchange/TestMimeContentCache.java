@@ -0,0 +1,158 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2009  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange;
+
+import davmail.util.SpoolOutputStream;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test MimeContentCache.
+ */
+public class TestMimeContentCache extends TestCase {
+    public void testGetPut() {
+        MimeContentCache cache = new MimeContentCache(1024, 0);
+        cache.put("a", new byte[100]);
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(100, cache.getMemorySize());
+        cache.remove("a");
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getMemorySize());
+    }
+
+    public void testMemoryBudget() {
+        MimeContentCache cache = new MimeContentCache(250, 0);
+        cache.put("a", new byte[100]);
+        cache.put("b", new byte[100]);
+        // a becomes most recently used
+        cache.get("a");
+        cache.put("c", new byte[100]);
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(200, cache.getMemorySize());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    public void testSharedMemoryBudget() {
+        AtomicLong totalMemorySize = new AtomicLong();
+        MimeContentCache cache1 = new MimeContentCache(250, 0, totalMemorySize);
+        MimeContentCache cache2 = new MimeContentCache(250, 0, totalMemorySize);
+        cache1.put("a", new byte[100]);
+        cache1.put("b", new byte[100]);
+        // second cache is over shared budget, evicts its own entries including the last one
+        cache2.put("c", new byte[100]);
+        assertNull(cache2.get("c"));
+        assertEquals(0, cache2.getMemorySize());
+        assertEquals(200, totalMemorySize.get());
+        // first cache evicts its own entries while shared total is over budget
+        cache1.put("e", new byte[100]);
+        assertEquals(1, cache1.getEvictionCount());
+        assertEquals(200, cache1.getMemorySize());
+        assertEquals(200, totalMemorySize.get());
+        // shared total never exceeds budget
+        cache2.put("d", new byte[200]);
+        assertNull(cache2.get("d"));
+        assertEquals(200, totalMemorySize.get());
+        cache1.clear();
+        cache2.clear();
+        assertEquals(0, totalMemorySize.get());
+    }
+
+    public void testKeepLastEntry() {
+        MimeContentCache cache = new MimeContentCache(0, 0);
+        cache.put("a", new byte[100]);
+        assertNotNull(cache.get("a"));
+        cache.put("b", new byte[100]);
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+    }
+
+    public void testDiskOverflow() {
+        MimeContentCache cache = new MimeContentCache(150, 150);
+        byte[] content = new byte[100];
+        content[99] = 42;
+        cache.put("a", content);
+        cache.put("b", new byte[100]);
+        assertEquals(100, cache.getMemorySize());
+        assertEquals(100, cache.getDiskSize());
+        byte[] cachedContent = cache.get("a");
+        assertNotNull(cachedContent);
+        assertEquals(42, cachedContent[99]);
+        // b overflowed to disk in turn
+        assertEquals(100, cache.getDiskSize());
+        cache.clear();
+        assertEquals(0, cache.getDiskSize());
+        assertNull(cache.get("b"));
+    }
+
+    public void testSpoolEntries() throws IOException {
+        MimeContentCache cache = new MimeContentCache(1024, 0);
+        SpoolOutputStream[] spools = new SpoolOutputStream[MimeContentCache.MAX_SPOOL_ENTRIES + 1];
+        for (int i = 0; i < spools.length; i++) {
+            spools[i] = new SpoolOutputStream(10);
+            spools[i].write(new byte[100]);
+            spools[i].close();
+            cache.putSpool(String.valueOf(i), spools[i]);
+            spools[i].release();
+        }
+        // oldest spool file deleted
+        assertNull(cache.getSpool("0"));
+        assertFalse(spools[0].isSpooled());
+        assertSame(spools[1], cache.getSpool("1"));
+        spools[1].release();
+        assertEquals(0, cache.getMemorySize());
+        cache.remove("1");
+        assertNull(cache.getSpool("1"));
+        assertFalse(spools[1].isSpooled());
+        cache.clear();
+        assertFalse(spools[spools.length - 1].isSpooled());
+    }
+
+    public void testSharedSpool() throws IOException {
+        MimeContentCache cache = new MimeContentCache(1024, 0);
+        SpoolOutputStream spool = new SpoolOutputStream(10);
+        spool.write(new byte[100]);
+        spool.close();
+        cache.putSpool("0", spool);
+        spool.release();
+        assertTrue(cache.containsSpool("0"));
+        // another connection reads cached content
+        SpoolOutputStream sharedSpool = cache.getSpool("0");
+        assertSame(spool, sharedSpool);
+        // evict entry while in use
+        for (int i = 1; i <= MimeContentCache.MAX_SPOOL_ENTRIES; i++) {
+            SpoolOutputStream otherSpool = new SpoolOutputStream(10);
+            cache.putSpool(String.valueOf(i), otherSpool);
+            otherSpool.release();
+        }
+        assertFalse(cache.containsSpool("0"));
+        assertTrue(sharedSpool.isSpooled());
+        assertEquals(100, sharedSpool.toByteArray().length);
+        // last holder deletes file
+        sharedSpool.release();
+        assertFalse(sharedSpool.isSpooled());
+        cache.clear();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange;
+
+import davmail.Settings;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+
+/**
+ * Test SessionInfoStore.
+ */
+public class TestSessionInfoStore extends TestCase {
+    protected File file;
+
+    @Override
+    public void setUp() throws IOException {
+        file = File.createTempFile("davmail-sessions", ".properties");
+        Settings.setProperty("davmail.sessionInfoFilePath", file.getAbsolutePath());
+    }
+
+    @Override
+    public void tearDown() {
+        Settings.setProperty("davmail.sessionInfoFilePath", null);
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    protected SessionInfoStore.SessionInfo createSessionInfo(String email) {
+        SessionInfoStore.SessionInfo sessionInfo = new SessionInfoStore.SessionInfo();
+        sessionInfo.email = email;
+        sessionInfo.alias = "alias";
+        sessionInfo.serverVersion = "Exchange2013_SP1";
+        sessionInfo.timezoneId = "Europe/Paris";
+        sessionInfo.vTimezone = "BEGIN:VTIMEZONE\r\nTZID:Europe/Paris\r\nEND:VTIMEZONE\r\n";
+        sessionInfo.folderIds.put("inboxId", ExchangeSession.INBOX);
+        sessionInfo.folderIds.put("sentId", ExchangeSession.SENT);
+        sessionInfo.timestamp = System.currentTimeMillis();
+        return sessionInfo;
+    }
+
+    public void testStoreLoad() {
+        assertNull(SessionInfoStore.load("user@host"));
+        SessionInfoStore.store("user@host", createSessionInfo("user@company.com"));
+
+        SessionInfoStore.SessionInfo sessionInfo = SessionInfoStore.load("user@host");
+        assertNotNull(sessionInfo);
+        assertEquals("user@company.com", sessionInfo.email);
+        assertEquals("alias", sessionInfo.alias);
+        assertEquals("Exchange2013_SP1", sessionInfo.serverVersion);
+        assertEquals("Europe/Paris", sessionInfo.timezoneId);
+        assertEquals("BEGIN:VTIMEZONE\r\nTZID:Europe/Paris\r\nEND:VTIMEZONE\r\n", sessionInfo.vTimezone);
+        assertEquals(ExchangeSession.INBOX, sessionInfo.folderIds.get("inboxId"));
+        assertEquals(ExchangeSession.SENT, sessionInfo.folderIds.get("sentId"));
+        assertFalse(sessionInfo.isStale(3600000));
+
+        SessionInfoStore.remove("user@host");
+        assertNull(SessionInfoStore.load("user@host"));
+    }
+
+    public void testKeyPrefix() {
+        SessionInfoStore.store("user@host", createSessionInfo("user@company.com"));
+        SessionInfoStore.store("user@host.domain", createSessionInfo("other@company.com"));
+
+        assertEquals("user@company.com", SessionInfoStore.load("user@host").email);
+        SessionInfoStore.remove("user@host");
+        assertNull(SessionInfoStore.load("user@host"));
+        assertEquals("other@company.com", SessionInfoStore.load("user@host.domain").email);
+    }
+
+    public void testStoreTimezone() {
+        SessionInfoStore.storeTimezone("user@host", "Europe/London", "BEGIN:VTIMEZONE\r\nTZID:Europe/London\r\nEND:VTIMEZONE\r\n");
+        // no entry to update
+        assertNull(SessionInfoStore.load("user@host"));
+
+        SessionInfoStore.store("user@host", createSessionInfo("user@company.com"));
+        SessionInfoStore.storeTimezone("user@host", "Europe/London", "BEGIN:VTIMEZONE\r\nTZID:Europe/London\r\nEND:VTIMEZONE\r\n");
+        SessionInfoStore.SessionInfo sessionInfo = SessionInfoStore.load("user@host");
+        assertEquals("user@company.com", sessionInfo.email);
+        assertEquals("Europe/London", sessionInfo.timezoneId);
+        assertTrue(sessionInfo.matches(createSessionInfo("user@company.com")));
+    }
+
+    public void testMatches() {
+        SessionInfoStore.SessionInfo sessionInfo = createSessionInfo("user@company.com");
+        assertTrue(sessionInfo.matches(createSessionInfo("user@company.com")));
+        assertFalse(sessionInfo.matches(createSessionInfo("other@company.com")));
+        SessionInfoStore.SessionInfo movedFolder = createSessionInfo("user@company.com");
+        movedFolder.folderIds.put("inboxId2", ExchangeSession.INBOX);
+        assertFalse(sessionInfo.matches(movedFolder));
+        assertFalse(sessionInfo.matches(null));
+    }
+
+    public void testFilePermissions() throws IOException {
+        SessionInfoStore.store("user@host", createSessionInfo("user@company.com"));
+        if (Files.getFileStore(file.toPath()).supportsFileAttributeView("posix")) {
+            assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE),
+                    Files.getPosixFilePermissions(file.toPath()));
+        }
+        // no temporary file left
+        String[] tempFiles = file.getParentFile().list((dir, name) -> name.startsWith(file.getName()) && name.endsWith(".tmp"));
+        assertNotNull(tempFiles);
+        assertEquals(0, tempFiles.length);
+    }
+
+    public void testStale() {
+        SessionInfoStore.SessionInfo sessionInfo = createSessionInfo("user@company.com");
+        sessionInfo.timestamp = 0;
+        SessionInfoStore.store("user@host", sessionInfo);
+        assertTrue(SessionInfoStore.load("user@host").isStale(3600000));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange;
+
+import junit.framework.TestCase;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test XMLStreamUtil shared factory.
+ */
+public class TestXMLStreamUtil extends TestCase {
+    protected static final String CONTENT = "<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+            "<root><row><id>ONE</id><value>a &amp; b</value></row><row><id>two</id><value>c</value></row></root>";
+
+    public void testSharedFactory() {
+        assertSame(XMLStreamUtil.getXmlInputFactory(), XMLStreamUtil.getXmlInputFactory());
+    }
+
+    public void testElementContentsAsMap() throws IOException {
+        Map<String, Map<String, String>> results = XMLStreamUtil.getElementContentsAsMap(
+                new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8)), "row", "id");
+        assertEquals(2, results.size());
+        // coalescing must still be enabled on shared factory
+        assertEquals("a & b", results.get("one").get("value"));
+    }
+
+    public void testConcurrentParse() throws InterruptedException {
+        final List<Throwable> errors = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int j = 0; j < 200; j++) {
+                        XMLStreamReader reader = XMLStreamUtil.createXMLStreamReader(CONTENT);
+                        int rowCount = 0;
+                        while (reader.hasNext()) {
+                            reader.next();
+                            if (XMLStreamUtil.isStartTag(reader, "row")) {
+                                rowCount++;
+                            }
+                        }
+                        reader.close();
+                        assertEquals(2, rowCount);
+                    }
+                } catch (XMLStreamException | RuntimeException | Error e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+    }
+}
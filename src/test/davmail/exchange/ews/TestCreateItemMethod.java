@@ -0,0 +1,116 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import davmail.Settings;
+import davmail.util.IOUtil;
+import davmail.util.SpoolOutputStream;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test streamed CreateItem request with spooled MIME content.
+ */
+public class TestCreateItemMethod extends TestCase {
+    protected CreateItemMethod createMethod(byte[] content, boolean spooled) throws IOException {
+        EWSMethod.Item item = new EWSMethod.Item();
+        item.type = "Message";
+        if (spooled) {
+            // small threshold to force spooling to a temporary file
+            item.mimeContentSpool = new SpoolOutputStream(1024);
+            item.mimeContentSpool.write(content);
+            item.mimeContentSpool.close();
+        } else {
+            item.mimeContent = IOUtil.encodeBase64(content);
+        }
+        return new CreateItemMethod(MessageDisposition.SaveOnly, new FolderId("t:FolderId", "folderId", null), item);
+    }
+
+    public void testSpooledContent() throws IOException {
+        byte[] content = new byte[500000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        CreateItemMethod bufferedMethod = createMethod(content, false);
+        CreateItemMethod spooledMethod = createMethod(content, true);
+        try {
+            byte[] expected = bufferedMethod.generateSoapEnvelope();
+
+            // computed length without reading spooled content
+            assertFalse(spooledMethod.getEntity().isChunked());
+            assertEquals(expected.length, spooledMethod.getEntity().getContentLength());
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            spooledMethod.getEntity().writeTo(baos);
+            assertEquals(new String(expected, StandardCharsets.UTF_8), new String(baos.toByteArray(), StandardCharsets.UTF_8));
+        } finally {
+            spooledMethod.item.mimeContentSpool.delete();
+        }
+    }
+
+    public void testComputedContentLength() throws IOException {
+        // base64 padding for each content length modulo 3
+        for (int length = 3000; length < 3003; length++) {
+            byte[] content = new byte[length];
+            CreateItemMethod bufferedMethod = createMethod(content, false);
+            CreateItemMethod spooledMethod = createMethod(content, true);
+            try {
+                assertEquals(bufferedMethod.generateSoapEnvelope().length, spooledMethod.getEntity().getContentLength());
+            } finally {
+                spooledMethod.item.mimeContentSpool.delete();
+            }
+        }
+    }
+
+    public void testChunkedRequest() throws IOException {
+        Settings.setProperty("davmail.enableChunkedRequest", "true");
+        CreateItemMethod spooledMethod;
+        try {
+            spooledMethod = createMethod(new byte[5000], true);
+        } finally {
+            Settings.setProperty("davmail.enableChunkedRequest", null);
+        }
+        try {
+            assertTrue(spooledMethod.getEntity().isChunked());
+            assertEquals(-1, spooledMethod.getEntity().getContentLength());
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            spooledMethod.getEntity().writeTo(baos);
+            assertTrue(baos.size() > 5000 * 4 / 3);
+        } finally {
+            spooledMethod.item.mimeContentSpool.delete();
+        }
+    }
+
+    public void testEncodeBase64Stream() throws IOException {
+        for (int length = 0; length < 8; length++) {
+            byte[] content = new byte[length];
+            for (int i = 0; i < length; i++) {
+                content[i] = (byte) i;
+            }
+            StringWriter writer = new StringWriter();
+            IOUtil.encodeBase64(new ByteArrayInputStream(content), writer);
+            assertEquals(IOUtil.encodeBase64AsString(content), writer.toString());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test multiple item DeleteItem request and per item response codes.
+ */
+public class TestDeleteItemMethod extends TestCase {
+    protected static final String RESPONSE = "<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+            "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"><s:Body>" +
+            "<m:DeleteItemResponse xmlns:m=\"http://schemas.microsoft.com/exchange/services/2006/messages\" " +
+            "xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\"><m:ResponseMessages>" +
+            "<m:DeleteItemResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode></m:DeleteItemResponseMessage>" +
+            "<m:DeleteItemResponseMessage ResponseClass=\"Error\"><m:MessageText>Access is denied.</m:MessageText>" +
+            "<m:ResponseCode>ErrorCannotDeleteObject</m:ResponseCode></m:DeleteItemResponseMessage>" +
+            "<m:DeleteItemResponseMessage ResponseClass=\"Error\"><m:MessageText>The specified object was not found in the store.</m:MessageText>" +
+            "<m:ResponseCode>ErrorItemNotFound</m:ResponseCode></m:DeleteItemResponseMessage>" +
+            "</m:ResponseMessages></m:DeleteItemResponse></s:Body></s:Envelope>";
+
+    protected List<ItemId> getItemIds() {
+        List<ItemId> itemIds = new ArrayList<>();
+        itemIds.add(new ItemId("id1"));
+        itemIds.add(new ItemId("id2"));
+        itemIds.add(new ItemId("id3"));
+        return itemIds;
+    }
+
+    public void testRequest() {
+        DeleteItemMethod method = new DeleteItemMethod(getItemIds(), DeleteType.HardDelete, SendMeetingCancellations.SendToNone);
+        String request = new String(method.generateSoapEnvelope(), StandardCharsets.UTF_8);
+        assertTrue(request.contains("<m:ItemIds><t:ItemId Id=\"id1\"/><t:ItemId Id=\"id2\"/><t:ItemId Id=\"id3\"/></m:ItemIds>"));
+    }
+
+    public void testResponse() throws EWSException {
+        DeleteItemMethod method = new DeleteItemMethod(getItemIds(), DeleteType.HardDelete, SendMeetingCancellations.SendToNone);
+        method.processResponseStream(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)));
+        // per item failure does not fail the whole batch
+        method.checkSuccess();
+        assertTrue(method.isDeleted(0));
+        assertFalse(method.isDeleted(1));
+        assertEquals("ErrorCannotDeleteObject", method.getResponseCode(1));
+        assertTrue(method.isDeleted(2));
+    }
+}
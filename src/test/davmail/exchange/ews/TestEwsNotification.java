@@ -0,0 +1,159 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import davmail.Settings;
+import davmail.exchange.ExchangeSession;
+import davmail.http.HttpClientAdapter;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Test IMAP IDLE change notifications against a local mock EWS endpoint.
+ */
+public class TestEwsNotification extends TestCase {
+    protected static final Pattern FOLDER_ID_PATTERN = Pattern.compile("FolderId Id=\"([^\"]+)\"");
+
+    protected HttpServer server;
+    protected EwsExchangeSession session;
+    protected boolean subscribeSupported = true;
+    protected final AtomicInteger getEventsCount = new AtomicInteger();
+    protected final AtomicInteger unsubscribeCount = new AtomicInteger();
+
+    @Override
+    public void setUp() throws IOException {
+        Settings.setProperty("davmail.imapIdleNotificationDelay", "1");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ews/exchange.asmx", this::handle);
+        server.start();
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/ews/exchange.asmx";
+        session = new EwsExchangeSession(new HttpClientAdapter(url, true), URI.create(url), "user@company.com");
+    }
+
+    @Override
+    public void tearDown() {
+        session.close();
+        server.stop(0);
+        Settings.setProperty("davmail.imapIdleNotificationDelay", "");
+    }
+
+    protected void handle(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = inputStream.read(buffer)) > 0) {
+                requestBody.write(buffer, 0, length);
+            }
+        }
+        String request = new String(requestBody.toByteArray(), StandardCharsets.UTF_8);
+        String body;
+        if (request.contains("<m:GetFolder>")) {
+            Matcher matcher = FOLDER_ID_PATTERN.matcher(request);
+            String folderId = matcher.find() ? matcher.group(1) + "-id" : "unknown";
+            body = "<m:GetFolderResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>" +
+                    "<m:Folders><t:Folder><t:FolderId Id=\"" + folderId + "\" ChangeKey=\"ck\"/>" +
+                    "<t:DisplayName>" + folderId + "</t:DisplayName></t:Folder></m:Folders></m:GetFolderResponseMessage>";
+        } else if (request.contains("<m:Subscribe>")) {
+            if (subscribeSupported) {
+                body = "<m:SubscribeResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>" +
+                        "<m:SubscriptionId>subscription</m:SubscriptionId><m:Watermark>w0</m:Watermark></m:SubscribeResponseMessage>";
+            } else {
+                body = "<m:SubscribeResponseMessage ResponseClass=\"Error\"><m:MessageText>Not supported</m:MessageText>" +
+                        "<m:ResponseCode>ErrorInvalidRequest</m:ResponseCode></m:SubscribeResponseMessage>";
+            }
+        } else if (request.contains("<m:GetEvents>")) {
+            String event;
+            if (getEventsCount.incrementAndGet() == 2) {
+                event = "<t:CreatedEvent><t:Watermark>w2</t:Watermark><t:TimeStamp>2020-01-01T00:00:00Z</t:TimeStamp>" +
+                        "<t:ItemId Id=\"item\" ChangeKey=\"ck\"/><t:ParentFolderId Id=\"inbox-id\" ChangeKey=\"ck\"/></t:CreatedEvent>";
+            } else {
+                event = "<t:StatusEvent><t:Watermark>w1</t:Watermark></t:StatusEvent>";
+            }
+            body = "<m:GetEventsResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>" +
+                    "<m:Notification><t:SubscriptionId>subscription</t:SubscriptionId><t:PreviousWatermark>w0</t:PreviousWatermark>" +
+                    "<t:MoreEvents>false</t:MoreEvents>" + event + "</m:Notification></m:GetEventsResponseMessage>";
+        } else if (request.contains("<m:Unsubscribe>")) {
+            unsubscribeCount.incrementAndGet();
+            body = "<m:UnsubscribeResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode></m:UnsubscribeResponseMessage>";
+        } else {
+            body = "";
+        }
+        byte[] response = ("<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+                "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"><s:Header>" +
+                "<h:ServerVersionInfo MajorVersion=\"15\" MinorVersion=\"1\" xmlns:h=\"http://schemas.microsoft.com/exchange/services/2006/types\"/>" +
+                "</s:Header><s:Body><m:Response xmlns:m=\"http://schemas.microsoft.com/exchange/services/2006/messages\" " +
+                "xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\"><m:ResponseMessages>" + body +
+                "</m:ResponseMessages></m:Response></s:Body></s:Envelope>").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=utf-8");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(response);
+        }
+    }
+
+    public void testFolderChangeNotification() throws IOException, InterruptedException {
+        ExchangeSession.Folder folder = session.getFolder("INBOX");
+        assertTrue(session.watchFolder(folder));
+        assertTrue(folder.watched);
+        assertFalse(folder.changed);
+        // notification wakes up waiting IDLE connection
+        assertTrue(folder.waitForChange(5000));
+        assertEquals(2, getEventsCount.get());
+        assertFalse(folder.changed);
+
+        // other folders are not notified
+        ExchangeSession.Folder sentFolder = session.getFolder("Sent");
+        assertTrue(session.watchFolder(sentFolder));
+        Thread.sleep(1500);
+        assertFalse(sentFolder.changed);
+
+        session.unwatchFolder(folder);
+        session.unwatchFolder(sentFolder);
+        assertFalse(folder.watched);
+        for (int i = 0; i < 30 && unsubscribeCount.get() == 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, unsubscribeCount.get());
+    }
+
+    public void testSubscriptionNotSupported() throws IOException {
+        subscribeSupported = false;
+        ExchangeSession.Folder folder = session.getFolder("INBOX");
+        assertFalse(session.watchFolder(folder));
+        assertFalse(folder.watched);
+    }
+
+    public void testPublicFolderNotWatched() throws IOException {
+        ExchangeSession.Folder folder = session.getFolder("/public");
+        assertFalse(session.watchFolder(folder));
+    }
+}
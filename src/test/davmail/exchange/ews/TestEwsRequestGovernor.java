@@ -0,0 +1,118 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import junit.framework.TestCase;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test EWS request governor concurrency limit and back-off.
+ */
+public class TestEwsRequestGovernor extends TestCase {
+    public void testAdaptiveLimit() throws InterruptedIOException {
+        EwsRequestGovernor governor = new EwsRequestGovernor("test", 8);
+        assertEquals(8, governor.getLimit());
+        governor.acquire(EwsRequestGovernor.PRIORITY_NORMAL);
+        governor.release(true, 0);
+        assertEquals(4, governor.getLimit());
+        governor.acquire(EwsRequestGovernor.PRIORITY_NORMAL);
+        governor.release(true, 0);
+        assertEquals(2, governor.getLimit());
+        // additive increase: about one slot per limit successful requests
+        for (int i = 0; i < 3; i++) {
+            governor.acquire(EwsRequestGovernor.PRIORITY_NORMAL);
+            governor.release(false, 0);
+        }
+        assertEquals(3, governor.getLimit());
+        assertEquals(2, governor.getThrottledCount());
+        assertEquals(0, governor.getInFlight());
+    }
+
+    public void testBackOff() throws InterruptedIOException {
+        EwsRequestGovernor governor = new EwsRequestGovernor("test", 2);
+        governor.acquire(EwsRequestGovernor.PRIORITY_NORMAL);
+        long start = System.currentTimeMillis();
+        governor.release(true, 200);
+        governor.acquire(EwsRequestGovernor.PRIORITY_NORMAL);
+        assertTrue(System.currentTimeMillis() - start >= 150);
+        assertTrue(governor.getThrottledWaitTime() >= 150);
+        governor.release(false, 0);
+    }
+
+    public void testPriority() throws Exception {
+        final EwsRequestGovernor governor = new EwsRequestGovernor("test", 1);
+        governor.acquire(EwsRequestGovernor.PRIORITY_NORMAL);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        Thread low = startRequest(governor, EwsRequestGovernor.PRIORITY_LOW, order);
+        waitForQueueDepth(governor, 1);
+        Thread high = startRequest(governor, EwsRequestGovernor.PRIORITY_HIGH, order);
+        waitForQueueDepth(governor, 2);
+        governor.release(false, 0);
+        low.join();
+        high.join();
+        assertEquals(EwsRequestGovernor.PRIORITY_HIGH, (int) order.get(0));
+        assertEquals(EwsRequestGovernor.PRIORITY_LOW, (int) order.get(1));
+    }
+
+    protected Thread startRequest(final EwsRequestGovernor governor, final int priority, final List<Integer> order) {
+        Thread thread = new Thread(() -> {
+            try {
+                governor.acquire(priority);
+                order.add(priority);
+                governor.release(false, 0);
+            } catch (InterruptedIOException e) {
+                fail(e.getMessage());
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    protected void waitForQueueDepth(EwsRequestGovernor governor, int depth) throws InterruptedException {
+        while (governor.getQueueDepth() < depth) {
+            Thread.sleep(10);
+        }
+    }
+
+    public void testEvictIdleInstances() throws InterruptedIOException {
+        EwsRequestGovernor governor = EwsRequestGovernor.acquire("evict@test", 2, EwsRequestGovernor.PRIORITY_NORMAL);
+        // in use, not evicted
+        EwsRequestGovernor.evictIdleInstances(-1);
+        assertSame(governor, EwsRequestGovernor.getInstance("evict@test", 2));
+        governor.release(false, 0);
+        assertTrue(EwsRequestGovernor.getStatistics().contains("requests="));
+        EwsRequestGovernor.evictIdleInstances(-1);
+        assertNotSame(governor, EwsRequestGovernor.getInstance("evict@test", 2));
+        // retired governor rejects requests, a new one is created
+        assertFalse(governor.acquire(EwsRequestGovernor.PRIORITY_NORMAL));
+        EwsRequestGovernor newGovernor = EwsRequestGovernor.acquire("evict@test", 2, EwsRequestGovernor.PRIORITY_NORMAL);
+        assertNotSame(governor, newGovernor);
+        newGovernor.release(false, 0);
+        EwsRequestGovernor.evictIdleInstances(-1);
+    }
+
+    public void testParseBackOff() {
+        assertEquals(297749, EwsRequestGovernor.parseBackOff("Name: BackOffMilliseconds297749", 60000));
+        assertEquals(60000, EwsRequestGovernor.parseBackOff(null, 60000));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import junit.framework.TestCase;
+
+/**
+ * Test folder id cache.
+ */
+public class TestFolderIdCache extends TestCase {
+    protected FolderId newFolderId(String value) {
+        return new FolderId("t:FolderId", value, "ck-" + value);
+    }
+
+    public void testGetPut() {
+        FolderIdCache cache = new FolderIdCache(60000);
+        FolderId inbox = DistinguishedFolderId.getInstance(null, DistinguishedFolderId.Name.inbox);
+        FolderId folderId = newFolderId("a");
+        cache.put(inbox, "folder", folderId);
+        FolderId cachedFolderId = cache.get(inbox, "folder");
+        assertNotNull(cachedFolderId);
+        assertEquals("a", cachedFolderId.value);
+        assertNotSame(folderId, cachedFolderId);
+        assertNull(cache.get(inbox, "other"));
+        assertTrue(cache.contains(folderId));
+    }
+
+    public void testDisabled() {
+        FolderIdCache cache = new FolderIdCache(0);
+        FolderId inbox = DistinguishedFolderId.getInstance(null, DistinguishedFolderId.Name.inbox);
+        cache.put(inbox, "folder", newFolderId("a"));
+        assertNull(cache.get(inbox, "folder"));
+    }
+
+    public void testEvictSubtree() {
+        FolderIdCache cache = new FolderIdCache(60000);
+        FolderId inbox = DistinguishedFolderId.getInstance(null, DistinguishedFolderId.Name.inbox);
+        FolderId a = newFolderId("a");
+        FolderId b = newFolderId("b");
+        cache.put(inbox, "a", a);
+        cache.put(a, "b", b);
+        assertTrue(cache.evict(a));
+        assertNull(cache.get(inbox, "a"));
+        assertNull(cache.get(a, "b"));
+        assertFalse(cache.contains(b));
+        assertFalse(cache.evict(a));
+    }
+
+    public void testRefresh() {
+        FolderIdCache cache = new FolderIdCache(60000);
+        FolderId inbox = DistinguishedFolderId.getInstance(null, DistinguishedFolderId.Name.inbox);
+        cache.put(inbox, "a", newFolderId("a"));
+        cache.refresh(new FolderId("t:FolderId", "a", "newck"));
+        assertEquals("newck", cache.get(inbox, "a").changeKey);
+    }
+
+    public void testReplaceName() {
+        FolderIdCache cache = new FolderIdCache(60000);
+        FolderId inbox = DistinguishedFolderId.getInstance(null, DistinguishedFolderId.Name.inbox);
+        FolderId a = newFolderId("a");
+        cache.put(inbox, "a", a);
+        cache.put(a, "b", newFolderId("b"));
+        cache.put(inbox, "a", newFolderId("c"));
+        assertEquals("c", cache.get(inbox, "a").value);
+        assertNull(cache.get(a, "b"));
+        assertFalse(cache.contains(a));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+/**
+ * Test folder hierarchy rebuild from deep FindFolder results.
+ */
+public class TestFolderTree extends TestCase {
+    public void testHierarchyOrder() {
+        FolderTree tree = new FolderTree("root");
+        // deep traversal result order is not hierarchy order
+        tree.add("a1", "a");
+        tree.add("a", "root");
+        tree.add("b", "root");
+        tree.add("a1x", "a1");
+        tree.add("b1", "b");
+        assertEquals(Arrays.asList("a", "a1", "a1x", "b", "b1"), tree.getFolderIds());
+        assertTrue(tree.isRootChild("a"));
+        assertFalse(tree.isRootChild("a1"));
+        assertEquals("a1", tree.getParentId("a1x"));
+    }
+
+    public void testUnreachable() {
+        FolderTree tree = new FolderTree("root");
+        tree.add("a", "root");
+        // parent excluded by search condition
+        tree.add("c1", "c");
+        assertEquals(Arrays.asList("a"), tree.getFolderIds());
+    }
+}
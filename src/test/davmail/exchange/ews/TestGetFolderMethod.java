@@ -0,0 +1,79 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test multiple folder GetFolder request and response parsing.
+ */
+public class TestGetFolderMethod extends TestCase {
+    protected static final String RESPONSE = "<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+            "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"><s:Body>" +
+            "<m:GetFolderResponse xmlns:m=\"http://schemas.microsoft.com/exchange/services/2006/messages\" " +
+            "xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\"><m:ResponseMessages>" +
+            "<m:GetFolderResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>" +
+            "<m:Folders><t:Folder><t:FolderId Id=\"id1\" ChangeKey=\"ck1\"/></t:Folder></m:Folders>" +
+            "</m:GetFolderResponseMessage>" +
+            "<m:GetFolderResponseMessage ResponseClass=\"Error\"><m:MessageText>The specified folder could not be found in the store.</m:MessageText>" +
+            "<m:ResponseCode>ErrorFolderNotFound</m:ResponseCode></m:GetFolderResponseMessage>" +
+            "<m:GetFolderResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>" +
+            "<m:Folders><t:Folder><t:FolderId Id=\"id3\" ChangeKey=\"ck3\"/></t:Folder></m:Folders>" +
+            "</m:GetFolderResponseMessage>" +
+            "</m:ResponseMessages></m:GetFolderResponse></s:Body></s:Envelope>";
+
+    protected List<FolderId> getFolderIds() {
+        List<FolderId> folderIds = new ArrayList<>();
+        folderIds.add(new FolderId("t:FolderId", "id1", null));
+        folderIds.add(new FolderId("t:FolderId", "id2", null));
+        folderIds.add(new FolderId("t:FolderId", "id3", null));
+        return folderIds;
+    }
+
+    public void testRequest() {
+        GetFolderMethod method = new GetFolderMethod(BaseShape.ID_ONLY, getFolderIds(), null);
+        String request = new String(method.generateSoapEnvelope(), StandardCharsets.UTF_8);
+        assertTrue(request.contains("<m:FolderIds><t:FolderId Id=\"id1\"/><t:FolderId Id=\"id2\"/><t:FolderId Id=\"id3\"/></m:FolderIds>"));
+    }
+
+    public void testResponse() throws EWSException {
+        GetFolderMethod method = new GetFolderMethod(BaseShape.ID_ONLY, getFolderIds(), null);
+        method.processResponseStream(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)));
+        // missing folders do not fail the whole batch
+        assertEquals("id1", new FolderId(method.getResponseItem(0)).value);
+        assertNull(method.getResponseItem(1));
+        assertEquals("id3", new FolderId(method.getResponseItem(2)).value);
+    }
+
+    public void testParentFolderId() throws EWSException {
+        String response = RESPONSE.replace("<t:FolderId Id=\"id1\" ChangeKey=\"ck1\"/>",
+                "<t:FolderId Id=\"id1\" ChangeKey=\"ck1\"/><t:ParentFolderId Id=\"parent\" ChangeKey=\"ckp\"/>");
+        GetFolderMethod method = new GetFolderMethod(BaseShape.ID_ONLY, getFolderIds(), null);
+        method.processResponseStream(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+        EWSMethod.Item item = method.getResponseItem(0);
+        assertEquals("parent", item.get(Field.get("parentFolderId").getResponseName()));
+        // parent change key does not override folder change key
+        assertEquals("ck1", new FolderId(item).changeKey);
+    }
+}
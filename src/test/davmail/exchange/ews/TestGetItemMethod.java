@@ -0,0 +1,136 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import davmail.exchange.XMLStreamUtil;
+import davmail.util.IOUtil;
+import davmail.util.SpoolOutputStream;
+import junit.framework.TestCase;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test multiple item GetItem request and response parsing.
+ */
+public class TestGetItemMethod extends TestCase {
+    protected static final String RESPONSE = "<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+            "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"><s:Body>" +
+            "<m:GetItemResponse xmlns:m=\"http://schemas.microsoft.com/exchange/services/2006/messages\" " +
+            "xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\"><m:ResponseMessages>" +
+            "<m:GetItemResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>" +
+            "<m:Items><t:CalendarItem><t:ItemId Id=\"id1\" ChangeKey=\"ck1\"/></t:CalendarItem></m:Items>" +
+            "</m:GetItemResponseMessage>" +
+            "<m:GetItemResponseMessage ResponseClass=\"Error\"><m:MessageText>The specified object was not found in the store.</m:MessageText>" +
+            "<m:ResponseCode>ErrorItemNotFound</m:ResponseCode><m:Items/></m:GetItemResponseMessage>" +
+            "<m:GetItemResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>" +
+            "<m:Items><t:Task><t:ItemId Id=\"id3\" ChangeKey=\"ck3\"/></t:Task></m:Items>" +
+            "</m:GetItemResponseMessage>" +
+            "</m:ResponseMessages></m:GetItemResponse></s:Body></s:Envelope>";
+
+    protected List<ItemId> getItemIds() {
+        List<ItemId> itemIds = new ArrayList<>();
+        itemIds.add(new ItemId("id1"));
+        itemIds.add(new ItemId("id2"));
+        itemIds.add(new ItemId("id3"));
+        return itemIds;
+    }
+
+    public void testRequest() {
+        GetItemMethod method = new GetItemMethod(BaseShape.ID_ONLY, getItemIds(), true);
+        String request = new String(method.generateSoapEnvelope(), StandardCharsets.UTF_8);
+        assertTrue(request.contains("<m:ItemIds><t:ItemId Id=\"id1\"/><t:ItemId Id=\"id2\"/><t:ItemId Id=\"id3\"/></m:ItemIds>"));
+        assertTrue(request.contains("<t:IncludeMimeContent>true</t:IncludeMimeContent>"));
+    }
+
+    public void testResponse() {
+        GetItemMethod method = new GetItemMethod(BaseShape.ID_ONLY, getItemIds(), true);
+        method.processResponseStream(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)));
+        // missing items do not fail the whole batch
+        assertEquals("ErrorItemNotFound", method.errorDetail);
+        assertEquals(2, method.responseItems.size());
+        assertEquals("CalendarItem", method.responseItems.get(0).type);
+        assertEquals("id1", new ItemId(method.responseItems.get(0)).id);
+        assertEquals("Task", method.responseItems.get(1).type);
+        assertEquals("id3", new ItemId(method.responseItems.get(1)).id);
+    }
+
+    public void testMimeContentSpool() throws IOException {
+        byte[] content = new byte[300000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 7);
+        }
+        String response = "<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+                "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"><s:Body>" +
+                "<m:GetItemResponse xmlns:m=\"http://schemas.microsoft.com/exchange/services/2006/messages\" " +
+                "xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\"><m:ResponseMessages>" +
+                "<m:GetItemResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>" +
+                "<m:Items><t:Message><t:MimeContent CharacterSet=\"UTF-8\">" + IOUtil.encodeBase64AsString(content) + "</t:MimeContent>" +
+                "<t:ItemId Id=\"id1\" ChangeKey=\"ck1\"/></t:Message></m:Items>" +
+                "</m:GetItemResponseMessage>" +
+                "</m:ResponseMessages></m:GetItemResponse></s:Body></s:Envelope>";
+        GetItemMethod method = new GetItemMethod(BaseShape.ID_ONLY, new ItemId("id1"), true);
+        method.setMimeContentSpoolThreshold(1024);
+        method.processResponseStream(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+        SpoolOutputStream mimeContentSpool = method.responseItems.get(0).mimeContentSpool;
+        try {
+            assertNull(method.responseItems.get(0).mimeContent);
+            assertTrue(mimeContentSpool.isSpooled());
+            assertEquals(content.length, mimeContentSpool.size());
+            assertTrue(Arrays.equals(content, mimeContentSpool.toByteArray()));
+            // following tag still parsed
+            assertEquals("id1", new ItemId(method.responseItems.get(0)).id);
+        } finally {
+            mimeContentSpool.delete();
+        }
+    }
+
+    public void testMimeContentSpoolTextEvents() throws XMLStreamException, IOException {
+        byte[] content = new byte[100000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 13);
+        }
+        // base64 content with line breaks as sent by some servers
+        String mimeContent = "<t:MimeContent xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\">"
+                + IOUtil.encodeBase64AsString(content).replaceAll("(.{76})", "$1\r\n") + "</t:MimeContent>";
+        // delegate hides the Stax2 typed reader interface
+        XMLStreamReader reader = new StreamReaderDelegate(XMLStreamUtil.createXMLStreamReader(mimeContent));
+        while (!XMLStreamUtil.isStartTag(reader, "MimeContent")) {
+            reader.next();
+        }
+        GetItemMethod method = new GetItemMethod(BaseShape.ID_ONLY, new ItemId("id1"), true);
+        method.setMimeContentSpoolThreshold(1024);
+        SpoolOutputStream mimeContentSpool = method.readMimeContentSpool(reader);
+        try {
+            assertTrue(mimeContentSpool.isSpooled());
+            assertEquals(content.length, mimeContentSpool.size());
+            assertTrue(Arrays.equals(content, mimeContentSpool.toByteArray()));
+        } finally {
+            mimeContentSpool.delete();
+        }
+    }
+}
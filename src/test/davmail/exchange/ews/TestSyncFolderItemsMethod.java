@@ -0,0 +1,82 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test SyncFolderItems request and response parsing.
+ */
+public class TestSyncFolderItemsMethod extends TestCase {
+    protected static final String RESPONSE = "<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+            "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"><s:Body>" +
+            "<m:SyncFolderItemsResponse xmlns:m=\"http://schemas.microsoft.com/exchange/services/2006/messages\" " +
+            "xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\"><m:ResponseMessages>" +
+            "<m:SyncFolderItemsResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>" +
+            "<m:SyncState>H4sIAAA=</m:SyncState>" +
+            "<m:IncludesLastItemInRange>false</m:IncludesLastItemInRange>" +
+            "<m:Changes>" +
+            "<t:Create><t:Message><t:ItemId Id=\"id1\" ChangeKey=\"ck1\"/><t:Subject>test</t:Subject></t:Message></t:Create>" +
+            "<t:Update><t:Message><t:ItemId Id=\"id2\" ChangeKey=\"ck2\"/></t:Message></t:Update>" +
+            "<t:Delete><t:ItemId Id=\"id3\" ChangeKey=\"ck3\"/></t:Delete>" +
+            "<t:ReadFlagChange><t:ItemId Id=\"id4\" ChangeKey=\"ck4\"/><t:IsRead>true</t:IsRead></t:ReadFlagChange>" +
+            "</m:Changes>" +
+            "</m:SyncFolderItemsResponseMessage></m:ResponseMessages></m:SyncFolderItemsResponse></s:Body></s:Envelope>";
+
+    public void testRequest() {
+        SyncFolderItemsMethod method = new SyncFolderItemsMethod(BaseShape.ID_ONLY,
+                DistinguishedFolderId.getInstance(null, DistinguishedFolderId.Name.inbox), "state", 512);
+        String request = new String(method.generateSoapEnvelope(), StandardCharsets.UTF_8);
+        assertTrue(request.contains("<m:SyncFolderItems><m:ItemShape><t:BaseShape>IdOnly</t:BaseShape></m:ItemShape>"));
+        assertTrue(request.contains("<m:SyncFolderId><t:DistinguishedFolderId Id=\"inbox\"/></m:SyncFolderId>"));
+        assertTrue(request.contains("<m:SyncState>state</m:SyncState><m:MaxChangesReturned>512</m:MaxChangesReturned>"));
+    }
+
+    public void testResponse() {
+        SyncFolderItemsMethod method = new SyncFolderItemsMethod(BaseShape.ID_ONLY,
+                DistinguishedFolderId.getInstance(null, DistinguishedFolderId.Name.inbox), null, 512);
+        method.processResponseStream(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)));
+        assertNull(method.errorDetail);
+        assertEquals("H4sIAAA=", method.getSyncState());
+        assertFalse(method.includesLastItemInRange());
+        assertEquals(4, method.responseItems.size());
+
+        EWSMethod.Item created = method.responseItems.get(0);
+        assertEquals("Create", created.get("ChangeType"));
+        assertEquals("Message", created.type);
+        assertEquals("id1", created.get("ItemId"));
+        assertEquals("ck1", created.get("ChangeKey"));
+        assertEquals("test", created.get("Subject"));
+
+        assertEquals("Update", method.responseItems.get(1).get("ChangeType"));
+        assertEquals("id2", method.responseItems.get(1).get("ItemId"));
+
+        EWSMethod.Item deleted = method.responseItems.get(2);
+        assertEquals("Delete", deleted.get("ChangeType"));
+        assertEquals("id3", deleted.get("ItemId"));
+
+        EWSMethod.Item readFlagChange = method.responseItems.get(3);
+        assertEquals("ReadFlagChange", readFlagChange.get("ChangeType"));
+        assertEquals("id4", readFlagChange.get("ItemId"));
+        assertEquals("true", readFlagChange.get("IsRead"));
+    }
+}
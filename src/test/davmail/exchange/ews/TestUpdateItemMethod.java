@@ -0,0 +1,71 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.exchange.ews;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test multiple item UpdateItem request and per item response codes.
+ */
+public class TestUpdateItemMethod extends TestCase {
+    protected static final String RESPONSE = "<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+            "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"><s:Body>" +
+            "<m:UpdateItemResponse xmlns:m=\"http://schemas.microsoft.com/exchange/services/2006/messages\" " +
+            "xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\"><m:ResponseMessages>" +
+            "<m:UpdateItemResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>" +
+            "<m:Items><t:Message><t:ItemId Id=\"id1\" ChangeKey=\"ck1\"/></t:Message></m:Items></m:UpdateItemResponseMessage>" +
+            "<m:UpdateItemResponseMessage ResponseClass=\"Error\"><m:MessageText>The specified object was not found in the store.</m:MessageText>" +
+            "<m:ResponseCode>ErrorItemNotFound</m:ResponseCode></m:UpdateItemResponseMessage>" +
+            "</m:ResponseMessages></m:UpdateItemResponse></s:Body></s:Envelope>";
+
+    protected UpdateItemMethod createMethod() {
+        List<ItemId> itemIds = new ArrayList<>();
+        itemIds.add(new ItemId("id1"));
+        itemIds.add(new ItemId("id2"));
+        List<FieldUpdate> updates = new ArrayList<>();
+        updates.add(Field.createFieldUpdate("read", "true"));
+        return new UpdateItemMethod(MessageDisposition.SaveOnly,
+                ConflictResolution.AlwaysOverwrite,
+                SendMeetingInvitationsOrCancellations.SendToNone,
+                itemIds, updates);
+    }
+
+    public void testRequest() {
+        UpdateItemMethod method = createMethod();
+        String request = new String(method.generateSoapEnvelope(), StandardCharsets.UTF_8);
+        assertTrue(request.contains("<m:ItemChanges><t:ItemChange><t:ItemId Id=\"id1\"/><t:Updates>"));
+        assertTrue(request.contains("</t:Updates></t:ItemChange><t:ItemChange><t:ItemId Id=\"id2\"/><t:Updates>"));
+        assertEquals(2, request.split("<t:IsRead>true</t:IsRead>", -1).length - 1);
+    }
+
+    public void testResponse() throws EWSException {
+        UpdateItemMethod method = createMethod();
+        method.processResponseStream(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)));
+        // per item failure does not fail the whole batch
+        method.checkSuccess();
+        assertTrue(method.isUpdated(0));
+        assertFalse(method.isUpdated(1));
+        assertEquals("ErrorItemNotFound", method.getResponseCode(1));
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2015  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.imap;
+
+import junit.framework.TestCase;
+
+/**
+ * Test detection of FETCH requests loading full message content, used to enable read-ahead.
+ */
+public class TestImapContentFetch extends TestCase {
+    public void testContentFetch() {
+        assertTrue(ImapConnection.isContentFetch("(UID RFC822.SIZE BODY.PEEK[])"));
+        assertTrue(ImapConnection.isContentFetch("(BODY[])"));
+        assertTrue(ImapConnection.isContentFetch("(UID BODYSTRUCTURE)"));
+        assertTrue(ImapConnection.isContentFetch("(RFC822)"));
+        assertTrue(ImapConnection.isContentFetch("rfc822.text"));
+        assertTrue(ImapConnection.isContentFetch("(UID BODY.PEEK[HEADER.FIELDS (From To)] BODY.PEEK[])"));
+        assertTrue(ImapConnection.isContentFetch("(BODY.PEEK[HEADER] BODY.PEEK[TEXT])"));
+        assertTrue(ImapConnection.isContentFetch("(BODY[1.2])"));
+    }
+
+    public void testHeaderFetch() {
+        assertFalse(ImapConnection.isContentFetch(null));
+        assertFalse(ImapConnection.isContentFetch("(UID FLAGS)"));
+        assertFalse(ImapConnection.isContentFetch("(UID RFC822.SIZE FLAGS BODY.PEEK[HEADER.FIELDS (From To Subject)])"));
+        assertFalse(ImapConnection.isContentFetch("(RFC822.HEADER)"));
+    }
+}
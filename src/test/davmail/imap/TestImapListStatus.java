@@ -0,0 +1,57 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.imap;
+
+import junit.framework.TestCase;
+
+/**
+ * Test LIST return options parsing (SPECIAL-USE and LIST-STATUS).
+ */
+public class TestImapListStatus extends TestCase {
+    protected String getReturnOption(String line) {
+        ImapConnection.ImapTokenizer tokens = new ImapConnection.ImapTokenizer(line);
+        tokens.nextToken();
+        return tokens.nextToken();
+    }
+
+    public void testStatusReturnOption() {
+        String returnOption = getReturnOption("RETURN (STATUS (MESSAGES UNSEEN UIDNEXT))");
+        assertEquals("MESSAGES UNSEEN UIDNEXT", ImapConnection.getStatusReturnOption(returnOption));
+        assertFalse(ImapConnection.hasReturnOption(returnOption, "SPECIAL-USE"));
+    }
+
+    public void testCombinedReturnOptions() {
+        String returnOption = getReturnOption("RETURN (SPECIAL-USE STATUS (MESSAGES))");
+        assertTrue(ImapConnection.hasReturnOption(returnOption, "SPECIAL-USE"));
+        assertEquals("MESSAGES", ImapConnection.getStatusReturnOption(returnOption));
+    }
+
+    public void testSpecialUseOnly() {
+        String returnOption = getReturnOption("RETURN (SPECIAL-USE)");
+        assertTrue(ImapConnection.hasReturnOption(returnOption, "special-use"));
+        assertNull(ImapConnection.getStatusReturnOption(returnOption));
+        assertNull(ImapConnection.getStatusReturnOption(null));
+    }
+
+    public void testNeedsFolderStatus() {
+        assertFalse(ImapConnection.needsFolderStatus("MESSAGES UNSEEN"));
+        assertTrue(ImapConnection.needsFolderStatus("MESSAGES UNSEEN UIDNEXT"));
+        assertTrue(ImapConnection.needsFolderStatus("recent"));
+    }
+}
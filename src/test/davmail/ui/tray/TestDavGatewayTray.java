@@ -0,0 +1,77 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.ui.tray;
+
+import davmail.BundleMessage;
+import junit.framework.TestCase;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import java.util.Locale;
+
+/**
+ * Check debug messages are only formatted when consumed.
+ */
+public class TestDavGatewayTray extends TestCase {
+    static int formatCount;
+
+    static class CountingBundleMessage extends BundleMessage {
+        private static final long serialVersionUID = 1L;
+
+        CountingBundleMessage(String key, Object... arguments) {
+            super(key, arguments);
+        }
+
+        @Override
+        public String format(Locale locale) {
+            formatCount++;
+            return super.format(locale);
+        }
+    }
+
+    protected Level previousLevel;
+
+    @Override
+    public void setUp() {
+        previousLevel = Logger.getLogger("davmail").getLevel();
+        formatCount = 0;
+    }
+
+    @Override
+    public void tearDown() {
+        Logger.getLogger("davmail").setLevel(previousLevel);
+    }
+
+    public void testDebugDisabled() {
+        Logger.getLogger("davmail").setLevel(Level.INFO);
+        assertFalse(DavGatewayTray.isDebugEnabled());
+        // simulate untagged FETCH responses on a 10k message folder
+        for (int i = 1; i <= 10000; i++) {
+            DavGatewayTray.debug(new CountingBundleMessage("LOG_SEND_CLIENT_MESSAGE", "* " + i + " FETCH (UID " + i + " FLAGS (\\Seen))"));
+        }
+        assertEquals(0, formatCount);
+    }
+
+    public void testDebugEnabled() {
+        Logger.getLogger("davmail").setLevel(Level.DEBUG);
+        assertTrue(DavGatewayTray.isDebugEnabled());
+        DavGatewayTray.debug(new CountingBundleMessage("LOG_SEND_CLIENT_MESSAGE", "* 1 FETCH (UID 1 FLAGS (\\Seen))"));
+        assertEquals(1, formatCount);
+    }
+}
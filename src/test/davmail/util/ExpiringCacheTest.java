@@ -0,0 +1,63 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2009  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.util;
+
+import junit.framework.TestCase;
+
+/**
+ * Test ExpiringCache.
+ */
+public class ExpiringCacheTest extends TestCase {
+    public void testGetPut() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 60000);
+        cache.put("a", "value");
+        assertEquals("value", cache.get("a"));
+        assertNull(cache.get("b"));
+        cache.remove("a");
+        assertNull(cache.get("a"));
+    }
+
+    public void testDisabled() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 0);
+        cache.put("a", "value");
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    public void testLeastRecentlyUsed() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, 60000);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        // access a, b becomes eldest
+        cache.get("a");
+        cache.put("c", "3");
+        assertEquals(2, cache.size());
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    public void testExpired() throws InterruptedException {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 50);
+        cache.put("a", "value");
+        Thread.sleep(100);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+}
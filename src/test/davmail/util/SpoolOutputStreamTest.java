@@ -0,0 +1,64 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2009  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.util;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test SpoolOutputStream.
+ */
+public class SpoolOutputStreamTest extends TestCase {
+    public void testMemory() throws IOException {
+        SpoolOutputStream spoolOutputStream = new SpoolOutputStream(1024);
+        spoolOutputStream.write("test".getBytes(StandardCharsets.UTF_8));
+        spoolOutputStream.close();
+        assertFalse(spoolOutputStream.isSpooled());
+        assertEquals(4, spoolOutputStream.size());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        spoolOutputStream.writeTo(baos);
+        assertEquals("test", baos.toString("UTF-8"));
+        spoolOutputStream.delete();
+    }
+
+    public void testSpool() throws IOException {
+        SpoolOutputStream spoolOutputStream = new SpoolOutputStream(10);
+        spoolOutputStream.write("0123456789".getBytes(StandardCharsets.UTF_8));
+        assertFalse(spoolOutputStream.isSpooled());
+        spoolOutputStream.write('a');
+        spoolOutputStream.write("bcdef".getBytes(StandardCharsets.UTF_8));
+        spoolOutputStream.close();
+        assertTrue(spoolOutputStream.isSpooled());
+        assertEquals(16, spoolOutputStream.size());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        spoolOutputStream.writeTo(baos);
+        assertEquals("0123456789abcdef", baos.toString("UTF-8"));
+        assertEquals("0123456789abcdef", new String(spoolOutputStream.toByteArray(), StandardCharsets.UTF_8));
+        try (InputStream inputStream = spoolOutputStream.getInputStream()) {
+            assertEquals('0', inputStream.read());
+        }
+        spoolOutputStream.delete();
+        assertFalse(spoolOutputStream.isSpooled());
+    }
+}
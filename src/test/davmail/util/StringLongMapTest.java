@@ -0,0 +1,48 @@
+/*
+ * DavMail POP/IMAP/SMTP/CalDav/LDAP Exchange Gateway
+ * Copyright (C) 2010  Mickael Guessant
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package davmail.util;
+
+import junit.framework.TestCase;
+
+public class StringLongMapTest extends TestCase {
+    public void testPutGet() {
+        StringLongMap map = new StringLongMap();
+        assertFalse(map.containsKey("a"));
+        assertEquals(-1, map.get("a", -1));
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("a", 3);
+        assertEquals(2, map.size());
+        assertEquals(3, map.get("a", -1));
+        assertEquals(2, map.get("b", -1));
+        assertTrue(map.containsKey("b"));
+    }
+
+    public void testResize() {
+        StringLongMap map = new StringLongMap();
+        for (int i = 0; i < 100000; i++) {
+            map.put("id" + i, i);
+        }
+        assertEquals(100000, map.size());
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(i, map.get("id" + i, -1));
+        }
+        assertFalse(map.containsKey("id100000"));
+    }
+}